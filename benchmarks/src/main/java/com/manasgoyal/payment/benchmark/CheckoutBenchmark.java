@@ -0,0 +1,50 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.dto.CreateRazorpayOrderResponse;
+import com.manasgoyal.payment.dto.CreateStripeCheckoutResponse;
+import com.manasgoyal.payment.service.RazorpayPaymentService;
+import com.manasgoyal.payment.service.StripePaymentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout creation end to end: order-service lookup, payment row, provider call, save.
+ * Every invocation uses a new order, so nothing is served from the order cache or session reuse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+
+    private PaymentServiceContext context;
+    private StripePaymentService stripePaymentService;
+    private RazorpayPaymentService razorpayPaymentService;
+
+    @Setup
+    public void setUp() {
+        context = new PaymentServiceContext();
+        stripePaymentService = context.bean(StripePaymentService.class);
+        razorpayPaymentService = context.bean(RazorpayPaymentService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CreateStripeCheckoutResponse createCheckoutSession() throws Exception {
+        return stripePaymentService.createCheckoutSession(ProviderAccountRegistry.DEFAULT_ACCOUNT, UUID.randomUUID());
+    }
+
+    @Benchmark
+    public CreateRazorpayOrderResponse createRazorpayOrder() throws Exception {
+        return razorpayPaymentService.createRazorpayOrder(ProviderAccountRegistry.DEFAULT_ACCOUNT, UUID.randomUUID());
+    }
+}
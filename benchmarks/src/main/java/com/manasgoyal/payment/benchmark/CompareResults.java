@@ -0,0 +1,55 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files (e.g. from two commits):
+ * {@code java -cp target/benchmarks.jar com.manasgoyal.payment.benchmark.CompareResults base.json new.json [threshold%]}.
+ * Exits with 1 when a benchmark got slower than the threshold (default 10%).
+ */
+public final class CompareResults {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: CompareResults <base.json> <new.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        Map<String, JsonNode> base = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        boolean regressed = false;
+        System.out.printf("%-90s %12s %12s %9s%n", "benchmark", "base", "new", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = base.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            double was = before.path("primaryMetric").path("score").asDouble();
+            double now = entry.getValue().path("primaryMetric").path("score").asDouble();
+            double change = (now - was) / was * 100;
+            // AverageTime/SampleTime: higher is worse; Throughput: lower is worse
+            boolean slower = "thrpt".equals(entry.getValue().path("mode").asText()) ? change < -threshold : change > threshold;
+            regressed |= slower;
+            System.out.printf("%-90s %12.3f %12.3f %+8.1f%%%s%n", entry.getKey(), was, now, change, slower ? "  <-- slower" : "");
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").fields().forEachRemaining(p -> key.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,74 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Razorpay webhook signature check: the original per-call implementation
+ * (String round-trip, Mac.getInstance + init per call, String.equals) against
+ * the pooled {@link HmacSha256Verifier} working on the raw bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HmacVerifierBenchmark {
+
+    private static final String SECRET = "benchmark_webhook_secret";
+
+    @Param({"1024", "8192", "65536"})
+    private int payloadBytes;
+
+    private byte[] body;
+    private String signature;
+    private HmacSha256Verifier verifier;
+    private HmacSha256Verifier rotatingVerifier;
+
+    @Setup
+    public void setUp() {
+        body = new byte[payloadBytes];
+        Arrays.fill(body, (byte) 'a');
+        verifier = new HmacSha256Verifier(List.of(SECRET));
+        rotatingVerifier = new HmacSha256Verifier(List.of("next_secret", SECRET));
+        signature = verifier.signHex(body);
+    }
+
+    @Benchmark
+    public boolean legacyStringHmac() {
+        String payload = new String(body, StandardCharsets.UTF_8);
+        return legacyHmacSha256Hex(payload, SECRET).equals(signature);
+    }
+
+    @Benchmark
+    public boolean pooledVerifier() {
+        return verifier.verifyHex(body, signature);
+    }
+
+    @Benchmark
+    public boolean pooledVerifierTwoSecrets() {
+        return rotatingVerifier.verifyHex(body, signature);
+    }
+
+    // Copy of the hmacSha256Hex that used to live in RazorpayWebhookController
+    private static String legacyHmacSha256Hex(String data, String secret) {
+        try {
+            Mac sha256Hmac = Mac.getInstance("HmacSHA256");
+            SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+            sha256Hmac.init(secretKey);
+            byte[] hash = sha256Hmac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute HMAC", e);
+        }
+    }
+}
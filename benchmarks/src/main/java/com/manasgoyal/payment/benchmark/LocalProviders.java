@@ -0,0 +1,81 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One local HTTP server standing in for order-service ({@code /api/orders}) and the Stripe API
+ * ({@code /v1/checkout/sessions}), so benchmarks measure our code plus a loopback round trip.
+ */
+final class LocalProviders implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY the JDK server's separate header/body writes hit the
+        // client's delayed ACK and every loopback call costs ~40 ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+    private final AtomicLong sessions = new AtomicLong();
+
+    LocalProviders() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.setExecutor(executor);
+        server.createContext("/api/orders", this::order);
+        server.createContext("/v1/checkout/sessions", this::checkoutSession);
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void order(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        if ("GET".equals(exchange.getRequestMethod())) {
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            respond(exchange, "{\"id\":\"" + id + "\",\"totalAmount\":49900,\"currency\":\"INR\"}");
+        } else {
+            respond(exchange, "");
+        }
+    }
+
+    private void checkoutSession(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        long n = sessions.incrementAndGet();
+        respond(exchange, "{\"id\":\"cs_bench_" + n + "\",\"object\":\"checkout.session\","
+                + "\"url\":\"https://checkout.stripe.test/" + n + "\","
+                + "\"expires_at\":" + Instant.now().plusSeconds(3600).getEpochSecond() + "}");
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
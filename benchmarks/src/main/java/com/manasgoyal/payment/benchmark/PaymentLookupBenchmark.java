@@ -0,0 +1,78 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook / verify lookups by provider reference ({@code findByProviderOrderId},
+ * {@code findByProviderSessionId}) in a table of {@code payments} rows, with the unique indexes
+ * uk_payment_provider_order / uk_payment_provider_session ({@code indexed=true}) and with both
+ * dropped ({@code indexed=false}), which is what every lookup cost before they existed.
+ * Odd ids are Stripe rows (cs_&lt;id&gt;), even ids Razorpay rows (order_&lt;id&gt;).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentLookupBenchmark {
+
+    @Param({"1000000"})
+    public int payments;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private PaymentServiceContext context;
+    private PaymentRepository paymentRepository;
+
+    @Setup
+    public void setUp() {
+        context = new PaymentServiceContext();
+        paymentRepository = context.bean(PaymentRepository.class);
+
+        JdbcTemplate jdbc = context.bean(JdbcTemplate.class);
+        jdbc.update("""
+                INSERT INTO payments (id, order_id, provider, account_id, status, provider_session_id, provider_order_id,
+                                      amount, currency, version, created_at, updated_at)
+                SELECT X, RANDOM_UUID(),
+                       CASE WHEN MOD(X, 2) = 1 THEN 'STRIPE' ELSE 'RAZORPAY' END, 'default', 'PAID',
+                       CASE WHEN MOD(X, 2) = 1 THEN 'cs_' || X END,
+                       CASE WHEN MOD(X, 2) = 0 THEN 'order_' || X END,
+                       49900, 'INR', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+                FROM SYSTEM_RANGE(1, ?)
+                """, payments);
+        if (!indexed) {
+            jdbc.execute("ALTER TABLE payments DROP CONSTRAINT uk_payment_provider_order");
+            jdbc.execute("ALTER TABLE payments DROP CONSTRAINT uk_payment_provider_session");
+        }
+        jdbc.execute("ANALYZE");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<PaymentEntity> findByProviderOrderId() {
+        return paymentRepository.findByProviderOrderId("order_" + randomId(0));
+    }
+
+    @Benchmark
+    public Optional<PaymentEntity> findByProviderSessionId() {
+        return paymentRepository.findByProviderSessionId("cs_" + randomId(1));
+    }
+
+    // a seeded id with the given parity
+    private long randomId(int parity) {
+        return 2 * ThreadLocalRandom.current().nextLong(payments / 2) + 2 - parity;
+    }
+}
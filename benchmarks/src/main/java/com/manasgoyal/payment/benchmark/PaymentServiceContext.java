@@ -0,0 +1,53 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.razorpay.LocalRazorpayOrders;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The real application context on an embedded H2 database, wired to {@link LocalProviders}.
+ */
+final class PaymentServiceContext implements AutoCloseable {
+
+    private final LocalProviders providers = new LocalProviders();
+    private final ConfigurableApplicationContext context;
+
+    PaymentServiceContext(String... extraProperties) {
+        context = new SpringApplicationBuilder(PaymentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:payment_bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=WARN",
+                        "order.service.url=" + providers.url(),
+                        "order.outbox.dispatcher.enabled=false",
+                        "payment.webhooks.retention.enabled=false",
+                        "stripe.apiBase=" + providers.url(),
+                        "stripe.secretKey=sk_test_benchmark",
+                        "stripe.webhookSecret=whsec_benchmark",
+                        "razorpay.keyId=rzp_test_benchmark",
+                        "razorpay.keySecret=benchmark",
+                        "razorpay.webhookSecret=benchmark"
+                )
+                .properties(extraProperties)
+                .run();
+        // credentials never change here, so the cached client (and its stub) is kept across refreshes
+        context.getBean(ProviderAccountRegistry.class).get(ProviderAccountRegistry.DEFAULT_ACCOUNT)
+                .razorpayClient().orders = new LocalRazorpayOrders();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        providers.close();
+    }
+}
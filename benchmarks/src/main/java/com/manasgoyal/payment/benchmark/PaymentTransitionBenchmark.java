@@ -0,0 +1,73 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.service.PaymentStateMachine;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eight threads moving a handful of hot payments between PENDING and FAILED through
+ * {@link PaymentStateMachine}, with the per-order striped lock ({@code lockStripes=1024})
+ * and with only the conditional update ({@code lockStripes=0}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class PaymentTransitionBenchmark {
+
+    @Param({"1024", "0"})
+    public int lockStripes;
+
+    @Param({"4"})
+    public int hotOrders;
+
+    private PaymentServiceContext context;
+    private PaymentRepository paymentRepository;
+    private PaymentStateMachine paymentStateMachine;
+    private TransactionTemplate transactionTemplate;
+    private UUID[] orderIds;
+
+    @Setup
+    public void setUp() {
+        context = new PaymentServiceContext("payment.transitions.lock-stripes=" + lockStripes);
+        paymentRepository = context.bean(PaymentRepository.class);
+        paymentStateMachine = context.bean(PaymentStateMachine.class);
+        transactionTemplate = context.bean(TransactionTemplate.class);
+
+        orderIds = new UUID[hotOrders];
+        for (int i = 0; i < hotOrders; i++) {
+            orderIds[i] = UUID.randomUUID();
+            paymentRepository.save(PaymentEntity.builder()
+                    .orderId(orderIds[i])
+                    .provider(PaymentProvider.STRIPE)
+                    .status(PaymentStatus.PENDING)
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Boolean transition() {
+        UUID orderId = orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)];
+        return transactionTemplate.execute(tx -> {
+            PaymentEntity payment = paymentRepository.findByOrderIdAndProvider(orderId, PaymentProvider.STRIPE).orElseThrow();
+            PaymentStatus target = payment.getStatus() == PaymentStatus.PENDING ? PaymentStatus.FAILED : PaymentStatus.PENDING;
+            return paymentStateMachine.transition(payment, target, null);
+        });
+    }
+}
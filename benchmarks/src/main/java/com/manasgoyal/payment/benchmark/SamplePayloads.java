@@ -0,0 +1,64 @@
+package com.manasgoyal.payment.benchmark;
+
+/**
+ * Realistic provider webhook bodies for the benchmarks.
+ */
+final class SamplePayloads {
+
+    private SamplePayloads() {
+    }
+
+    /**
+     * Stripe checkout.session.completed, inflated with {@code lineItems} expanded line items.
+     */
+    static String stripeCheckoutCompleted(int lineItems) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < lineItems; i++) {
+            if (i > 0) items.append(',');
+            items.append("""
+                    {"id":"li_1Pq%1$04dXYZabc","object":"item","amount_discount":0,"amount_subtotal":49900,\
+                    "amount_tax":0,"amount_total":49900,"currency":"inr","description":"Order item %1$d",\
+                    "price":{"id":"price_1Pq%1$04dXYZ","object":"price","active":false,"currency":"inr",\
+                    "product":"prod_Q%1$04dXYZ","type":"one_time","unit_amount":49900},"quantity":1}""".formatted(i));
+        }
+        return """
+                {"id":"evt_1PqRsT2eZvKYlo2C0aBcDeFg","object":"event","api_version":"2024-04-10","created":1718000000,
+                "data":{"object":{"id":"cs_test_a1B2c3D4e5F6g7H8i9J0kLmNoPqRsTuVwXyZ","object":"checkout.session",
+                "after_expiration":null,"allow_promotion_codes":null,"amount_subtotal":49900,"amount_total":49900,
+                "automatic_tax":{"enabled":false,"liability":null,"status":null},"billing_address_collection":null,
+                "cancel_url":"http://localhost:8080/cancel","client_reference_id":null,"consent":null,
+                "created":1717999000,"currency":"inr","customer":null,"customer_creation":"if_required",
+                "customer_details":{"address":{"city":null,"country":"IN","line1":null,"line2":null,"postal_code":null,
+                "state":null},"email":"customer@example.com","name":"Test Customer","phone":null,"tax_exempt":"none",
+                "tax_ids":[]},"customer_email":null,"expires_at":1718085400,"invoice":null,"livemode":false,
+                "line_items":{"object":"list","data":[%s],"has_more":false},
+                "locale":null,"metadata":{"orderId":"7c9e6679-7425-40de-944b-e07fc1f90ae7"},"mode":"payment",
+                "payment_intent":"pi_3PqRsT2eZvKYlo2C1AbCdEfG","payment_link":null,"payment_method_collection":"if_required",
+                "payment_method_options":{"card":{"request_three_d_secure":"automatic"}},"payment_method_types":["card"],
+                "payment_status":"paid","phone_number_collection":{"enabled":false},"recovered_from":null,
+                "setup_intent":null,"shipping_address_collection":null,"shipping_cost":null,"shipping_details":null,
+                "shipping_options":[],"status":"complete","submit_type":null,"subscription":null,
+                "success_url":"http://localhost:8080/success","total_details":{"amount_discount":0,"amount_shipping":0,
+                "amount_tax":0},"ui_mode":"hosted","url":null}},"livemode":false,"pending_webhooks":1,
+                "request":{"id":null,"idempotency_key":null},"type":"checkout.session.completed"}
+                """.formatted(items);
+    }
+
+    /**
+     * Razorpay payment.captured with the full payment entity.
+     */
+    static String razorpayPaymentCaptured() {
+        return """
+                {"entity":"event","account_id":"acc_BFQ7uQEaa7j2z7","event":"payment.captured",
+                "contains":["payment"],"payload":{"payment":{"entity":{"id":"pay_DESlfW9H8K9uqM",
+                "entity":"payment","amount":49900,"currency":"INR","status":"captured",
+                "order_id":"order_DESlLckIVRkHWj","invoice_id":null,"international":false,"method":"card",
+                "amount_refunded":0,"refund_status":null,"captured":true,"description":"Order payment",
+                "card_id":"card_DESlfW9JhxGGHR","card":{"id":"card_DESlfW9JhxGGHR","entity":"card",
+                "name":"Test Customer","last4":"1111","network":"Visa","type":"debit","issuer":null,
+                "international":false,"emi":false},"bank":null,"wallet":null,"vpa":null,
+                "email":"customer@example.com","contact":"+919876543210","notes":[],"fee":1180,"tax":180,
+                "error_code":null,"error_description":null,"created_at":1718000000}}},"created_at":1718000001}
+                """;
+    }
+}
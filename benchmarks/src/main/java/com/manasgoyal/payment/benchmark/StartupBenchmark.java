@@ -0,0 +1,145 @@
+package com.manasgoyal.payment.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cold start of the packaged service, which JMH cannot measure from inside a fork:
+ * {@code java -cp target/benchmarks.jar com.manasgoyal.payment.benchmark.StartupBenchmark ../demo/target/order-service-0.0.1-SNAPSHOT.jar [runs] [--app.property=value ...]}.
+ * <p>
+ * Starts the plain jar, the same jar with {@code spring.aot.enabled} when it was built with
+ * {@code -Paot} or {@code -Pnative}, and the native executable next to it when there is one.
+ * Reports the median startup time Spring logs and the time from launch to the first answered
+ * {@code GET /api/payments/{orderId}}. The app arguments must point it at a database.
+ */
+public final class StartupBenchmark {
+
+    private static final Pattern STARTED = Pattern.compile("Started PaymentApplication in [\\d.]+ seconds \\(process running for ([\\d.]+)\\)");
+    private static final String AOT_INITIALIZER = "BOOT-INF/classes/com/manasgoyal/payment/PaymentApplication__ApplicationContextInitializer.class";
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    private record Sample(long startupMillis, long firstRequestMillis) {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: StartupBenchmark <order-service jar> [runs] [--app.property=value ...]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> appArgs = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("jvm", List.of(java, "-jar", jar.toString()));
+        if (aotProcessed(jar)) {
+            variants.put("jvm+aot", List.of(java, "-Dspring.aot.enabled=true", "-jar", jar.toString()));
+        }
+        Path executable = jar.resolveSibling("order-service");
+        if (Files.isExecutable(executable)) {
+            variants.put("native", List.of(executable.toString()));
+        }
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        System.out.printf("%-10s %14s %18s%n", "variant", "startup (ms)", "first request (ms)");
+        for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+            start(variant.getValue(), appArgs, http); // warms the page cache: discarded
+            List<Sample> samples = new ArrayList<>(runs);
+            for (int i = 0; i < runs; i++) {
+                samples.add(start(variant.getValue(), appArgs, http));
+            }
+            System.out.printf("%-10s %14d %18d%n", variant.getKey(),
+                    median(samples.stream().mapToLong(Sample::startupMillis).toArray()),
+                    median(samples.stream().mapToLong(Sample::firstRequestMillis).toArray()));
+        }
+    }
+
+    private static Sample start(List<String> command, List<String> appArgs, HttpClient http) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> commandLine = new ArrayList<>(command);
+        commandLine.addAll(appArgs);
+        commandLine.add("--server.port=" + port);
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(commandLine).redirectErrorStream(true).start();
+        try {
+            CompletableFuture<Long> startup = new CompletableFuture<>();
+            Thread reader = new Thread(() -> readLog(process, startup), "service-log");
+            reader.setDaemon(true);
+            reader.start();
+            HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/payments/" + UUID.randomUUID()))
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+            long firstRequest = -1;
+            while (firstRequest < 0) {
+                if (System.nanoTime() - launched > START_TIMEOUT.toNanos() || !process.isAlive()) {
+                    throw new IllegalStateException("Service did not answer: " + String.join(" ", commandLine));
+                }
+                try {
+                    http.send(probe, HttpResponse.BodyHandlers.discarding()); // any status: the request was served
+                    firstRequest = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launched);
+                } catch (IOException e) {
+                    Thread.sleep(10);
+                }
+            }
+            return new Sample(startup.get(START_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS), firstRequest);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Drains the service log, completing {@code startup} with the time Spring reports the process took to start.
+     */
+    private static void readLog(Process process, CompletableFuture<Long> startup) {
+        try (BufferedReader log = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line; (line = log.readLine()) != null; ) {
+                Matcher started = STARTED.matcher(line);
+                if (!startup.isDone() && started.find()) {
+                    startup.complete(Math.round(Double.parseDouble(started.group(1)) * 1000));
+                }
+            }
+        } catch (IOException ignored) {
+            // the process was stopped
+        }
+        startup.completeExceptionally(new IllegalStateException("No startup line in the service log"));
+    }
+
+    private static boolean aotProcessed(Path jar) throws IOException {
+        try (JarFile file = new JarFile(jar.toFile())) {
+            return file.getEntry(AOT_INITIALIZER) != null;
+        }
+    }
+
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+}
@@ -0,0 +1,115 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.client.OrderSummaryCache;
+import com.manasgoyal.payment.dto.OrderSummary;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.service.CheckoutService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code concurrency} checkouts submitted at once, each waiting {@code PROVIDER_LATENCY} on the
+ * simulated provider: 200 platform request threads (Tomcat's default maximum) with a provider pool
+ * of the same size, against a virtual thread per request with a provider pool as large as the burst.
+ * The score is the time to drain the burst (requests/sec = concurrency / score); the p99 of single
+ * checkouts is printed after each iteration. The virtual variant needs a Java 21+ runtime.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+
+    private static final String PROVIDER_LATENCY = "PT0.05S";
+    private static final int PLATFORM_REQUEST_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"1000", "10000"})
+    public int concurrency;
+
+    private PaymentServiceContext context;
+    private CheckoutService checkoutService;
+    private OrderSummaryCache orderSummaryCache;
+    private ExecutorService requestThreads;
+    private UUID[] orders;
+    private long[] latencies;
+
+    @Setup
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        requestThreads = virtual
+                ? Executors.newCachedThreadPool(new VirtualThreadTaskExecutor("request-").getVirtualThreadFactory())
+                : Executors.newFixedThreadPool(PLATFORM_REQUEST_THREADS, new CustomizableThreadFactory("request-"));
+
+        int providerPool = virtual ? concurrency : PLATFORM_REQUEST_THREADS;
+        context = new PaymentServiceContext(
+                "spring.threads.virtual.enabled=" + virtual,
+                "payment.providers.simulated.enabled=true",
+                "payment.providers.simulated.latency=" + PROVIDER_LATENCY,
+                "payment.providers.simulated.webhook-secret=whsec_benchmark",
+                "payment.gateway.simulated.max-concurrent=" + providerPool,
+                "payment.gateway.simulated.max-queued=" + concurrency,
+                "payment.gateway.simulated.timeout=PT60S",
+                "spring.datasource.hikari.maximum-pool-size=20"
+        );
+        checkoutService = context.bean(CheckoutService.class);
+        orderSummaryCache = context.bean(OrderSummaryCache.class);
+        latencies = new long[concurrency];
+    }
+
+    @Setup(Level.Invocation)
+    public void newOrders() {
+        // orders come from the cache, so the local order-service stand-in is not the bottleneck
+        orders = new UUID[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            UUID id = UUID.randomUUID();
+            orders[i] = id;
+            orderSummaryCache.get(id, o -> new OrderSummary(o, 49900, "INR"));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printP99() {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%n%s threads, %d concurrent: checkout p99 %.1f ms%n", threads, concurrency,
+                sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1e6);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestThreads.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public void burst() {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            int n = i;
+            calls[i] = CompletableFuture.runAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    checkoutService.checkout(ProviderAccountRegistry.DEFAULT_ACCOUNT, orders[n], PaymentProvider.SIMULATED);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                latencies[n] = System.nanoTime() - start;
+            }, requestThreads);
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+}
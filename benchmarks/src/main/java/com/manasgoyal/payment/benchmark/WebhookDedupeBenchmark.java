@@ -0,0 +1,70 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.service.WebhookDeduplicator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook dedupe against the embedded database: the original {@code existsByProviderAndEventId} check,
+ * a provider retry answered by {@link WebhookDeduplicator}'s recent-event cache, and a first delivery
+ * recorded with {@code INSERT ... ON CONFLICT DO NOTHING}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookDedupeBenchmark {
+
+    private static final String KNOWN_EVENT = "evt_known";
+
+    private PaymentServiceContext context;
+    private WebhookEventRepository webhookEventRepository;
+    private WebhookDeduplicator webhookDeduplicator;
+    private TransactionTemplate transactionTemplate;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        context = new PaymentServiceContext();
+        webhookEventRepository = context.bean(WebhookEventRepository.class);
+        webhookDeduplicator = context.bean(WebhookDeduplicator.class);
+        transactionTemplate = context.bean(TransactionTemplate.class);
+        payload = SamplePayloads.stripeCheckoutCompleted(0).getBytes(StandardCharsets.UTF_8);
+        insert(KNOWN_EVENT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean existsQuery() {
+        return webhookEventRepository.existsByProviderAndEventId(PaymentProvider.STRIPE, KNOWN_EVENT);
+    }
+
+    @Benchmark
+    public Boolean retryOfKnownEvent() {
+        return insert(KNOWN_EVENT);
+    }
+
+    @Benchmark
+    public Boolean firstDelivery() {
+        return insert("evt_" + UUID.randomUUID());
+    }
+
+    private Boolean insert(String eventId) {
+        return transactionTemplate.execute(tx -> webhookDeduplicator.insertIfNew(
+                PaymentProvider.STRIPE, ProviderAccountRegistry.DEFAULT_ACCOUNT, eventId, "checkout.session.completed", payload, WebhookEventStatus.PROCESSED));
+    }
+}
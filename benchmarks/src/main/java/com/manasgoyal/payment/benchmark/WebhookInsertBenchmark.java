@@ -0,0 +1,101 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.entity.GzipPayloadConverter;
+import com.manasgoyal.payment.entity.WebhookEventEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.repository.WebhookEventBulkRepository.NewWebhookEvent;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing {@code rows} webhook events in one transaction, against the embedded database:
+ * one {@code INSERT ... ON CONFLICT} per row (how single deliveries are stored), JPA {@code saveAll}
+ * (JDBC-batched now that ids come from a pooled sequence; with IDENTITY ids every row was its own
+ * round trip) and the multi-row bulk insert.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookInsertBenchmark {
+
+    private static final GzipPayloadConverter PAYLOAD_CODEC = new GzipPayloadConverter();
+
+    @Param({"500"})
+    public int rows;
+
+    private PaymentServiceContext context;
+    private WebhookEventRepository webhookEventRepository;
+    private TransactionTemplate transactionTemplate;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        context = new PaymentServiceContext();
+        webhookEventRepository = context.bean(WebhookEventRepository.class);
+        transactionTemplate = context.bean(TransactionTemplate.class);
+        payload = SamplePayloads.stripeCheckoutCompleted(0).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer rowByRow() {
+        return transactionTemplate.execute(tx -> {
+            int inserted = 0;
+            for (int i = 0; i < rows; i++) {
+                inserted += webhookEventRepository.insertIfAbsent(
+                        PaymentProvider.STRIPE.name(), ProviderAccountRegistry.DEFAULT_ACCOUNT, newEventId(), "checkout.session.completed",
+                        PAYLOAD_CODEC.convertToDatabaseColumn(payload), WebhookEventStatus.PROCESSED.name(), Instant.now());
+            }
+            return inserted;
+        });
+    }
+
+    @Benchmark
+    public Integer jpaSaveAll() {
+        return transactionTemplate.execute(tx -> {
+            List<WebhookEventEntity> events = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                events.add(WebhookEventEntity.builder()
+                        .provider(PaymentProvider.STRIPE)
+                        .eventId(newEventId())
+                        .eventType("checkout.session.completed")
+                        .payload(payload)
+                        .status(WebhookEventStatus.PROCESSED)
+                        .build());
+            }
+            return webhookEventRepository.saveAll(events).size();
+        });
+    }
+
+    @Benchmark
+    public Integer multiRowInsert() {
+        List<NewWebhookEvent> events = new ArrayList<>(rows);
+        Instant now = Instant.now();
+        for (int i = 0; i < rows; i++) {
+            events.add(new NewWebhookEvent(PaymentProvider.STRIPE, null, newEventId(), "checkout.session.completed",
+                    payload, WebhookEventStatus.PROCESSED, now));
+        }
+        return transactionTemplate.execute(tx -> webhookEventRepository.insertAllIfAbsent(events));
+    }
+
+    private static String newEventId() {
+        return "evt_" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,46 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.manasgoyal.payment.entity.GzipPayloadConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of storing webhook payloads gzip-compressed ({@link GzipPayloadConverter}) on a
+ * Stripe checkout.session.completed event, inflated with {@code lineItems} extra line items.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookPayloadCodecBenchmark {
+
+    @Param({"0", "10"})
+    private int lineItems;
+
+    private final GzipPayloadConverter converter = new GzipPayloadConverter();
+
+    private byte[] raw;
+    private byte[] stored;
+
+    @Setup
+    public void setUp() {
+        raw = SamplePayloads.stripeCheckoutCompleted(lineItems).getBytes(StandardCharsets.UTF_8);
+        stored = converter.convertToDatabaseColumn(raw);
+        System.out.printf("%n%d line items: %d bytes raw, %d bytes stored (%.1fx)%n",
+                lineItems, raw.length, stored.length, (double) raw.length / stored.length);
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return converter.convertToDatabaseColumn(raw);
+    }
+
+    @Benchmark
+    public byte[] read() {
+        return converter.convertToEntityAttribute(stored);
+    }
+}
@@ -0,0 +1,119 @@
+package com.manasgoyal.payment.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manasgoyal.payment.account.AccountCredentials;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.dto.RazorpayWebhookEvent;
+import com.manasgoyal.payment.dto.StripeWebhookEvent;
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import com.manasgoyal.payment.security.RazorpaySignatureVerifier;
+import com.manasgoyal.payment.security.StripeSignatureVerifier;
+import com.manasgoyal.payment.webhook.WebhookEventParser;
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook request path up to the service call: signature check plus extraction of the fields we act on.
+ * {@code legacy*} is the original code (String body, {@code Webhook.constructEvent} / per-call Mac,
+ * Jackson tree re-parse in the handler); {@code current*} is the byte[] verifier and streaming parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookVerifyAndParseBenchmark {
+
+    private static final String STRIPE_SECRET = "whsec_benchmark";
+    private static final String RAZORPAY_SECRET = "razorpay_benchmark";
+
+    @Param({"0", "10"})
+    private int lineItems;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebhookEventParser parser = new WebhookEventParser();
+
+    private StripeSignatureVerifier stripeVerifier;
+    private RazorpaySignatureVerifier razorpayVerifier;
+
+    private byte[] stripeBody;
+    private String stripeBodyString;
+    private String stripeHeader;
+    private byte[] razorpayBody;
+    private String razorpayBodyString;
+    private String razorpaySignature;
+
+    @Setup
+    public void setUp() {
+        // account lookups are cache hits, as for any account that received a webhook recently
+        ProviderAccountRegistry accounts = new ProviderAccountRegistry(
+                accountId -> Optional.of(new AccountCredentials(accountId,
+                        new AccountCredentials.Stripe("sk_test_benchmark", STRIPE_SECRET, ""),
+                        new AccountCredentials.Razorpay("rzp_test_benchmark", "key_secret", "", RAZORPAY_SECRET, ""))),
+                1000, Duration.ofHours(1), Duration.ofHours(1));
+        stripeVerifier = new StripeSignatureVerifier(accounts, 3600);
+        razorpayVerifier = new RazorpaySignatureVerifier(accounts);
+
+        stripeBodyString = SamplePayloads.stripeCheckoutCompleted(lineItems);
+        stripeBody = stripeBodyString.getBytes(StandardCharsets.UTF_8);
+        long timestamp = System.currentTimeMillis() / 1000;
+        stripeHeader = "t=" + timestamp + ",v1=" + new HmacSha256Verifier(List.of(STRIPE_SECRET))
+                .signHex((timestamp + "." + stripeBodyString).getBytes(StandardCharsets.UTF_8));
+
+        razorpayBodyString = SamplePayloads.razorpayPaymentCaptured();
+        razorpayBody = razorpayBodyString.getBytes(StandardCharsets.UTF_8);
+        razorpaySignature = new HmacSha256Verifier(List.of(RAZORPAY_SECRET)).signHex(razorpayBody);
+    }
+
+    @Benchmark
+    public String legacyStripe() throws Exception {
+        Event event = Webhook.constructEvent(stripeBodyString, stripeHeader, STRIPE_SECRET, 3600);
+        JsonNode obj = objectMapper.readTree(stripeBodyString).path("data").path("object");
+        return event.getType() + obj.path("id").asText() + obj.path("payment_intent").asText();
+    }
+
+    @Benchmark
+    public StripeWebhookEvent currentStripe() {
+        if (!stripeVerifier.verify(ProviderAccountRegistry.DEFAULT_ACCOUNT, stripeBody, stripeHeader)) {
+            throw new IllegalStateException("signature");
+        }
+        return parser.parseStripe(stripeBody);
+    }
+
+    @Benchmark
+    public String legacyRazorpay() throws Exception {
+        if (!legacyHmacSha256Hex(razorpayBodyString, RAZORPAY_SECRET).equals(razorpaySignature)) {
+            throw new IllegalStateException("signature");
+        }
+        JsonNode root = objectMapper.readTree(razorpayBodyString);
+        JsonNode entity = root.path("payload").path("payment").path("entity");
+        return root.path("event").asText() + entity.path("id").asText() + entity.path("order_id").asText();
+    }
+
+    @Benchmark
+    public RazorpayWebhookEvent currentRazorpay() {
+        if (!razorpayVerifier.verifyWebhook(ProviderAccountRegistry.DEFAULT_ACCOUNT, razorpayBody, razorpaySignature)) {
+            throw new IllegalStateException("signature");
+        }
+        return parser.parseRazorpay(razorpayBody);
+    }
+
+    // Copy of the hmacSha256Hex that used to live in RazorpayWebhookController
+    private static String legacyHmacSha256Hex(String data, String secret) throws Exception {
+        Mac sha256Hmac = Mac.getInstance("HmacSHA256");
+        sha256Hmac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(sha256Hmac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,30 @@
+package com.razorpay;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for {@code razorpayClient.orders}. The SDK hard-codes https://api.razorpay.com,
+ * so it cannot be pointed at a local HTTP server; this lives in the SDK package to reach its constructor.
+ */
+public class LocalRazorpayOrders extends OrderClient {
+
+    private final AtomicLong orders = new AtomicLong();
+
+    public LocalRazorpayOrders() {
+        super("local");
+    }
+
+    @Override
+    public Order create(JSONObject request) {
+        JSONObject order = new JSONObject();
+        order.put("id", "order_bench_" + orders.incrementAndGet());
+        order.put("entity", "order");
+        order.put("amount", request.get("amount"));
+        order.put("currency", request.get("currency"));
+        order.put("receipt", request.get("receipt"));
+        order.put("status", "created");
+        return new Order(order);
+    }
+}
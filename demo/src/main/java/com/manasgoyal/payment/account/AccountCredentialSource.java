@@ -0,0 +1,17 @@
+package com.manasgoyal.payment.account;
+
+import java.util.Optional;
+
+/**
+ * Where account credentials come from. Only called when {@link ProviderAccountRegistry} loads or
+ * refreshes an account, so it may be slow (secret store, database). Defining a bean of this type
+ * replaces the default {@link PropertyAccountCredentialSource}.
+ */
+@FunctionalInterface
+public interface AccountCredentialSource {
+
+    /**
+     * Current credentials of the account, or empty if there is no such account.
+     */
+    Optional<AccountCredentials> find(String accountId);
+}
@@ -0,0 +1,25 @@
+package com.manasgoyal.payment.account;
+
+/**
+ * Provider credentials of one merchant account; a provider the account does not use is null.
+ * Previous secrets are comma separated and still accepted while a rotation rolls out.
+ */
+public record AccountCredentials(String accountId, Stripe stripe, Razorpay razorpay) {
+
+    public record Stripe(String secretKey, String webhookSecret, String previousWebhookSecrets) {
+
+        @Override
+        public String toString() {
+            return "Stripe[secrets hidden]";
+        }
+    }
+
+    public record Razorpay(String keyId, String keySecret, String previousKeySecrets,
+                           String webhookSecret, String previousWebhookSecrets) {
+
+        @Override
+        public String toString() {
+            return "Razorpay[keyId=" + keyId + ", secrets hidden]";
+        }
+    }
+}
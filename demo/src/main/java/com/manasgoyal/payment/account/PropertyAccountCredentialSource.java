@@ -0,0 +1,63 @@
+package com.manasgoyal.payment.account;
+
+import org.springframework.core.env.Environment;
+
+import java.util.Optional;
+
+/**
+ * Accounts from configuration: {@code payment.accounts.<id>.stripe.*} / {@code payment.accounts.<id>.razorpay.*},
+ * with the single-account {@code stripe.*} / {@code razorpay.*} properties as the {@code default} account.
+ * Properties are read on every load, so a refresh picks up changed property sources.
+ */
+public class PropertyAccountCredentialSource implements AccountCredentialSource {
+
+    private final Environment environment;
+
+    public PropertyAccountCredentialSource(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Optional<AccountCredentials> find(String accountId) {
+        AccountCredentials.Stripe stripe;
+        AccountCredentials.Razorpay razorpay;
+
+        if (ProviderAccountRegistry.DEFAULT_ACCOUNT.equals(accountId)) {
+            stripe = stripe("stripe.secretKey", "stripe.webhookSecret", "stripe.previousWebhookSecrets");
+            razorpay = razorpay("razorpay.keyId", "razorpay.keySecret", "razorpay.previousKeySecrets",
+                    "razorpay.webhookSecret", "razorpay.previousWebhookSecrets");
+        } else {
+            String prefix = "payment.accounts." + accountId + ".";
+            stripe = stripe(prefix + "stripe.secret-key", prefix + "stripe.webhook-secret",
+                    prefix + "stripe.previous-webhook-secrets");
+            razorpay = razorpay(prefix + "razorpay.key-id", prefix + "razorpay.key-secret",
+                    prefix + "razorpay.previous-key-secrets", prefix + "razorpay.webhook-secret",
+                    prefix + "razorpay.previous-webhook-secrets");
+        }
+
+        if (stripe == null && razorpay == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new AccountCredentials(accountId, stripe, razorpay));
+    }
+
+    private AccountCredentials.Stripe stripe(String secretKey, String webhookSecret, String previousWebhookSecrets) {
+        String key = environment.getProperty(secretKey);
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        return new AccountCredentials.Stripe(key, environment.getRequiredProperty(webhookSecret),
+                environment.getProperty(previousWebhookSecrets, ""));
+    }
+
+    private AccountCredentials.Razorpay razorpay(String keyId, String keySecret, String previousKeySecrets,
+                                                 String webhookSecret, String previousWebhookSecrets) {
+        String id = environment.getProperty(keyId);
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+        return new AccountCredentials.Razorpay(id, environment.getRequiredProperty(keySecret),
+                environment.getProperty(previousKeySecrets, ""), environment.getRequiredProperty(webhookSecret),
+                environment.getProperty(previousWebhookSecrets, ""));
+    }
+}
@@ -0,0 +1,82 @@
+package com.manasgoyal.payment.account;
+
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import com.stripe.net.RequestOptions;
+
+/**
+ * Ready-to-use clients and signature verifiers of one account, built once per load of its
+ * credentials and shared by all calls. Accessors for a provider the account does not use throw
+ * {@link UnknownAccountException}.
+ */
+public final class ProviderAccount {
+
+    private final AccountCredentials credentials;
+
+    // Stripe: one StripeClient for all accounts, the API key travels with each request
+    private final RequestOptions stripeOptions;
+    private final HmacSha256Verifier stripeWebhookVerifier;
+
+    private final RazorpayClient razorpayClient;
+    private final HmacSha256Verifier razorpayWebhookVerifier;
+    private final HmacSha256Verifier razorpayPaymentVerifier;
+
+    ProviderAccount(AccountCredentials credentials) throws RazorpayException {
+        this.credentials = credentials;
+
+        AccountCredentials.Stripe stripe = credentials.stripe();
+        this.stripeOptions = stripe == null ? null : RequestOptions.builder().setApiKey(stripe.secretKey()).build();
+        this.stripeWebhookVerifier = stripe == null ? null
+                : HmacSha256Verifier.of(stripe.webhookSecret(), stripe.previousWebhookSecrets());
+
+        AccountCredentials.Razorpay razorpay = credentials.razorpay();
+        this.razorpayClient = razorpay == null ? null : new RazorpayClient(razorpay.keyId(), razorpay.keySecret());
+        this.razorpayWebhookVerifier = razorpay == null ? null
+                : HmacSha256Verifier.of(razorpay.webhookSecret(), razorpay.previousWebhookSecrets());
+        this.razorpayPaymentVerifier = razorpay == null ? null
+                : HmacSha256Verifier.of(razorpay.keySecret(), razorpay.previousKeySecrets());
+    }
+
+    public String id() {
+        return credentials.accountId();
+    }
+
+    AccountCredentials credentials() {
+        return credentials;
+    }
+
+    public RequestOptions stripeOptions() {
+        return require(stripeOptions, "Stripe");
+    }
+
+    public HmacSha256Verifier stripeWebhookVerifier() {
+        return require(stripeWebhookVerifier, "Stripe");
+    }
+
+    public RazorpayClient razorpayClient() {
+        return require(razorpayClient, "Razorpay");
+    }
+
+    /**
+     * Public key id handed to Razorpay Checkout in the browser.
+     */
+    public String razorpayKeyId() {
+        return require(credentials.razorpay(), "Razorpay").keyId();
+    }
+
+    public HmacSha256Verifier razorpayWebhookVerifier() {
+        return require(razorpayWebhookVerifier, "Razorpay");
+    }
+
+    public HmacSha256Verifier razorpayPaymentVerifier() {
+        return require(razorpayPaymentVerifier, "Razorpay");
+    }
+
+    private <T> T require(T value, String provider) {
+        if (value == null) {
+            throw new UnknownAccountException("Account " + id() + " has no " + provider + " credentials");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,81 @@
+package com.manasgoyal.payment.account;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves a merchant account id to its {@link ProviderAccount}. Accounts are loaded from the
+ * {@link AccountCredentialSource} on first use, evicted when idle or over {@code max-size}, and
+ * re-read in the background after {@code refresh-after-write}: callers keep the current clients
+ * meanwhile, and unchanged credentials keep them for good. Unknown ids are cached as well, so a
+ * flood of bogus webhook URLs does not reach the credential source.
+ */
+@Slf4j
+@Component
+public class ProviderAccountRegistry {
+
+    /** Account of payments created without an account id; configured by {@code stripe.*} / {@code razorpay.*} */
+    public static final String DEFAULT_ACCOUNT = "default";
+
+    // ids end up in property names, URLs and log lines
+    private static final Pattern ACCOUNT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final LoadingCache<String, Optional<ProviderAccount>> accounts;
+
+    public ProviderAccountRegistry(
+            AccountCredentialSource credentialSource,
+            @Value("${payment.accounts.cache.max-size:1000}") long maxSize,
+            @Value("${payment.accounts.cache.expire-after-access:PT1H}") Duration expireAfterAccess,
+            @Value("${payment.accounts.cache.refresh-after-write:PT5M}") Duration refreshAfterWrite
+    ) {
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireAfterAccess)
+                .refreshAfterWrite(refreshAfterWrite)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<ProviderAccount> load(String accountId) throws Exception {
+                        Optional<AccountCredentials> credentials = credentialSource.find(accountId);
+                        return credentials.isPresent() ? Optional.of(new ProviderAccount(credentials.get())) : Optional.empty();
+                    }
+
+                    @Override
+                    public Optional<ProviderAccount> reload(String accountId, Optional<ProviderAccount> old) throws Exception {
+                        Optional<AccountCredentials> credentials = credentialSource.find(accountId);
+                        if (credentials.equals(old.map(ProviderAccount::credentials))) {
+                            return old;
+                        }
+                        log.info("Credentials of account {} changed", accountId);
+                        return credentials.isPresent() ? Optional.of(new ProviderAccount(credentials.get())) : Optional.empty();
+                    }
+                });
+    }
+
+    /**
+     * The account's clients; {@code null} means {@link #DEFAULT_ACCOUNT}.
+     *
+     * @throws UnknownAccountException if the source has no such account
+     */
+    public ProviderAccount get(String accountId) {
+        String id = accountId == null ? DEFAULT_ACCOUNT : accountId;
+        if (!ACCOUNT_ID.matcher(id).matches()) {
+            throw new UnknownAccountException("Invalid account id");
+        }
+        return accounts.get(id).orElseThrow(() -> new UnknownAccountException("Unknown account " + id));
+    }
+
+    /**
+     * Drops the cached clients, e.g. right after rotating a key; the next call loads fresh ones.
+     */
+    public void invalidate(String accountId) {
+        accounts.invalidate(accountId);
+    }
+}
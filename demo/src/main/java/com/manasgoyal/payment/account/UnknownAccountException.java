@@ -0,0 +1,15 @@
+package com.manasgoyal.payment.account;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * No such account, or the account has no credentials for the provider.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UnknownAccountException extends RuntimeException {
+
+    public UnknownAccountException(String message) {
+        super(message);
+    }
+}
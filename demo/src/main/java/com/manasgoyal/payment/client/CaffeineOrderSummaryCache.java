@@ -0,0 +1,89 @@
+package com.manasgoyal.payment.client;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manasgoyal.payment.dto.OrderSummary;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process order cache with TTL and size-based eviction. Values are futures,
+ * so a second request for an order that is already loading waits for that load instead
+ * of issuing its own call. The load itself runs on the caller's thread.
+ */
+public class CaffeineOrderSummaryCache implements OrderSummaryCache {
+
+    private final AsyncCache<UUID, OrderSummary> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+
+    public CaffeineOrderSummaryCache(Duration ttl, long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .buildAsync();
+    }
+
+    @Override
+    public OrderSummary get(UUID orderId, Function<UUID, OrderSummary> loader) {
+
+        ConcurrentMap<UUID, CompletableFuture<OrderSummary>> map = cache.asMap();
+        CompletableFuture<OrderSummary> loading = new CompletableFuture<>();
+        CompletableFuture<OrderSummary> existing = map.putIfAbsent(orderId, loading);
+
+        if (existing != null) {
+            hits.increment();
+            return join(existing);
+        }
+
+        misses.increment();
+        long start = System.nanoTime();
+        try {
+            OrderSummary order = loader.apply(orderId);
+            loading.complete(order);
+            return order;
+        } catch (Throwable e) {
+            // Errors too: waiters on this future would otherwise block until the entry expires
+            loadFailures.increment();
+            map.remove(orderId, loading); // don't cache failures
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            totalLoadTimeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void invalidate(UUID orderId) {
+        cache.synchronous().invalidate(orderId);
+    }
+
+    @Override
+    public OrderCacheStats stats() {
+        return new OrderCacheStats(
+                hits.sum(),
+                misses.sum(),
+                loadFailures.sum(),
+                totalLoadTimeNanos.sum(),
+                cache.synchronous().estimatedSize()
+        );
+    }
+
+    private static OrderSummary join(CompletableFuture<OrderSummary> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.manasgoyal.payment.client;
+
+public record OrderCacheStats(
+        long hits,
+        long misses,
+        long loadFailures,
+        long totalLoadTimeNanos,
+        long size
+) {}
@@ -1,5 +1,6 @@
 package com.manasgoyal.payment.client;
 
+import com.manasgoyal.payment.dto.OrderPaymentStatusUpdate;
 import com.manasgoyal.payment.dto.OrderSummary;
 import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
 import org.springframework.cloud.openfeign.FeignClient;
@@ -8,8 +9,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
 import java.util.UUID;
-@FeignClient(name = "order-service", url = "${order.service.url}")
+@FeignClient(name = "order-service", configuration = OrderClientConfig.class)
 public interface OrderClient {
 
     @GetMapping("/api/orders/{id}")
@@ -20,5 +22,9 @@ public interface OrderClient {
             @PathVariable UUID id,
             @RequestBody PaymentStatusUpdateRequest request
     );
+
+    // Batch variant, only called when order.service.batch-enabled=true
+    @PutMapping("/api/orders/payment-status")
+    void updatePaymentStatuses(@RequestBody List<OrderPaymentStatusUpdate> updates);
 }
 
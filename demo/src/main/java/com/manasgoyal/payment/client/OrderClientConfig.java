@@ -0,0 +1,38 @@
+package com.manasgoyal.payment.client;
+
+import feign.Request;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.openfeign.support.FeignHttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.HttpMessageConverter;
+
+import java.time.Duration;
+
+/**
+ * Feign settings for {@link OrderClient} only (deliberately not a @Configuration).
+ */
+public class OrderClientConfig {
+
+    @Bean
+    public Request.Options orderClientOptions(Environment environment) {
+        return new Request.Options(
+                environment.getProperty("order.service.connect-timeout", Duration.class, Duration.ofSeconds(2)),
+                environment.getProperty("order.service.read-timeout", Duration.class, Duration.ofSeconds(5)),
+                true
+        );
+    }
+
+    // Feign's own converters fill their list on first use after publishing it empty, so a burst of
+    // first calls fails with "'messageConverters' must not be empty"; fill it while the bean is created
+    @Bean
+    public FeignHttpMessageConverters feignHttpMessageConverters(
+            ObjectProvider<HttpMessageConverter<?>> messageConverters,
+            ObjectProvider<HttpMessageConverterCustomizer> customizers
+    ) {
+        FeignHttpMessageConverters converters = new FeignHttpMessageConverters(messageConverters, customizers);
+        converters.getConverters();
+        return converters;
+    }
+}
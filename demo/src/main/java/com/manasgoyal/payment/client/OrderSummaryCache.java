@@ -0,0 +1,23 @@
+package com.manasgoyal.payment.client;
+
+import com.manasgoyal.payment.dto.OrderSummary;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cache in front of {@link OrderClient#getOrder}. The default is in-process
+ * ({@link CaffeineOrderSummaryCache}); declare another bean of this type to back it
+ * with a shared cache when running several nodes.
+ */
+public interface OrderSummaryCache {
+
+    /**
+     * Returns the cached summary or loads it. Concurrent callers for the same order share one load.
+     */
+    OrderSummary get(UUID orderId, Function<UUID, OrderSummary> loader);
+
+    void invalidate(UUID orderId);
+
+    OrderCacheStats stats();
+}
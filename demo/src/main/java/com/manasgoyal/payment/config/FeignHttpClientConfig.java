@@ -0,0 +1,15 @@
+package com.manasgoyal.payment.config;
+
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FeignHttpClientConfig {
+
+    // HttpClient 5 silently retries 429/503; failures must reach the outbox backoff and the circuit breaker
+    @Bean
+    public HttpClientBuilderCustomizer disableFeignRetries() {
+        return builder -> builder.disableAutomaticRetries();
+    }
+}
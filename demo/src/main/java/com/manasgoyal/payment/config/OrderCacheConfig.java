@@ -0,0 +1,57 @@
+package com.manasgoyal.payment.config;
+
+import com.manasgoyal.payment.client.CaffeineOrderSummaryCache;
+import com.manasgoyal.payment.client.OrderSummaryCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class OrderCacheConfig {
+
+    private static final String CACHE_NAME = "order.summary";
+
+    @Bean
+    @ConditionalOnMissingBean(OrderSummaryCache.class)
+    public OrderSummaryCache orderSummaryCache(
+            @Value("${order.cache.ttl:PT1M}") Duration ttl,
+            @Value("${order.cache.max-size:10000}") long maxSize
+    ) {
+        return new CaffeineOrderSummaryCache(ttl, maxSize);
+    }
+
+    /**
+     * Publishes {@link OrderSummaryCache#stats()} under Micrometer's cache meter names, tagged
+     * {@code cache=order.summary}. The cache keeps its own counts (loads go through {@code asMap()},
+     * which Caffeine's recordStats does not see), so CaffeineCacheMetrics would report zeros.
+     */
+    @Bean
+    public MeterBinder orderSummaryCacheMetrics(OrderSummaryCache cache) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", cache, c -> c.stats().hits())
+                    .tag("cache", CACHE_NAME).tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", cache, c -> c.stats().misses())
+                    .tag("cache", CACHE_NAME).tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("cache.load", cache, c -> c.stats().loadFailures())
+                    .tag("cache", CACHE_NAME).tag("result", "failure")
+                    .register(registry);
+            FunctionTimer.builder("cache.load.duration", cache,
+                            c -> c.stats().misses(), c -> c.stats().totalLoadTimeNanos(), TimeUnit.NANOSECONDS)
+                    .tag("cache", CACHE_NAME)
+                    .register(registry);
+            Gauge.builder("cache.size", cache, c -> c.stats().size())
+                    .tag("cache", CACHE_NAME)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.manasgoyal.payment.config;
+
+import com.manasgoyal.payment.account.AccountCredentialSource;
+import com.manasgoyal.payment.account.PropertyAccountCredentialSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class ProviderAccountConfig {
+
+    // Accounts from application properties unless another credential source is defined
+    @Bean
+    @ConditionalOnMissingBean(AccountCredentialSource.class)
+    public AccountCredentialSource accountCredentialSource(Environment environment) {
+        return new PropertyAccountCredentialSource(environment);
+    }
+}
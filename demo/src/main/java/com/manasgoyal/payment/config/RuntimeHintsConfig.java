@@ -0,0 +1,88 @@
+package com.manasgoyal.payment.config;
+
+import com.manasgoyal.payment.dto.OrderPaymentStatusUpdate;
+import com.manasgoyal.payment.dto.OrderSummary;
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.razorpay.Order;
+import com.razorpay.Payment;
+import com.stripe.model.StripeError;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.ReflectionHints;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hints for the AOT / native build ({@code -Pnative}). Spring already covers the beans, the JPA
+ * entities (with their converters) and the controllers' request and response types; this adds
+ * the order-service payloads Feign binds, the Stripe models Gson reads and writes field by field,
+ * and the Razorpay entities the SDK instantiates by name.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.ProviderSdkHints.class)
+@RegisterReflectionForBinding({OrderSummary.class, PaymentStatusUpdateRequest.class, OrderPaymentStatusUpdate.class})
+public class RuntimeHintsConfig {
+
+    static class ProviderSdkHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            Set<Class<?>> seen = new HashSet<>();
+            registerStripeModel(hints.reflection(), Session.class, seen);
+            registerStripeModel(hints.reflection(), SessionCreateParams.class, seen);
+            registerStripeModel(hints.reflection(), StripeError.class, seen);
+
+            // ApiClient maps the response's "entity" to com.razorpay.<Name>(JSONObject)
+            hints.reflection().registerType(Order.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(Payment.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.resources().registerPattern("project.properties"); // SDK version for the User-Agent
+        }
+
+        /**
+         * The type, its superclasses, nested classes and every Stripe type reachable from their fields.
+         */
+        private static void registerStripeModel(ReflectionHints reflection, Type type, Set<Class<?>> seen) {
+            if (type instanceof ParameterizedType parameterized) {
+                registerStripeModel(reflection, parameterized.getRawType(), seen);
+                for (Type argument : parameterized.getActualTypeArguments()) {
+                    registerStripeModel(reflection, argument, seen);
+                }
+            } else if (type instanceof WildcardType wildcard) {
+                for (Type bound : wildcard.getUpperBounds()) {
+                    registerStripeModel(reflection, bound, seen);
+                }
+            } else if (type instanceof GenericArrayType array) {
+                registerStripeModel(reflection, array.getGenericComponentType(), seen);
+            } else if (type instanceof Class<?> c) {
+                if (c.isArray()) {
+                    registerStripeModel(reflection, c.getComponentType(), seen);
+                    return;
+                }
+                if (!c.getName().startsWith("com.stripe.") || !seen.add(c)) {
+                    return;
+                }
+                reflection.registerType(c, MemberCategory.ACCESS_DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+                for (Field field : c.getDeclaredFields()) {
+                    registerStripeModel(reflection, field.getGenericType(), seen);
+                }
+                for (Class<?> nested : c.getDeclaredClasses()) {
+                    registerStripeModel(reflection, nested, seen);
+                }
+                registerStripeModel(reflection, c.getGenericSuperclass(), seen);
+            }
+        }
+    }
+}
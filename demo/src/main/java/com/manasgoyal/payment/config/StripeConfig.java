@@ -1,18 +1,41 @@
 package com.manasgoyal.payment.config;
 
-import com.stripe.Stripe;
-import jakarta.annotation.PostConstruct;
+import com.stripe.StripeClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class StripeConfig {
 
     @Value("${stripe.secretKey}")
     private String stripeSecretKey;
 
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeSecretKey;
+    @Value("${stripe.apiBase:https://api.stripe.com}")
+    private String apiBase;
+
+    @Value("${stripe.connectTimeout:PT3S}")
+    private Duration connectTimeout;
+
+    @Value("${stripe.readTimeout:PT10S}")
+    private Duration readTimeout;
+
+    // Retries are left to the caller; the gateway's circuit breaker needs to see every failure
+    @Value("${stripe.maxNetworkRetries:0}")
+    private int maxNetworkRetries;
+
+    // Shared by all accounts: requests carry their account's API key (see ProviderAccount),
+    // the default account's key only applies to calls made without one
+    @Bean
+    public StripeClient stripeClient() {
+        return StripeClient.builder()
+                .setApiKey(stripeSecretKey)
+                .setApiBase(apiBase)
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setReadTimeout((int) readTimeout.toMillis())
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .build();
     }
 }
@@ -0,0 +1,52 @@
+package com.manasgoyal.payment.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads for the service's own executors. With {@code spring.threads.virtual.enabled=true} on a
+ * Java 21+ runtime they are virtual, as Boot then also makes Tomcat's request threads and the
+ * scheduler's; on older runtimes Boot ignores the property and so do we, with a warning.
+ */
+@Slf4j
+@Component
+public class ThreadFactories {
+
+    private final boolean virtual;
+
+    public ThreadFactories(@Value("${spring.threads.virtual.enabled:false}") boolean virtualEnabled) {
+        boolean supported = false;
+        if (virtualEnabled) {
+            try {
+                new VirtualThreadTaskExecutor("probe-");
+                supported = true;
+            } catch (UnsupportedOperationException e) {
+                log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; using platform threads",
+                        Runtime.version().feature());
+            }
+        }
+        this.virtual = supported;
+    }
+
+    public boolean virtual() {
+        return virtual;
+    }
+
+    public ThreadFactory create(String prefix) {
+        return create(prefix, virtual);
+    }
+
+    /**
+     * {@code virtual} is only honoured when the runtime supports it.
+     */
+    public ThreadFactory create(String prefix, boolean virtual) {
+        return virtual && this.virtual
+                ? new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory()
+                : new CustomizableThreadFactory(prefix);
+    }
+}
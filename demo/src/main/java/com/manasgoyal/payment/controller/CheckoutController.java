@@ -0,0 +1,41 @@
+package com.manasgoyal.payment.controller;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.dto.CheckoutRequest;
+import com.manasgoyal.payment.dto.CheckoutResponse;
+import com.manasgoyal.payment.dto.VerifyPaymentRequest;
+import com.manasgoyal.payment.provider.PaymentProviders;
+import com.manasgoyal.payment.service.CheckoutService;
+import com.manasgoyal.payment.service.IdempotencyService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/payments")
+@RequiredArgsConstructor
+public class CheckoutController {
+
+    private final CheckoutService checkoutService;
+    private final PaymentProviders paymentProviders;
+    private final IdempotencyService idempotencyService;
+
+    @PostMapping("/checkout")
+    public CheckoutResponse checkout(
+            @RequestBody @Valid CheckoutRequest req,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Account-Id", defaultValue = ProviderAccountRegistry.DEFAULT_ACCOUNT) String accountId
+    ) throws Exception {
+        String fingerprint = req.orderId() + (req.provider() != null ? ":" + req.provider() : "");
+        return idempotencyService.execute(
+                "checkout", accountId, idempotencyKey, fingerprint, CheckoutResponse.class,
+                () -> checkoutService.checkout(accountId, req.orderId(), req.provider())
+        );
+    }
+
+    @PostMapping("/verify")
+    public String verify(@RequestBody @Valid VerifyPaymentRequest req) {
+        paymentProviders.get(req.provider()).verifyPayment(req);
+        return "✅ Verified & marked as PAID";
+    }
+}
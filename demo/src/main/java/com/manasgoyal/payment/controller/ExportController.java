@@ -0,0 +1,81 @@
+package com.manasgoyal.payment.controller;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.export.ExportDataset;
+import com.manasgoyal.payment.export.ExportFormat;
+import com.manasgoyal.payment.export.ExportQuery;
+import com.manasgoyal.payment.export.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/admin/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exportService;
+
+    /**
+     * Payments in id order as NDJSON or CSV, filtered on provider, status and createdAt in [from, to).
+     * Resume an interrupted export with {@code afterId} = the last id received.
+     */
+    @GetMapping("/payments")
+    public void payments(
+            @RequestParam(required = false) PaymentProvider provider,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "0") long limit,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response
+    ) throws IOException {
+        export(ExportDataset.PAYMENTS, new ExportQuery(provider, status, from, to, afterId, limit),
+                format, acceptEncoding, response);
+    }
+
+    /**
+     * Webhook events (without payloads) in id order, filtered on provider, inbox status and receivedAt.
+     */
+    @GetMapping("/webhook-events")
+    public void webhookEvents(
+            @RequestParam(required = false) PaymentProvider provider,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "0") long limit,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response
+    ) throws IOException {
+        export(ExportDataset.WEBHOOK_EVENTS, new ExportQuery(provider, status, from, to, afterId, limit),
+                format, acceptEncoding, response);
+    }
+
+    // Written on the request thread straight to the response: no async timeout cuts a long export short
+    private void export(ExportDataset dataset, ExportQuery query, String format, String acceptEncoding,
+                        HttpServletResponse response) throws IOException {
+
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        try (ExportService.Export export = exportService.start(dataset, query, exportFormat)) {
+            response.setContentType(exportFormat.contentType() + ";charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + dataset.fileName() + "." + exportFormat.extension() + "\"");
+            OutputStream out = response.getOutputStream();
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                out = new GZIPOutputStream(out, 64 * 1024);
+            }
+            export.writeTo(out);
+        }
+    }
+}
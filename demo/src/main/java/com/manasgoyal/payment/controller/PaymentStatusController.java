@@ -0,0 +1,52 @@
+package com.manasgoyal.payment.controller;
+
+import com.manasgoyal.payment.dto.PaymentStatusView;
+import com.manasgoyal.payment.service.PaymentStatusService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/payments")
+@RequiredArgsConstructor
+public class PaymentStatusController {
+
+    private final PaymentStatusService paymentStatusService;
+
+    /**
+     * Payment attempts for an order. Send the ETag back as If-None-Match to get 304 while nothing changed.
+     */
+    @GetMapping("/{orderId}")
+    public ResponseEntity<List<PaymentStatusView>> getStatus(@PathVariable UUID orderId, WebRequest request) {
+
+        List<PaymentStatusView> payments = paymentStatusService.find(orderId);
+        if (payments.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = PaymentStatusService.etag(payments);
+        if (request.checkNotModified(etag)) {
+            return null; // 304 already written
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(payments);
+    }
+
+    /**
+     * Server-sent events: the current status, then each committed change (event name {@code payment-status}).
+     */
+    @GetMapping(value = "/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatus(@PathVariable UUID orderId) {
+        return paymentStatusService.subscribe(orderId);
+    }
+}
@@ -1,8 +1,10 @@
 package com.manasgoyal.payment.controller;
 
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
 import com.manasgoyal.payment.dto.CreateRazorpayOrderRequest;
 import com.manasgoyal.payment.dto.CreateRazorpayOrderResponse;
 import com.manasgoyal.payment.dto.RazorpayVerifyPaymentRequest;
+import com.manasgoyal.payment.service.IdempotencyService;
 import com.manasgoyal.payment.service.RazorpayPaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,11 +16,18 @@ import org.springframework.web.bind.annotation.*;
 public class RazorpayController {
 
     private final RazorpayPaymentService razorpayPaymentService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/order")
-    public CreateRazorpayOrderResponse createOrder(@RequestBody @Valid CreateRazorpayOrderRequest req)
-            throws Exception {
-        return razorpayPaymentService.createRazorpayOrder(req.orderId());
+    public CreateRazorpayOrderResponse createOrder(
+            @RequestBody @Valid CreateRazorpayOrderRequest req,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Account-Id", defaultValue = ProviderAccountRegistry.DEFAULT_ACCOUNT) String accountId
+    ) throws Exception {
+        return idempotencyService.execute(
+                "razorpay-order", accountId, idempotencyKey, req.orderId().toString(), CreateRazorpayOrderResponse.class,
+                () -> razorpayPaymentService.createRazorpayOrder(accountId, req.orderId())
+        );
     }
 
     @PostMapping("/verify")
@@ -0,0 +1,31 @@
+package com.manasgoyal.payment.controller;
+
+import com.manasgoyal.payment.dto.ReconciliationRequest;
+import com.manasgoyal.payment.dto.ReconciliationView;
+import com.manasgoyal.payment.reconciliation.ReconciliationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/reconciliations")
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    /**
+     * Reconciles a settlement export in the background; poll the returned id for the totals.
+     */
+    @PostMapping
+    public ResponseEntity<ReconciliationView> start(@Valid @RequestBody ReconciliationRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationService.start(request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReconciliationView> get(@PathVariable Long id) {
+        return ResponseEntity.of(reconciliationService.find(id));
+    }
+}
@@ -1,9 +1,10 @@
 package com.manasgoyal.payment.controller;
 
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
 import com.manasgoyal.payment.dto.CreateStripeCheckoutRequest;
 import com.manasgoyal.payment.dto.CreateStripeCheckoutResponse;
+import com.manasgoyal.payment.service.IdempotencyService;
 import com.manasgoyal.payment.service.StripePaymentService;
-import com.stripe.exception.StripeException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -14,10 +15,17 @@ import org.springframework.web.bind.annotation.*;
 public class StripeController {
 
     private final StripePaymentService stripePaymentService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/checkout")
-    public CreateStripeCheckoutResponse createCheckout(@RequestBody @Valid CreateStripeCheckoutRequest req)
-            throws StripeException {
-        return stripePaymentService.createCheckoutSession(req.orderId());
+    public CreateStripeCheckoutResponse createCheckout(
+            @RequestBody @Valid CreateStripeCheckoutRequest req,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Account-Id", defaultValue = ProviderAccountRegistry.DEFAULT_ACCOUNT) String accountId
+    ) throws Exception {
+        return idempotencyService.execute(
+                "stripe-checkout", accountId, idempotencyKey, req.orderId().toString(), CreateStripeCheckoutResponse.class,
+                () -> stripePaymentService.createCheckoutSession(accountId, req.orderId())
+        );
     }
 }
@@ -1,45 +0,0 @@
-package com.manasgoyal.payment.controller;
-
-import com.manasgoyal.payment.service.StripePaymentService;
-import com.stripe.exception.SignatureVerificationException;
-import com.stripe.model.Event;
-import com.stripe.net.Webhook;
-import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
-import org.springframework.util.StreamUtils;
-import org.springframework.web.bind.annotation.*;
-
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-
-@RestController
-@RequestMapping("/api/webhooks")
-@RequiredArgsConstructor
-public class StripeWebhookController {
-
-    private final StripePaymentService stripePaymentService;
-
-    @Value("${stripe.webhookSecret}")
-    private String stripeWebhookSecret;
-
-    @PostMapping("/stripe")
-    public ResponseEntity<String> handleStripeWebhook(HttpServletRequest request)
-            throws IOException {
-
-        String payload = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
-        String sigHeader = request.getHeader("Stripe-Signature");
-
-        try {
-            Event event = Webhook.constructEvent(payload, sigHeader, stripeWebhookSecret);
-
-            stripePaymentService.handleStripeEvent(event, payload);
-
-            return ResponseEntity.ok("ok");
-
-        } catch (SignatureVerificationException e) {
-            return ResponseEntity.status(400).body("Invalid signature");
-        }
-    }
-}
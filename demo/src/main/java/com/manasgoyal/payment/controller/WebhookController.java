@@ -0,0 +1,80 @@
+package com.manasgoyal.payment.controller;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.metrics.PaymentMetrics;
+import com.manasgoyal.payment.metrics.PaymentMetrics.SignatureSource;
+import com.manasgoyal.payment.metrics.PaymentMetrics.WebhookOutcome;
+import com.manasgoyal.payment.provider.InvalidWebhookException;
+import com.manasgoyal.payment.provider.PaymentProviderAdapter;
+import com.manasgoyal.payment.provider.PaymentProviders;
+import com.manasgoyal.payment.provider.WebhookEnvelope;
+import com.manasgoyal.payment.service.WebhookInboxService;
+import com.manasgoyal.payment.webhook.WebhookBodyReader;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/webhooks")
+@RequiredArgsConstructor
+public class WebhookController {
+
+    private final PaymentProviders paymentProviders;
+    private final WebhookInboxService webhookInboxService;
+    private final WebhookBodyReader webhookBodyReader;
+    private final PaymentMetrics paymentMetrics;
+
+    @Value("${payment.webhooks.async.enabled:false}")
+    private boolean asyncWebhooks;
+
+    /**
+     * One endpoint per provider and account: {@code /stripe/{accountId}}, {@code /razorpay/{accountId}}, ...;
+     * without an account id it is the default account.
+     */
+    @PostMapping({"/{provider}", "/{provider}/{accountId}"})
+    public ResponseEntity<String> handle(
+            @PathVariable("provider") String providerName,
+            @PathVariable(required = false) String accountId,
+            HttpServletRequest request
+    ) throws IOException {
+        PaymentProviderAdapter provider = paymentProviders.get(providerName);
+        String account = accountId != null ? accountId : ProviderAccountRegistry.DEFAULT_ACCOUNT;
+
+        long received = paymentMetrics.webhookReceived(provider.provider());
+        WebhookOutcome outcome = WebhookOutcome.REJECTED;
+        try {
+            // Read once: the same bytes are verified, parsed and stored
+            byte[] body = webhookBodyReader.read(request);
+
+            WebhookEnvelope envelope;
+            try {
+                envelope = provider.parseWebhook(account, request::getHeader, body);
+            } catch (InvalidWebhookException e) {
+                if (e.isBadSignature()) {
+                    paymentMetrics.signatureFailure(provider.provider(), SignatureSource.WEBHOOK);
+                }
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+
+            outcome = WebhookOutcome.ERROR;
+            boolean recorded;
+            if (asyncWebhooks) {
+                // accept-then-process: inbox workers apply the event
+                recorded = webhookInboxService.accept(provider.provider(), account, envelope.eventId(), envelope.eventType(), body);
+            } else {
+                recorded = provider.handleWebhook(account, envelope, body);
+            }
+            outcome = !recorded ? WebhookOutcome.DUPLICATE
+                    : asyncWebhooks ? WebhookOutcome.QUEUED : WebhookOutcome.PROCESSED;
+
+            return ResponseEntity.ok("ok");
+        } finally {
+            // handlers are transactional: returning here means the event is committed
+            paymentMetrics.webhookFinished(provider.provider(), received, outcome);
+        }
+    }
+}
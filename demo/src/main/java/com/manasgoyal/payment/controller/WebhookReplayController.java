@@ -0,0 +1,41 @@
+package com.manasgoyal.payment.controller;
+
+import com.manasgoyal.payment.dto.WebhookReplayRequest;
+import com.manasgoyal.payment.dto.WebhookReplayView;
+import com.manasgoyal.payment.service.WebhookReplayService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/webhook-replays")
+@RequiredArgsConstructor
+public class WebhookReplayController {
+
+    private final WebhookReplayService webhookReplayService;
+
+    /**
+     * Starts replaying stored events in the background; poll the returned id for progress.
+     */
+    @PostMapping
+    public ResponseEntity<WebhookReplayView> start(@Valid @RequestBody WebhookReplayRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(webhookReplayService.start(request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<WebhookReplayView> get(@PathVariable Long id) {
+        return ResponseEntity.of(webhookReplayService.find(id));
+    }
+
+    @PostMapping("/{id}/pause")
+    public WebhookReplayView pause(@PathVariable Long id) {
+        return webhookReplayService.pause(id);
+    }
+
+    @PostMapping("/{id}/resume")
+    public WebhookReplayView resume(@PathVariable Long id) {
+        return webhookReplayService.resume(id);
+    }
+}
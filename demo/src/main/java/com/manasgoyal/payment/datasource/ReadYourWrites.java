@@ -0,0 +1,102 @@
+package com.manasgoyal.payment.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.service.PaymentStatusChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Orders whose payments this node wrote within {@code payment.datasource.replica.read-your-writes-window}.
+ * Reads of those orders go to the primary, so a client polling right after its checkout or verify
+ * never sees the replica's older state. Orders are marked when the write is flushed, before commit.
+ * Writes made through other nodes are covered per client by {@link ReadYourWritesFilter}.
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private final Duration window;
+    private final Cache<UUID, Boolean> recent;
+
+    public ReadYourWrites(
+            @Value("${payment.datasource.replica.read-your-writes-window:PT10S}") Duration window,
+            @Value("${payment.datasource.replica.read-your-writes-max-orders:100000}") int maxOrders
+    ) {
+        this.window = window;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxOrders)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void written(UUID orderId) {
+        recent.put(orderId, Boolean.TRUE);
+    }
+
+    // Status transitions are conditional UPDATE statements, which entity callbacks do not see
+    @EventListener
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        written(event.payment().orderId());
+    }
+
+    /**
+     * Runs a read of the order's payments, on the primary if this node wrote them recently.
+     * The read must open its own read-only transaction: the connection is chosen by its first statement.
+     */
+    public <T> T read(UUID orderId, Supplier<T> query) {
+        if (PRIMARY.get() != null || recent.getIfPresent(orderId) == null) {
+            return query.get();
+        }
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    static boolean primaryRequired() {
+        return PRIMARY.get() != null;
+    }
+
+    // For a whole request whose client wrote recently; cleared by the caller
+    static void requirePrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void clearPrimary() {
+        PRIMARY.remove();
+    }
+
+    Duration window() {
+        return window;
+    }
+
+    /**
+     * Marks the order of every inserted or updated payment; created by Hibernate through Spring.
+     */
+    public static class PaymentListener {
+
+        private final ReadYourWrites readYourWrites;
+
+        public PaymentListener(ReadYourWrites readYourWrites) {
+            this.readYourWrites = readYourWrites;
+        }
+
+        @PostPersist
+        @PostUpdate
+        public void written(PaymentEntity payment) {
+            readYourWrites.written(payment.getOrderId());
+        }
+    }
+}
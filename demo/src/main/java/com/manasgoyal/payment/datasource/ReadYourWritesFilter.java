@@ -0,0 +1,91 @@
+package com.manasgoyal.payment.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes across nodes. Every payment write request (POST under /api/payments) leaves the time
+ * of the write with the client, as a cookie and an {@code X-Payment-Written-At} header. Payment reads
+ * that bring either back within {@code read-your-writes-window} run on the primary, whichever node
+ * handled the write; {@link ReadYourWrites} alone only knows the writes of its own node.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.datasource.replica.url")
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "payment_written_at";
+    static final String HEADER = "X-Payment-Written-At";
+
+    private final ReadYourWrites readYourWrites;
+
+    ReadYourWritesFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/payments/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        if (!"GET".equals(request.getMethod())) {
+            // set up front: the response may be committed by the time the handler returns
+            String now = Long.toString(System.currentTimeMillis());
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, now)
+                    .path("/api/payments")
+                    .maxAge(readYourWrites.window())
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build().toString());
+            response.setHeader(HEADER, now);
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!wroteRecently(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReadYourWrites.requirePrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clearPrimary();
+        }
+    }
+
+    private boolean wroteRecently(HttpServletRequest request) {
+        String writtenAt = request.getHeader(HEADER);
+        if (writtenAt == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    writtenAt = cookie.getValue();
+                }
+            }
+        }
+        if (writtenAt == null) {
+            return false;
+        }
+        try {
+            // set by another node's clock: a little in the future is still recent
+            long age = System.currentTimeMillis() - Long.parseLong(writtenAt);
+            long window = readYourWrites.window().toMillis();
+            return age > -window && age < window;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
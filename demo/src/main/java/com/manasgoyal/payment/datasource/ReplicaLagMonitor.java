@@ -0,0 +1,63 @@
+package com.manasgoyal.payment.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replication lag of the read replica, measured with {@code payment.datasource.replica.lag-query}
+ * (seconds behind the primary). Reads stay on the primary until the first check succeeds, and
+ * whenever the lag is above {@code max-lag} or the replica does not answer.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    // null while unknown: not checked yet, or the last check failed
+    private volatile Duration lag;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replica);
+        // runs on the shared scheduler thread: a stuck replica must not hold it for long
+        this.replica.setQueryTimeout((int) Math.max(1, maxLag.toSeconds()));
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        Gauge.builder("payment.datasource.replica.lag", this, m -> m.lag == null ? Double.NaN : m.lag.toMillis() / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        Duration previous = lag;
+        try {
+            Double seconds = replica.queryForObject(lagQuery, Double.class);
+            // null: the server is not replaying anything (a primary standing in for the replica)
+            lag = seconds == null ? Duration.ZERO : Duration.ofMillis(Math.round(seconds * 1000));
+        } catch (DataAccessException e) {
+            lag = null;
+            if (previous != null) {
+                log.warn("Replica lag check failed, reading from the primary: {}", e.getMessage());
+            }
+            return;
+        }
+        boolean within = withinTolerance();
+        if (previous == null || within != previous.compareTo(maxLag) <= 0) {
+            log.info("Replica lag {}: {}", lag, within ? "reading from the replica" : "reading from the primary");
+        }
+    }
+
+    public boolean withinTolerance() {
+        Duration current = lag;
+        return current != null && current.compareTo(maxLag) <= 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.manasgoyal.payment.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Connections of read-only transactions: the replica, or the primary while the replica lags
+ * behind or the caller needs its own recent writes ({@link ReadYourWrites}).
+ * Each choice is counted in {@code payment.datasource.reads}{target, reason}.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private enum Target { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter replicaReads;
+    private final Counter readYourWrites;
+    private final Counter replicaLagging;
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                             MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.replicaReads = reads(meterRegistry, "replica", "default");
+        this.readYourWrites = reads(meterRegistry, "primary", "read-your-writes");
+        this.replicaLagging = reads(meterRegistry, "primary", "replica-lag");
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReadYourWrites.primaryRequired()) {
+            readYourWrites.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.withinTolerance()) {
+            replicaLagging.increment();
+            return Target.PRIMARY;
+        }
+        replicaReads.increment();
+        return Target.REPLICA;
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("payment.datasource.reads")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,11 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record CheckoutRequest(
+        @NotNull UUID orderId,
+        PaymentProvider provider    // optional: skips routing
+) {}
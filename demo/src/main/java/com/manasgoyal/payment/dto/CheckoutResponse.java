@@ -0,0 +1,21 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+
+/**
+ * A checkout at whichever provider took it: either a page to redirect to ({@code checkoutUrl}),
+ * or the key and order id the provider's client-side widget is opened with.
+ */
+public record CheckoutResponse(
+        PaymentProvider provider,
+        String checkoutUrl,
+        String keyId,
+        String providerOrderId,
+        Long amount,            // smallest currency unit
+        String currency
+) {
+
+    public static CheckoutResponse redirect(PaymentProvider provider, String checkoutUrl) {
+        return new CheckoutResponse(provider, checkoutUrl, null, null, null, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.util.UUID;
+
+public record OrderPaymentStatusUpdate(
+        UUID orderId,
+        PaymentStatus paymentStatus,
+        String paymentReferenceId
+) {}
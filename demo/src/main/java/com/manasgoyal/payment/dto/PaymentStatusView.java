@@ -0,0 +1,31 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.util.UUID;
+
+/**
+ * Read-side projection of {@link PaymentEntity}: only what a waiting checkout page or
+ * order-service needs to know.
+ */
+public record PaymentStatusView(
+        UUID orderId,
+        PaymentProvider provider,
+        PaymentStatus status,
+        String paymentReferenceId,
+        Long amount,
+        String currency
+) {
+    public static PaymentStatusView of(PaymentEntity payment) {
+        return new PaymentStatusView(
+                payment.getOrderId(),
+                payment.getProvider(),
+                payment.getStatus(),
+                payment.getProviderPaymentId(),
+                payment.getAmount(),
+                payment.getCurrency()
+        );
+    }
+}
@@ -0,0 +1,10 @@
+package com.manasgoyal.payment.dto;
+
+/**
+ * The fields of a Razorpay webhook the payment service acts on.
+ */
+public record RazorpayWebhookEvent(
+        String event,           // payment.captured / payment.failed / ...
+        String paymentId,       // payload.payment.entity.id
+        String orderId          // payload.payment.entity.order_id
+) {}
@@ -0,0 +1,19 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * A settlement export to reconcile against payments created in [from, to) (UTC days).
+ */
+public record ReconciliationRequest(
+        @NotNull PaymentProvider provider,
+        String accountId,           // provider account the export belongs to; null = default account
+        @NotBlank String file,      // relative to payment.reconciliation.import-dir
+        @NotNull LocalDate from,
+        @NotNull LocalDate to,
+        boolean autoCorrect         // apply the provider's status where the state machine allows it
+) {}
@@ -0,0 +1,56 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.ReconciliationRunEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.ReconciliationStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record ReconciliationView(
+        Long id,
+        ReconciliationStatus status,
+        PaymentProvider provider,
+        String accountId,
+        String file,
+        LocalDate from,
+        LocalDate to,
+        boolean autoCorrect,
+        long rowsRead,
+        long rowsSkipped,
+        long matched,
+        long missingLocally,
+        long missingAtProvider,
+        long statusMismatches,
+        long amountMismatches,
+        long corrected,
+        String reportPath,
+        String lastError,
+        Instant createdAt,
+        Instant finishedAt
+) {
+    public static ReconciliationView of(ReconciliationRunEntity run) {
+        return new ReconciliationView(
+                run.getId(),
+                run.getStatus(),
+                run.getProvider(),
+                run.getAccountId(),
+                run.getSource(),
+                run.getFromDate(),
+                run.getToDate(),
+                run.isAutoCorrect(),
+                run.getRowsRead(),
+                run.getRowsSkipped(),
+                run.getMatched(),
+                run.getMissingLocally(),
+                run.getMissingAtProvider(),
+                run.getStatusMismatches(),
+                run.getAmountMismatches(),
+                run.getCorrected(),
+                run.getReportPath(),
+                run.getLastError(),
+                run.getCreatedAt(),
+                run.getFinishedAt()
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package com.manasgoyal.payment.dto;
+
+/**
+ * The fields of a simulated provider event the payment service acts on.
+ */
+public record SimulatedWebhookEvent(
+        String id,              // evt_sim_...
+        String type,            // payment.succeeded / payment.failed
+        String sessionId,       // data.session
+        String paymentId        // data.payment
+) {}
@@ -0,0 +1,11 @@
+package com.manasgoyal.payment.dto;
+
+/**
+ * The fields of a Stripe event the payment service acts on.
+ */
+public record StripeWebhookEvent(
+        String id,              // evt_...
+        String type,            // checkout.session.completed / payment_intent.payment_failed
+        String objectId,        // data.object.id (cs_... or pi_...)
+        String paymentIntentId  // data.object.payment_intent (checkout sessions only)
+) {}
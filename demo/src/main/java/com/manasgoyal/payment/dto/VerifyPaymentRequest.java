@@ -0,0 +1,15 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record VerifyPaymentRequest(
+        @NotNull PaymentProvider provider,
+        @NotNull UUID orderId,
+        @NotBlank String providerOrderId,
+        @NotBlank String providerPaymentId,
+        @NotBlank String signature
+) {}
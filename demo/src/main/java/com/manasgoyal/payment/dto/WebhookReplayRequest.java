@@ -0,0 +1,18 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookReplayMode;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Instant;
+
+/**
+ * Which stored webhook events to replay; null filters match everything.
+ */
+public record WebhookReplayRequest(
+        PaymentProvider provider,
+        String eventType,
+        Instant receivedFrom,   // inclusive
+        Instant receivedTo,     // exclusive
+        @NotNull WebhookReplayMode mode
+) {}
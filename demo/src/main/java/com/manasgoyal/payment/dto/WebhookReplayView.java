@@ -0,0 +1,44 @@
+package com.manasgoyal.payment.dto;
+
+import com.manasgoyal.payment.entity.WebhookReplayEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookReplayMode;
+import com.manasgoyal.payment.entity.enums.WebhookReplayStatus;
+
+import java.time.Instant;
+
+public record WebhookReplayView(
+        Long id,
+        WebhookReplayStatus status,
+        WebhookReplayMode mode,
+        PaymentProvider provider,
+        String eventType,
+        Instant receivedFrom,
+        Instant receivedTo,
+        long checkpointId,
+        long processed,
+        long failed,
+        double eventsPerSecond,   // current run on this node, 0 when not running here
+        String lastError,
+        Instant createdAt,
+        Instant updatedAt
+) {
+    public static WebhookReplayView of(WebhookReplayEntity replay, double eventsPerSecond) {
+        return new WebhookReplayView(
+                replay.getId(),
+                replay.getStatus(),
+                replay.getMode(),
+                replay.getProvider(),
+                replay.getEventType(),
+                replay.getReceivedFrom(),
+                replay.getReceivedTo(),
+                replay.getCheckpointId(),
+                replay.getProcessed(),
+                replay.getFailed(),
+                eventsPerSecond,
+                replay.getLastError(),
+                replay.getCreatedAt(),
+                replay.getUpdatedAt()
+        );
+    }
+}
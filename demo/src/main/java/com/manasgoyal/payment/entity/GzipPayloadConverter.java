@@ -0,0 +1,57 @@
+package com.manasgoyal.payment.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores payloads gzip-compressed. Reads detect the gzip magic bytes, so rows written
+ * before compression (plain JSON) still load unchanged; tiny bodies that would not shrink are kept as is.
+ */
+@Converter
+public class GzipPayloadConverter implements AttributeConverter<byte[], byte[]> {
+
+    private static final int MIN_BYTES = 256;
+
+    @Override
+    public byte[] convertToDatabaseColumn(byte[] raw) {
+        if (raw == null || raw.length < MIN_BYTES) {
+            return raw;
+        }
+        byte[] compressed = compress(raw);
+        return compressed.length < raw.length ? compressed : raw;
+    }
+
+    @Override
+    public byte[] convertToEntityAttribute(byte[] stored) {
+        return isGzip(stored) ? decompress(stored) : stored;
+    }
+
+    public static byte[] compress(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 3 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 4096)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed), 4096)) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isGzip(byte[] bytes) {
+        return bytes != null && bytes.length > 2 && bytes[0] == (byte) 0x1f && bytes[1] == (byte) 0x8b;
+    }
+}
@@ -0,0 +1,62 @@
+package com.manasgoyal.payment.entity;
+
+import com.manasgoyal.payment.entity.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Stored response for a client Idempotency-Key, replayed when the same request is retried.
+ */
+@Entity
+@Table(
+        name = "idempotency_keys",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_idempotency_scope_key", columnNames = {"scope", "idempotencyKey"})
+        },
+        indexes = {
+                @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt")
+        }
+)
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecordEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_keys_seq")
+    @SequenceGenerator(name = "idempotency_keys_seq", sequenceName = "idempotency_keys_seq", allocationSize = 50)
+    private Long id;
+
+    // Endpoint the key belongs to, e.g. stripe-checkout / razorpay-order
+    @Column(nullable = false)
+    private String scope;
+
+    @Column(nullable = false)
+    private String idempotencyKey;
+
+    // Identifies the request body; a key reused with a different body is rejected
+    @Column(nullable = false)
+    private String requestFingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+
+    // JSON response, set once COMPLETED
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = Instant.now();
+    }
+}
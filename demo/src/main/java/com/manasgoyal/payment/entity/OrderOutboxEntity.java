@@ -0,0 +1,74 @@
+package com.manasgoyal.payment.entity;
+
+import com.manasgoyal.payment.entity.enums.OutboxStatus;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Pending payment-status notification for order-service, written in the same
+ * transaction as the payment update and delivered by the outbox dispatcher.
+ */
+@Entity
+@Table(
+        name = "order_outbox",
+        indexes = {
+                @Index(name = "idx_outbox_status_available", columnList = "status, availableAt"),
+                @Index(name = "idx_outbox_order_created", columnList = "orderId, createdAt, id")
+        }
+)
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderOutboxEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentStatus paymentStatus;
+
+    // Stripe payment_intent id / Razorpay payment id
+    private String paymentReferenceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Earliest time the dispatcher may (re)try delivery
+    @Column(nullable = false)
+    private Instant availableAt;
+
+    // Lease held by the dispatcher currently delivering the event
+    private Instant lockedUntil;
+
+    private Instant deliveredAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    // Per-order delivery order. Not the id: pooled id blocks are not in write order across nodes
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = Instant.now();
+        if (this.status == null) this.status = OutboxStatus.PENDING;
+        if (this.attempts == null) this.attempts = 0;
+        if (this.availableAt == null) this.availableAt = this.createdAt;
+    }
+}
@@ -1,5 +1,7 @@
 package com.manasgoyal.payment.entity;
 
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.datasource.ReadYourWrites;
 import com.manasgoyal.payment.entity.enums.PaymentProvider;
 import com.manasgoyal.payment.entity.enums.PaymentStatus;
 import jakarta.persistence.*;
@@ -9,7 +11,23 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "payments")
+@EntityListeners(ReadYourWrites.PaymentListener.class)
+@Table(
+        name = "payments",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_payment_provider_order", columnNames = {"providerOrderId"}),
+                @UniqueConstraint(name = "uk_payment_provider_session", columnNames = {"providerSessionId"}),
+                @UniqueConstraint(name = "uk_payment_provider_payment", columnNames = {"providerPaymentId"}),
+                // one payment attempt per order and provider; also serves orderId lookups
+                @UniqueConstraint(name = "uk_payment_order_provider", columnNames = {"orderId", "provider"})
+        },
+        indexes = {
+                // reconciliation reads one provider account and day at a time
+                @Index(name = "idx_payment_provider_created", columnList = "provider, accountId, createdAt"),
+                // the pending-payment sweeper looks for CREATED / PENDING rows untouched for a while
+                @Index(name = "idx_payment_status_updated", columnList = "status, updatedAt")
+        }
+)
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +35,9 @@ import java.util.UUID;
 public class PaymentEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence: Hibernate reserves 50 ids per round trip, so inserts can be JDBC-batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -27,6 +47,10 @@ public class PaymentEntity {
     @Column(nullable = false)
     private PaymentProvider provider;
 
+    // Merchant account whose provider credentials created the session / order
+    @Column(nullable = false, updatable = false)
+    private String accountId;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentStatus status;
@@ -40,11 +64,39 @@ public class PaymentEntity {
     // Razorpay: order_id
     private String providerOrderId;
 
+    // Amount (smallest currency unit) and currency the provider session/order was created for
+    private Long amount;
+
+    private String currency;
+
+    // Stripe hosted checkout page, reused while the session is still open
+    @Column(length = 2048)
+    private String checkoutUrl;
+
+    private Instant providerSessionExpiresAt;
+
+    // Optimistic locking: a stale read-modify-save fails instead of overwriting a newer status
+    @Version
+    private Long version;
+
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Last entity save (a checkout reuses the row, so createdAt says nothing about the open session)
+    private Instant updatedAt;
+
+    // Pending-payment sweeper: not polled again before this; doubles as the claim lease
+    private Instant nextCheckAt;
+
     @PrePersist
     public void prePersist() {
         this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+        if (this.accountId == null) this.accountId = ProviderAccountRegistry.DEFAULT_ACCOUNT;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = Instant.now();
     }
 }
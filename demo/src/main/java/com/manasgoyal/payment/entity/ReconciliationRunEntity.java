@@ -0,0 +1,80 @@
+package com.manasgoyal.payment.entity;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.ReconciliationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One reconciliation of a provider settlement export against {@code payments}: totals per
+ * discrepancy type; the records themselves are in the CSV report at {@code reportPath}.
+ */
+@Entity
+@Table(name = "reconciliation_runs")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRunEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reconciliation_runs_seq")
+    @SequenceGenerator(name = "reconciliation_runs_seq", sequenceName = "reconciliation_runs_seq", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentProvider provider;
+
+    // The export belongs to this provider account; only its payments are compared
+    @Column(nullable = false)
+    private String accountId;
+
+    // Export file, relative to the import dir
+    @Column(nullable = false)
+    private String source;
+
+    // Payments created in [fromDate, toDate), UTC
+    @Column(nullable = false)
+    private LocalDate fromDate;
+
+    @Column(nullable = false)
+    private LocalDate toDate;
+
+    @Column(nullable = false)
+    private boolean autoCorrect;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReconciliationStatus status;
+
+    // Export rows read / ignored (unreadable or outside the date range)
+    private long rowsRead;
+    private long rowsSkipped;
+
+    private long matched;
+    private long missingLocally;
+    private long missingAtProvider;
+    private long statusMismatches;
+    private long amountMismatches;
+    private long corrected;
+
+    private String reportPath;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    private Instant finishedAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = Instant.now();
+        if (this.status == null) this.status = ReconciliationStatus.RUNNING;
+    }
+}
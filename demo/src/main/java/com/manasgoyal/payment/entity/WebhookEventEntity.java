@@ -1,6 +1,8 @@
 package com.manasgoyal.payment.entity;
 
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
 import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -11,6 +13,10 @@ import java.time.Instant;
         name = "webhook_events",
         uniqueConstraints = {
                 @UniqueConstraint(name = "uk_webhook_provider_event", columnNames = {"provider", "eventId"})
+        },
+        indexes = {
+                @Index(name = "idx_webhook_status_available", columnList = "status, availableAt"),
+                @Index(name = "idx_webhook_received_at", columnList = "receivedAt")
         }
 )
 @Getter @Setter
@@ -20,21 +26,53 @@ import java.time.Instant;
 public class WebhookEventEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_events_seq")
+    @SequenceGenerator(name = "webhook_events_seq", sequenceName = "webhook_events_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentProvider provider;
 
+    // Account whose webhook endpoint (and secret) received the event
+    @Column(nullable = false)
+    private String accountId;
+
     // Stripe provides event id (evt_...)
     // Razorpay also has event id in payload.
     @Column(nullable = false)
     private String eventId;
 
-    @Lob
-    @Column(nullable = false)
-    private String payload;
+    // e.g. checkout.session.completed / payment.captured
+    private String eventType;
+
+    // Raw body exactly as signed by the provider, gzip-compressed at rest.
+    // Null once moved to the payload archive; the row then only serves the dedupe check.
+    @Convert(converter = GzipPayloadConverter.class)
+    @Column(columnDefinition = "bytea")
+    private byte[] payload;
+
+    // Where the archived payload lives (see WebhookPayloadArchive)
+    private String archiveRef;
+    private Instant archivedAt;
+
+    // Inbox state: RECEIVED → PROCESSING → PROCESSED/FAILED
+    @Enumerated(EnumType.STRING)
+    private WebhookEventStatus status;
+
+    private Integer attempts;
+
+    // Earliest time a worker may claim the event (retry backoff)
+    private Instant availableAt;
+
+    // Lease held by the worker currently processing the event
+    private String lockedBy;
+    private Instant lockedUntil;
+
+    private Instant processedAt;
+
+    @Column(length = 1000)
+    private String lastError;
 
     @Column(nullable = false, updatable = false)
     private Instant receivedAt;
@@ -42,5 +80,9 @@ public class WebhookEventEntity {
     @PrePersist
     public void prePersist() {
         this.receivedAt = Instant.now();
+        if (this.accountId == null) this.accountId = ProviderAccountRegistry.DEFAULT_ACCOUNT;
+        if (this.status == null) this.status = WebhookEventStatus.RECEIVED;
+        if (this.attempts == null) this.attempts = 0;
+        if (this.availableAt == null) this.availableAt = this.receivedAt;
     }
 }
@@ -0,0 +1,72 @@
+package com.manasgoyal.payment.entity;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookReplayMode;
+import com.manasgoyal.payment.entity.enums.WebhookReplayStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A replay of stored webhook events and its checkpoint: every event with an id up to
+ * {@code checkpointId} has been handled, so a paused or interrupted replay resumes after it.
+ */
+@Entity
+@Table(name = "webhook_replays")
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookReplayEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_replays_seq")
+    @SequenceGenerator(name = "webhook_replays_seq", sequenceName = "webhook_replays_seq", allocationSize = 1)
+    private Long id;
+
+    // Filters; null means any
+    @Enumerated(EnumType.STRING)
+    private PaymentProvider provider;
+
+    private String eventType;
+
+    private Instant receivedFrom;
+
+    private Instant receivedTo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookReplayMode mode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookReplayStatus status;
+
+    @Column(nullable = false)
+    private Long checkpointId;
+
+    @Column(nullable = false)
+    private Long processed;
+
+    @Column(nullable = false)
+    private Long failed;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+        if (this.status == null) this.status = WebhookReplayStatus.RUNNING;
+        if (this.checkpointId == null) this.checkpointId = 0L;
+        if (this.processed == null) this.processed = 0L;
+        if (this.failed == null) this.failed = 0L;
+    }
+}
@@ -0,0 +1,6 @@
+package com.manasgoyal.payment.entity.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,7 @@
+package com.manasgoyal.payment.entity.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    DELIVERED,
+    FAILED
+}
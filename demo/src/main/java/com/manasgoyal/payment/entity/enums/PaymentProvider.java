@@ -2,5 +2,6 @@ package com.manasgoyal.payment.entity.enums;
 
 public enum PaymentProvider {
     STRIPE,
-    RAZORPAY
-}
\ No newline at end of file
+    RAZORPAY,
+    SIMULATED   // in-process stand-in for tests and load tests (payment.providers.simulated.enabled)
+}
@@ -1,8 +1,41 @@
 package com.manasgoyal.payment.entity.enums;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum PaymentStatus {
     CREATED,
     PENDING,
     PAID,
-    FAILED
+    FAILED;
+
+    // Allowed transitions. PAID is final: a late failure event must not overwrite it.
+    // FAILED → PAID covers a customer retrying inside the same Stripe session / Razorpay order.
+    private static final Map<PaymentStatus, Set<PaymentStatus>> NEXT = new EnumMap<>(PaymentStatus.class);
+    private static final Map<PaymentStatus, Set<PaymentStatus>> PREVIOUS = new EnumMap<>(PaymentStatus.class);
+
+    static {
+        NEXT.put(CREATED, EnumSet.of(PENDING, FAILED));
+        NEXT.put(PENDING, EnumSet.of(PENDING, PAID, FAILED));
+        NEXT.put(FAILED, EnumSet.of(PENDING, PAID));
+        NEXT.put(PAID, EnumSet.noneOf(PaymentStatus.class));
+
+        for (PaymentStatus target : values()) {
+            PREVIOUS.put(target, EnumSet.noneOf(PaymentStatus.class));
+        }
+        NEXT.forEach((source, targets) -> targets.forEach(target -> PREVIOUS.get(target).add(source)));
+    }
+
+    public boolean canTransitionTo(PaymentStatus target) {
+        return NEXT.get(this).contains(target);
+    }
+
+    /**
+     * Statuses that may move to {@code target}, for {@code UPDATE ... WHERE status IN (...)}.
+     */
+    public static Set<PaymentStatus> sourcesOf(PaymentStatus target) {
+        return PREVIOUS.get(target);
+    }
 }
@@ -0,0 +1,8 @@
+package com.manasgoyal.payment.entity.enums;
+
+public enum WebhookEventStatus {
+    RECEIVED,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
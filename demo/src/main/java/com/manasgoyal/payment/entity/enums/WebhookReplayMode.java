@@ -0,0 +1,10 @@
+package com.manasgoyal.payment.entity.enums;
+
+public enum WebhookReplayMode {
+    // events the inbox gave up on (status FAILED)
+    FAILED,
+    // every matching event, including already processed ones
+    ALL,
+    // like ALL, but each event's transaction is rolled back
+    DRY_RUN
+}
@@ -0,0 +1,8 @@
+package com.manasgoyal.payment.entity.enums;
+
+public enum WebhookReplayStatus {
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    FAILED
+}
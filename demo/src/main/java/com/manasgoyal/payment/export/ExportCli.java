@@ -0,0 +1,249 @@
+package com.manasgoyal.payment.export;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Downloads an export to a gzip file, one page ({@code --page-size} rows) per request, and can be
+ * stopped and restarted at any point:
+ * {@code java -cp target/order-service-0.0.1-SNAPSHOT-lib.jar com.manasgoyal.payment.export.ExportCli
+ * --url=http://localhost:8080 --dataset=payments --format=csv --out=payments.csv.gz --from=2025-01-01T00:00:00Z}.
+ * <p>
+ * Every finished page is appended as its own gzip member (the file stays one valid gzip stream),
+ * synced, and checkpointed in {@code <out>.cursor} (last id, file length). A restart cuts the file
+ * back to the checkpoint and asks for the rows after that id; the checkpoint is removed once the
+ * export is complete. Uses the JDK only.
+ */
+public final class ExportCli {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "url", "http://localhost:8080",
+            "dataset", "payments",
+            "format", "ndjson",
+            "page-size", "1000000",
+            "retries", "5"
+    );
+    private static final String[] FILTERS = {"provider", "status", "from", "to"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                usage("Unexpected argument: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        if (!options.containsKey("out")) {
+            usage("--out is required");
+        }
+        System.exit(new ExportCli(options).run());
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("usage: ExportCli --out=<file.gz> [--url=http://localhost:8080] [--dataset=payments|webhook-events]"
+                + " [--format=ndjson|csv] [--provider=] [--status=] [--from=<instant>] [--to=<instant>]"
+                + " [--page-size=1000000] [--retries=5]");
+        System.exit(2);
+    }
+
+    private final Map<String, String> options;
+    private final Path out;
+    private final Path cursorFile;
+    private final boolean csv;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private ExportCli(Map<String, String> options) {
+        this.options = options;
+        this.out = Path.of(options.get("out"));
+        this.cursorFile = Path.of(options.get("out") + ".cursor");
+        this.csv = options.get("format").equalsIgnoreCase("csv");
+    }
+
+    private int run() throws Exception {
+        long afterId = 0;
+        long length = 0;
+        if (Files.exists(cursorFile)) {
+            Properties cursor = new Properties();
+            try (Reader reader = Files.newBufferedReader(cursorFile)) {
+                cursor.load(reader);
+            }
+            afterId = Long.parseLong(cursor.getProperty("afterId"));
+            length = Long.parseLong(cursor.getProperty("length"));
+            System.err.printf("Resuming %s after id %d%n", out, afterId);
+        } else if (Files.exists(out)) {
+            System.err.printf("%s exists and has no %s: remove it or choose another --out%n", out, cursorFile.getFileName());
+            return 1;
+        } else {
+            checkpoint(afterId, length); // a first page cut short is resumed too
+        }
+
+        long pageSize = Long.parseLong(options.get("page-size"));
+        int retries = Integer.parseInt(options.get("retries"));
+        long total = 0;
+        while (true) {
+            long[] page = null; // {rows, last id}
+            for (int attempt = 0; page == null; attempt++) {
+                try {
+                    page = page(afterId, pageSize, length);
+                } catch (IllegalStateException e) {
+                    System.err.println(e.getMessage());
+                    return 1;
+                } catch (IOException e) {
+                    if (attempt >= retries) {
+                        System.err.printf("Giving up after id %d: %s (run again to resume)%n", afterId, e);
+                        return 1;
+                    }
+                    System.err.printf("Page after id %d failed (%s), retrying%n", afterId, e);
+                    Thread.sleep(Math.min(30_000, 1_000L << attempt));
+                }
+            }
+            total += page[0];
+            if (page[0] < pageSize) {
+                Files.deleteIfExists(cursorFile);
+                System.err.printf("Exported %d rows to %s%n", total, out);
+                return 0;
+            }
+            afterId = page[1];
+            length = Files.size(out);
+            checkpoint(afterId, length);
+        }
+    }
+
+    /**
+     * Appends one page as a gzip member to the file cut back to {@code length}.
+     */
+    private long[] page(long afterId, long pageSize, long length) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(pageUrl(afterId, pageSize)))
+                .header("Accept-Encoding", "gzip")
+                .build();
+        HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                String error = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                if (response.statusCode() >= 500) {
+                    throw new IOException("HTTP " + response.statusCode() + ": " + error);
+                }
+                throw new IllegalStateException("HTTP " + response.statusCode() + ": " + error);
+            }
+            boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+            try (FileChannel file = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                file.truncate(length).position(length);
+                long[] page = {0, afterId};
+                BufferedReader rows = new BufferedReader(new InputStreamReader(
+                        gzip ? new GZIPInputStream(body, 64 * 1024) : body, StandardCharsets.UTF_8), 64 * 1024);
+                GZIPOutputStream member = new GZIPOutputStream(Channels.newOutputStream(file), 64 * 1024);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(member, StandardCharsets.UTF_8));
+                boolean header = csv;
+                for (String row; (row = nextRow(rows)) != null; ) {
+                    if (header) {
+                        header = false;
+                        if (length > 0) {
+                            continue; // already at the top of the file
+                        }
+                    } else {
+                        page[0]++;
+                        page[1] = id(row);
+                    }
+                    writer.write(row);
+                    writer.write('\n');
+                }
+                writer.flush();
+                member.finish();
+                file.force(true);
+                return page;
+            }
+        }
+    }
+
+    private String pageUrl(long afterId, long pageSize) {
+        StringBuilder url = new StringBuilder(options.get("url"))
+                .append("/api/admin/exports/").append(options.get("dataset"))
+                .append("?format=").append(options.get("format"))
+                .append("&afterId=").append(afterId)
+                .append("&limit=").append(pageSize);
+        for (String filter : FILTERS) {
+            String value = options.get(filter);
+            if (value != null && !value.isEmpty()) {
+                url.append('&').append(filter).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return url.toString();
+    }
+
+    // A CSV value may hold line breaks inside quotes: a row ends at a newline outside quotes
+    private String nextRow(BufferedReader rows) throws IOException {
+        String line = rows.readLine();
+        if (!csv || line == null) {
+            return line;
+        }
+        StringBuilder row = new StringBuilder(line);
+        while (quotes(row) % 2 != 0) {
+            String next = rows.readLine();
+            if (next == null) {
+                throw new IOException("Export ended inside a quoted value");
+            }
+            row.append('\n').append(next);
+        }
+        return row.toString();
+    }
+
+    private long id(String row) throws IOException {
+        // NDJSON: {"id":123,...   CSV: 123,...
+        int start = csv ? 0 : row.indexOf(':') + 1;
+        int end = start;
+        while (end < row.length() && Character.isDigit(row.charAt(end))) {
+            end++;
+        }
+        if (end == start) {
+            throw new IOException("No id at the start of row: " + row);
+        }
+        return Long.parseLong(row, start, end, 10);
+    }
+
+    private static int quotes(CharSequence row) {
+        int count = 0;
+        for (int i = 0; i < row.length(); i++) {
+            if (row.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void checkpoint(long afterId, long length) throws IOException {
+        Properties cursor = new Properties();
+        cursor.setProperty("afterId", Long.toString(afterId));
+        cursor.setProperty("length", Long.toString(length));
+        Path tmp = Files.createTempFile(cursorFile.toAbsolutePath().getParent(), "export-", ".cursor");
+        try (Writer writer = Files.newBufferedWriter(tmp)) {
+            cursor.store(writer, null);
+        }
+        Files.move(tmp, cursorFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
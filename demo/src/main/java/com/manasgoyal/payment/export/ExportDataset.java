@@ -0,0 +1,24 @@
+package com.manasgoyal.payment.export;
+
+import java.util.List;
+
+public enum ExportDataset {
+    PAYMENTS("payments", PaymentExportRow.COLUMNS),
+    WEBHOOK_EVENTS("webhook-events", WebhookEventExportRow.COLUMNS);
+
+    private final String fileName;
+    private final List<String> columns;
+
+    ExportDataset(String fileName, List<String> columns) {
+        this.fileName = fileName;
+        this.columns = columns;
+    }
+
+    public String fileName() {
+        return fileName;
+    }
+
+    List<String> columns() {
+        return columns;
+    }
+}
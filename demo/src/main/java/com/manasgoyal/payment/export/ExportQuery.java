@@ -0,0 +1,23 @@
+package com.manasgoyal.payment.export;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+
+import java.time.Instant;
+
+/**
+ * Rows to export; null filters match everything.
+ *
+ * @param status  a payment status for payments, an inbox status for webhook events
+ * @param from    inclusive, on createdAt (payments) / receivedAt (webhook events)
+ * @param to      exclusive
+ * @param afterId keyset cursor: only rows with a larger id, so an interrupted export resumes from its last row
+ * @param limit   at most this many rows; 0 for all
+ */
+public record ExportQuery(
+        PaymentProvider provider,
+        String status,
+        Instant from,
+        Instant to,
+        long afterId,
+        long limit
+) {}
@@ -0,0 +1,12 @@
+package com.manasgoyal.payment.export;
+
+/**
+ * One exported row: {@link #values()} line up with the dataset's columns, the first being the id
+ * that orders the export and resumes it ({@code afterId}).
+ */
+public interface ExportRow {
+
+    Long id();
+
+    Object[] values();
+}
@@ -0,0 +1,206 @@
+package com.manasgoyal.payment.export;
+
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Streams payments and webhook events in id order with constant memory: rows are read through a
+ * forward-only cursor (fetch size 1000) and written as they arrive, never collected.
+ * <p>
+ * An export runs as a series of keyset chunks ({@code payment.export.chunk-size} rows), each in its
+ * own short read-only transaction, so it never pins a snapshot or a connection for its whole length
+ * and runs on the read replica when there is one. {@code max-concurrent} exports run at a time, each
+ * at most {@code max-rows-per-second} (0: unthrottled), to leave the pool to checkouts and webhooks.
+ * <p>
+ * Id order is not commit order (ids come from pooled sequence blocks, taken before commit), so a row
+ * committed while an export runs can fall behind its keyset position and be left out. Complete
+ * exports of live tables need a {@code to} bound that lies in the past.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    private final PaymentRepository paymentRepository;
+    private final WebhookEventRepository webhookEventRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<ExportDataset, Counter> exportedRows = new EnumMap<>(ExportDataset.class);
+    private final Semaphore running;
+    private final int chunkSize;
+    private final double maxRowsPerSecond;
+
+    public ExportService(
+            PaymentRepository paymentRepository,
+            WebhookEventRepository webhookEventRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${payment.export.max-concurrent:2}") int maxConcurrent,
+            @Value("${payment.export.chunk-size:10000}") int chunkSize,
+            @Value("${payment.export.max-rows-per-second:0}") double maxRowsPerSecond
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.webhookEventRepository = webhookEventRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.running = new Semaphore(maxConcurrent);
+        this.chunkSize = chunkSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        for (ExportDataset dataset : ExportDataset.values()) {
+            exportedRows.put(dataset, Counter.builder("payment.export.rows")
+                    .tag("dataset", dataset.fileName())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Validates the query and takes an export slot; nothing is written until {@link Export#writeTo}.
+     *
+     * @throws ResponseStatusException 400 for a status the dataset does not have, 503 when all slots are taken
+     */
+    public Export start(ExportDataset dataset, ExportQuery query, ExportFormat format) {
+        Enum<?> status = status(dataset, query.status());
+        if (!running.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports running");
+        }
+        return new Export(dataset, query, format, status);
+    }
+
+    public final class Export implements AutoCloseable {
+
+        private final ExportDataset dataset;
+        private final ExportQuery query;
+        private final ExportFormat format;
+        private final Enum<?> status;
+        private boolean closed;
+
+        private Export(ExportDataset dataset, ExportQuery query, ExportFormat format, Enum<?> status) {
+            this.dataset = dataset;
+            this.query = query;
+            this.format = format;
+            this.status = status;
+        }
+
+        /**
+         * Writes the rows to {@code out} and closes it.
+         *
+         * @return rows written
+         */
+        public long writeTo(OutputStream out) throws IOException {
+            long started = System.nanoTime();
+            long afterId = query.afterId();
+            long written = 0;
+            try (ExportWriter writer = new ExportWriter(out, format, dataset.columns())) {
+                while (true) {
+                    // 1️⃣ Next keyset chunk, in its own read-only transaction
+                    int size = query.limit() > 0 ? (int) Math.min(chunkSize, query.limit() - written) : chunkSize;
+                    if (size == 0) {
+                        break;
+                    }
+                    long[] chunk = chunk(writer, afterId, size); // {rows, last id}
+                    writer.flush();
+                    written += chunk[0];
+                    exportedRows.get(dataset).increment(chunk[0]);
+                    if (chunk[0] < size) {
+                        break;
+                    }
+                    afterId = chunk[1];
+
+                    // 2️⃣ Hold the export to its row budget
+                    pace(written, started);
+                }
+            }
+            log.info("Exported {} {} rows after id {} in {} ms", written, dataset.fileName(), query.afterId(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return written;
+        }
+
+        private long[] chunk(ExportWriter writer, long afterId, int size) throws IOException {
+            try {
+                return readOnlyTransaction.execute(tx -> {
+                    long[] chunk = {0, afterId};
+                    try (Stream<? extends ExportRow> rows = rows(afterId, size)) {
+                        rows.forEach(row -> {
+                            try {
+                                writer.write(row);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            chunk[0]++;
+                            chunk[1] = row.id();
+                        });
+                    }
+                    return chunk;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // client went away: stop reading
+            }
+        }
+
+        private Stream<? extends ExportRow> rows(long afterId, int size) {
+            return switch (dataset) {
+                case PAYMENTS -> paymentRepository.streamExportPage(afterId, query.provider(),
+                        (PaymentStatus) status, query.from(), query.to(), Limit.of(size));
+                case WEBHOOK_EVENTS -> webhookEventRepository.streamExportPage(afterId, query.provider(),
+                        (WebhookEventStatus) status, query.from(), query.to(), Limit.of(size));
+            };
+        }
+
+        private void pace(long written, long started) throws InterruptedIOException {
+            if (maxRowsPerSecond <= 0) {
+                return;
+            }
+            long aheadNanos = (long) (written / maxRowsPerSecond * 1e9) - (System.nanoTime() - started);
+            if (aheadNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(aheadNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Export interrupted");
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                running.release();
+            }
+        }
+    }
+
+    private static Enum<?> status(ExportDataset dataset, String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        try {
+            return switch (dataset) {
+                case PAYMENTS -> PaymentStatus.valueOf(status.trim().toUpperCase());
+                case WEBHOOK_EVENTS -> WebhookEventStatus.valueOf(status.trim().toUpperCase());
+            };
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown " + dataset.fileName() + " status: " + status);
+        }
+    }
+}
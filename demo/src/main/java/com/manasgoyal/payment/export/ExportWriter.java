@@ -0,0 +1,97 @@
+package com.manasgoyal.payment.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes rows as they come: NDJSON (one object per line) or CSV (header row, RFC 4180 quoting).
+ * Numbers stay numbers, everything else is written as its string form (ISO-8601 for timestamps).
+ */
+final class ExportWriter implements Closeable {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final ExportFormat format;
+    private final List<String> columns;
+    private final BufferedWriter writer;
+    private final JsonGenerator json;
+
+    ExportWriter(OutputStream out, ExportFormat format, List<String> columns) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.NDJSON) {
+            this.json = JSON.createGenerator(writer);
+            this.json.setRootValueSeparator(null);
+        } else {
+            this.json = null;
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+    }
+
+    void write(ExportRow row) throws IOException {
+        Object[] values = row.values();
+        if (format == ExportFormat.NDJSON) {
+            json.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                json.writeFieldName(columns.get(i));
+                Object value = values[i];
+                if (value == null) {
+                    json.writeNull();
+                } else if (value instanceof Long number) {
+                    json.writeNumber(number);
+                } else if (value instanceof Integer number) {
+                    json.writeNumber(number);
+                } else {
+                    json.writeString(value.toString());
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writer.write(csv(values[i].toString()));
+                }
+            }
+            writer.write('\n');
+        }
+    }
+
+    void flush() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.close();
+        }
+        writer.close();
+    }
+
+    private static String csv(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,34 @@
+package com.manasgoyal.payment.export;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public record PaymentExportRow(
+        Long id,
+        UUID orderId,
+        PaymentProvider provider,
+        String accountId,
+        PaymentStatus status,
+        String providerPaymentId,
+        String providerSessionId,
+        String providerOrderId,
+        Long amount,
+        String currency,
+        Instant createdAt,
+        Instant updatedAt
+) implements ExportRow {
+
+    static final List<String> COLUMNS = List.of(
+            "id", "orderId", "provider", "accountId", "status", "providerPaymentId", "providerSessionId",
+            "providerOrderId", "amount", "currency", "createdAt", "updatedAt");
+
+    @Override
+    public Object[] values() {
+        return new Object[]{id, orderId, provider, accountId, status, providerPaymentId, providerSessionId,
+                providerOrderId, amount, currency, createdAt, updatedAt};
+    }
+}
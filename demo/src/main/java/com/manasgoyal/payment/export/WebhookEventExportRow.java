@@ -0,0 +1,33 @@
+package com.manasgoyal.payment.export;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+// Event metadata only: payloads are compressed at rest and archived after a while (see WebhookPayloadArchive)
+public record WebhookEventExportRow(
+        Long id,
+        PaymentProvider provider,
+        String accountId,
+        String eventId,
+        String eventType,
+        WebhookEventStatus status,
+        Integer attempts,
+        Instant receivedAt,
+        Instant processedAt,
+        String lastError,
+        String archiveRef
+) implements ExportRow {
+
+    static final List<String> COLUMNS = List.of(
+            "id", "provider", "accountId", "eventId", "eventType", "status", "attempts", "receivedAt",
+            "processedAt", "lastError", "archiveRef");
+
+    @Override
+    public Object[] values() {
+        return new Object[]{id, provider, accountId, eventId, eventType, status, attempts, receivedAt,
+                processedAt, lastError, archiveRef};
+    }
+}
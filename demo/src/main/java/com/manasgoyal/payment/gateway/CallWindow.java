@@ -0,0 +1,60 @@
+package com.manasgoyal.payment.gateway;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Latency and outcome of the last {@code size} calls that reached the provider. Cheap enough to
+ * read on every checkout, unlike the timers; old calls drop out by count, not by age.
+ */
+final class CallWindow {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] nanos;
+    private final boolean[] failed;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    CallWindow(int size) {
+        this.nanos = new long[Math.max(1, size)];
+        this.failed = new boolean[nanos.length];
+    }
+
+    void record(long elapsedNanos, boolean failure) {
+        lock.lock();
+        try {
+            if (recorded == nanos.length) {
+                if (failed[next]) failures--;
+            } else {
+                recorded++;
+            }
+            nanos[next] = elapsedNanos;
+            failed[next] = failure;
+            if (failure) failures++;
+            next = (next + 1) % nanos.length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ProviderHealth snapshot(String provider, boolean circuitOpen) {
+        long[] copy;
+        int failureCount;
+        lock.lock();
+        try {
+            copy = Arrays.copyOf(nanos, recorded);
+            failureCount = failures;
+        } finally {
+            lock.unlock();
+        }
+        if (copy.length == 0) {
+            return new ProviderHealth(provider, 0, Duration.ZERO, 0, circuitOpen);
+        }
+        Arrays.sort(copy);
+        int p99 = (int) Math.ceil(copy.length * 0.99) - 1;
+        return new ProviderHealth(provider, copy.length, Duration.ofNanos(copy[p99]),
+                (double) failureCount / copy.length, circuitOpen);
+    }
+}
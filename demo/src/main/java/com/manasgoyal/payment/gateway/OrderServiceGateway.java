@@ -0,0 +1,70 @@
+package com.manasgoyal.payment.gateway;
+
+import com.manasgoyal.payment.client.OrderClient;
+import com.manasgoyal.payment.dto.OrderPaymentStatusUpdate;
+import com.manasgoyal.payment.dto.OrderSummary;
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link OrderClient} behind the {@code order.service.*} guard.
+ */
+@Component
+public class OrderServiceGateway {
+
+    private final OrderClient orderClient;
+    private final ProviderGuard guard;
+
+    public OrderServiceGateway(OrderClient orderClient, ProviderGuardFactory guardFactory) {
+        this.orderClient = orderClient;
+        this.guard = guardFactory.create("order-service", "order.service", Duration.ofSeconds(5), OrderServiceGateway::isProviderFailure);
+    }
+
+    public OrderSummary getOrder(UUID id) {
+        return call("order.get", () -> orderClient.getOrder(id));
+    }
+
+    public void updatePaymentStatus(UUID id, PaymentStatusUpdateRequest request) {
+        call("order.payment-status", () -> {
+            orderClient.updatePaymentStatus(id, request);
+            return null;
+        });
+    }
+
+    public void updatePaymentStatuses(List<OrderPaymentStatusUpdate> updates) {
+        call("order.payment-status.batch", () -> {
+            orderClient.updatePaymentStatuses(updates);
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        guard.close();
+    }
+
+    private <T> T call(String operation, Callable<T> call) {
+        try {
+            return guard.call(operation, call);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Connection errors have status -1; 4xx are our fault, not an outage
+    private static boolean isProviderFailure(Throwable e) {
+        if (e instanceof FeignException fe) {
+            return fe.status() < 0 || fe.status() >= 500;
+        }
+        return true;
+    }
+}
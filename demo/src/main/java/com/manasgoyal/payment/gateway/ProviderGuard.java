@@ -0,0 +1,208 @@
+package com.manasgoyal.payment.gateway;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Isolates calls to one downstream (Stripe, Razorpay, order-service):
+ * <ul>
+ *   <li>bulkhead: calls run on the provider's own bounded pool, extra calls are rejected
+ *   instead of queueing on request threads</li>
+ *   <li>timeout: the caller gives up after {@code timeout} whatever the SDK's own timeouts are</li>
+ *   <li>circuit breaker: once the provider keeps failing, calls fail fast until it recovers</li>
+ * </ul>
+ * Latency is recorded as {@code payment.provider.calls} tagged by provider, operation and outcome,
+ * and the last {@code healthWindow} calls are kept for {@link #health()}.
+ */
+public final class ProviderGuard implements AutoCloseable {
+
+    public record Settings(
+            int maxConcurrent,
+            int maxQueued,
+            Duration timeout,
+            int slidingWindow,
+            int minimumCalls,
+            int failureRatePercent,
+            Duration openDuration,
+            int healthWindow
+    ) {}
+
+    private final String provider;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor timeouts;
+    private final CircuitBreaker breaker;
+    private final CallWindow window;
+    private final Predicate<Throwable> countsAsFailure;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, OperationMeters> meters = new ConcurrentHashMap<>();
+
+    public ProviderGuard(String provider, Settings settings, ThreadFactory threadFactory,
+                         Predicate<Throwable> countsAsFailure, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.timeout = settings.timeout();
+        this.executor = new ThreadPoolExecutor(
+                settings.maxConcurrent(), settings.maxConcurrent(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.maxQueued())),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        // timeouts are cancelled as calls finish; removed at once, so only in-flight calls hold one
+        this.timeouts = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, provider + "-gateway-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeouts.setRemoveOnCancelPolicy(true);
+        this.breaker = new CircuitBreaker(
+                settings.slidingWindow(), settings.minimumCalls(), settings.failureRatePercent(), settings.openDuration());
+        this.window = new CallWindow(settings.healthWindow());
+        this.countsAsFailure = countsAsFailure;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("payment.provider.circuit.state", breaker, b -> b.state().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.in.flight", executor, ThreadPoolExecutor::getActiveCount)
+                .tag("provider", provider)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call on the provider pool; the future fails with {@link ProviderUnavailableException}
+     * when the call is rejected or times out, otherwise with the call's own exception.
+     */
+    public <T> CompletableFuture<T> submit(String operation, Callable<T> call) {
+
+        OperationMeters cached = meters.get(operation); // get first: computeIfAbsent allocates the method ref
+        OperationMeters m = cached != null ? cached : meters.computeIfAbsent(operation, this::register);
+
+        if (!breaker.tryAcquire()) {
+            m.circuitOpen.increment();
+            return CompletableFuture.failedFuture(new ProviderUnavailableException(provider, "circuit open"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean settled = new AtomicBoolean(); // first of call / timeout wins
+        long start = System.nanoTime();
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    T value = call.call();
+                    if (settled.compareAndSet(false, true)) {
+                        breaker.onSuccess();
+                        long elapsed = System.nanoTime() - start;
+                        window.record(elapsed, false);
+                        m.success.record(elapsed, TimeUnit.NANOSECONDS);
+                        result.complete(value);
+                    }
+                } catch (Throwable e) {
+                    if (settled.compareAndSet(false, true)) {
+                        boolean failure = countsAsFailure.test(e);
+                        if (failure) breaker.onFailure(); else breaker.onSuccess();
+                        long elapsed = System.nanoTime() - start;
+                        window.record(elapsed, failure);
+                        m.error.record(elapsed, TimeUnit.NANOSECONDS);
+                        result.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            breaker.release();
+            m.bulkheadFull.increment();
+            return CompletableFuture.failedFuture(new ProviderUnavailableException(provider, "too many concurrent calls"));
+        }
+
+        ScheduledFuture<?> timeoutTask = timeouts.schedule(() -> {
+            if (settled.compareAndSet(false, true)) {
+                task.cancel(true);
+                breaker.onFailure();
+                long elapsed = System.nanoTime() - start;
+                window.record(elapsed, true);
+                m.timeout.record(elapsed, TimeUnit.NANOSECONDS);
+                result.completeExceptionally(new ProviderUnavailableException(provider, "timed out after " + timeout));
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, e) -> timeoutTask.cancel(false));
+
+        return result;
+    }
+
+    /**
+     * Blocking variant of {@link #submit}; waits at most {@code timeout}.
+     */
+    public <T> T call(String operation, Callable<T> call) throws Exception {
+        try {
+            return submit(operation, call).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Recent latency and error rate; calls rejected by the bulkhead or the open circuit are not counted.
+     */
+    public ProviderHealth health() {
+        return window.snapshot(provider, breaker.state() == CircuitBreaker.State.OPEN);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        timeouts.shutdownNow();
+    }
+
+    private OperationMeters register(String operation) {
+        return new OperationMeters(
+                timer(operation, "success"),
+                timer(operation, "error"),
+                timer(operation, "timeout"),
+                rejected(operation, "circuit_open"),
+                rejected(operation, "bulkhead_full")
+        );
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("payment.provider.calls")
+                .tag("provider", provider)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter rejected(String operation, String reason) {
+        return Counter.builder("payment.provider.rejected")
+                .tag("provider", provider)
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record OperationMeters(Timer success, Timer error, Timer timeout, Counter circuitOpen, Counter bulkheadFull) {}
+}
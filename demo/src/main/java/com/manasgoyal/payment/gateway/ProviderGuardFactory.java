@@ -0,0 +1,40 @@
+package com.manasgoyal.payment.gateway;
+
+import com.manasgoyal.payment.config.ThreadFactories;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Builds a {@link ProviderGuard} from {@code <prefix>.max-concurrent}, {@code .timeout}, ... properties.
+ * {@code <prefix>.virtual-threads=false} keeps a provider on platform threads in virtual-thread mode.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProviderGuardFactory {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final ThreadFactories threadFactories;
+
+    public ProviderGuard create(String provider, String prefix, Duration defaultTimeout, Predicate<Throwable> countsAsFailure) {
+        ProviderGuard.Settings settings = new ProviderGuard.Settings(
+                environment.getProperty(prefix + ".max-concurrent", Integer.class, 16),
+                environment.getProperty(prefix + ".max-queued", Integer.class, 16),
+                environment.getProperty(prefix + ".timeout", Duration.class, defaultTimeout),
+                environment.getProperty(prefix + ".circuit.sliding-window", Integer.class, 20),
+                environment.getProperty(prefix + ".circuit.minimum-calls", Integer.class, 10),
+                environment.getProperty(prefix + ".circuit.failure-rate-percent", Integer.class, 50),
+                environment.getProperty(prefix + ".circuit.open-duration", Duration.class, Duration.ofSeconds(30)),
+                environment.getProperty(prefix + ".health.window", Integer.class, 100)
+        );
+        // the pool size stays the bulkhead; virtual threads just make a large one cheap
+        boolean virtual = environment.getProperty(prefix + ".virtual-threads", Boolean.class, threadFactories.virtual());
+        return new ProviderGuard(provider, settings, threadFactories.create(provider + "-gateway-", virtual),
+                countsAsFailure, meterRegistry);
+    }
+}
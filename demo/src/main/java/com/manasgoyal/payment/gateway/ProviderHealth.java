@@ -0,0 +1,14 @@
+package com.manasgoyal.payment.gateway;
+
+import java.time.Duration;
+
+/**
+ * How a provider has been doing over its last {@code calls} calls.
+ */
+public record ProviderHealth(
+        String provider,
+        int calls,
+        Duration p99,
+        double errorRate,       // 0..1, timeouts included
+        boolean circuitOpen
+) {}
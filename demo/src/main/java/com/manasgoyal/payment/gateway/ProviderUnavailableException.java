@@ -0,0 +1,15 @@
+package com.manasgoyal.payment.gateway;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The call was not made or not answered in time: circuit open, bulkhead full or timeout.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProviderUnavailableException extends RuntimeException {
+
+    public ProviderUnavailableException(String provider, String reason) {
+        super(provider + " unavailable: " + reason);
+    }
+}
@@ -0,0 +1,99 @@
+package com.manasgoyal.payment.gateway;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.razorpay.Order;
+import com.razorpay.Payment;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONObject;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * All outbound Razorpay API calls, isolated by the {@code payment.gateway.razorpay.*} guard.
+ * The SDK's HTTP client is static with fixed timeouts, so the guard timeout is what bounds a call.
+ * Each account has its own {@link RazorpayClient} (the key pair is fixed per client), cached by the registry.
+ */
+@Component
+public class RazorpayGateway {
+
+    // the SDK's message when the error body is not Razorpay JSON: "Status Code: 503\nServer response: ..."
+    private static final Pattern STATUS_CODE = Pattern.compile("^Status Code: (\\d+)");
+
+    private final ProviderAccountRegistry accounts;
+    private final ProviderGuard guard;
+
+    public RazorpayGateway(ProviderAccountRegistry accounts, ProviderGuardFactory guardFactory) {
+        this.accounts = accounts;
+        this.guard = guardFactory.create("razorpay", "payment.gateway.razorpay", Duration.ofSeconds(15), RazorpayGateway::isProviderFailure);
+    }
+
+    public Order createOrder(String accountId, JSONObject request) throws RazorpayException {
+        RazorpayClient client = accounts.get(accountId).razorpayClient();
+        return call("order.create", () -> client.orders.create(request));
+    }
+
+    public Order fetchOrder(String accountId, String orderId) throws RazorpayException {
+        RazorpayClient client = accounts.get(accountId).razorpayClient();
+        return call("order.fetch", () -> client.orders.fetch(orderId));
+    }
+
+    public List<Payment> fetchOrderPayments(String accountId, String orderId) throws RazorpayException {
+        RazorpayClient client = accounts.get(accountId).razorpayClient();
+        return call("order.payments", () -> client.orders.fetchPayments(orderId));
+    }
+
+    public CompletableFuture<Order> createOrderAsync(String accountId, JSONObject request) {
+        RazorpayClient client = accounts.get(accountId).razorpayClient();
+        return guard.submit("order.create", () -> client.orders.create(request));
+    }
+
+    public ProviderHealth health() {
+        return guard.health();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        guard.close();
+    }
+
+    private <T> T call(String operation, Callable<T> call) throws RazorpayException {
+        try {
+            return guard.call(operation, call);
+        } catch (RazorpayException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * RazorpayException carries no status code, only "CODE:description". BAD_REQUEST_ERROR covers
+     * every 4xx (validation, auth, not found): the caller's or one account's problem, so it does not
+     * count against the shared breaker unless it is rate limiting. Server and gateway errors,
+     * bare status codes of 5xx / 429 and I/O errors (timeouts, refused connections) do.
+     */
+    private static boolean isProviderFailure(Throwable e) {
+        if (!(e instanceof RazorpayException) || e.getMessage() == null) {
+            return true;
+        }
+        String message = e.getMessage();
+        if (message.startsWith("BAD_REQUEST_ERROR:")) {
+            return message.toLowerCase(Locale.ROOT).contains("too many requests");
+        }
+        Matcher status = STATUS_CODE.matcher(message);
+        if (status.find()) {
+            int code = Integer.parseInt(status.group(1));
+            return code >= 500 || code == 429;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package com.manasgoyal.payment.gateway;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.stripe.StripeClient;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.checkout.SessionCreateParams;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * All outbound Stripe API calls, isolated by the {@code payment.gateway.stripe.*} guard.
+ * Calls are made with the API key of the given account.
+ */
+@Component
+public class StripeGateway {
+
+    private final StripeClient stripeClient;
+    private final ProviderAccountRegistry accounts;
+    private final ProviderGuard guard;
+
+    public StripeGateway(StripeClient stripeClient, ProviderAccountRegistry accounts, ProviderGuardFactory guardFactory) {
+        this.stripeClient = stripeClient;
+        this.accounts = accounts;
+        this.guard = guardFactory.create("stripe", "payment.gateway.stripe", Duration.ofSeconds(15), StripeGateway::isProviderFailure);
+    }
+
+    public Session createCheckoutSession(String accountId, SessionCreateParams params) throws StripeException {
+        RequestOptions options = accounts.get(accountId).stripeOptions();
+        try {
+            return guard.call("checkout.create", () -> stripeClient.checkout().sessions().create(params, options));
+        } catch (StripeException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Session retrieveCheckoutSession(String accountId, String sessionId) throws StripeException {
+        RequestOptions options = accounts.get(accountId).stripeOptions();
+        try {
+            return guard.call("checkout.retrieve", () -> stripeClient.checkout().sessions().retrieve(sessionId, options));
+        } catch (StripeException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public CompletableFuture<Session> createCheckoutSessionAsync(String accountId, SessionCreateParams params) {
+        RequestOptions options = accounts.get(accountId).stripeOptions();
+        return guard.submit("checkout.create", () -> stripeClient.checkout().sessions().create(params, options));
+    }
+
+    public ProviderHealth health() {
+        return guard.health();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        guard.close();
+    }
+
+    // 4xx responses mean Stripe is up and rejected our request; only outages trip the breaker
+    private static boolean isProviderFailure(Throwable e) {
+        if (e instanceof StripeException se && se.getStatusCode() != null) {
+            return se.getStatusCode() >= 500 || se.getStatusCode() == 429;
+        }
+        return true;
+    }
+}
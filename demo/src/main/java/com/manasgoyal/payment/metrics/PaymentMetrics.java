@@ -0,0 +1,166 @@
+package com.manasgoyal.payment.metrics;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Business-level meters for the checkout and webhook flows. Every meter is registered up front,
+ * one per provider / outcome / known event type, so recording is a map lookup and an atomic add.
+ * <ul>
+ *   <li>{@code payment.checkout}{provider, outcome}: checkout creation latency, end to end</li>
+ *   <li>{@code payment.webhook.latency}{provider, outcome}: webhook receive-to-commit latency</li>
+ *   <li>{@code payment.webhook.inbox.lag}{provider}: receive-to-commit latency of inbox workers</li>
+ *   <li>{@code payment.webhook.duplicates}{provider, type}: redeliveries of already recorded events</li>
+ *   <li>{@code payment.signature.failures}{provider, source}: rejected webhook / payment signatures</li>
+ *   <li>{@code payment.checkout.in.flight}, {@code payment.webhook.in.flight}{provider}</li>
+ * </ul>
+ * Provider calls, order-service calls and repository methods are timed by
+ * {@code payment.provider.calls}, {@code http.client.requests} and {@code spring.data.repository.invocations}.
+ */
+@Component
+public class PaymentMetrics {
+
+    public enum CheckoutOutcome { SUCCESS, ERROR }
+
+    public enum WebhookOutcome { PROCESSED, QUEUED, DUPLICATE, REJECTED, ERROR }
+
+    public enum SignatureSource { WEBHOOK, PAYMENT }
+
+    // Event types are chosen by the provider; anything else is counted as "other"
+    private static final Map<PaymentProvider, List<String>> KNOWN_EVENT_TYPES = Map.of(
+            PaymentProvider.STRIPE, List.of("checkout.session.completed", "payment_intent.payment_failed"),
+            PaymentProvider.RAZORPAY, List.of("payment.captured"),
+            PaymentProvider.SIMULATED, List.of("payment.succeeded", "payment.failed")
+    );
+    private static final String OTHER_TYPE = "other";
+
+    private final Map<PaymentProvider, ProviderMeters> meters = new EnumMap<>(PaymentProvider.class);
+
+    public PaymentMetrics(MeterRegistry registry) {
+        for (PaymentProvider provider : PaymentProvider.values()) {
+            meters.put(provider, new ProviderMeters(registry, provider));
+        }
+    }
+
+    /**
+     * Marks a checkout as started; pass the result to {@link #checkoutFinished}.
+     */
+    public long checkoutStarted(PaymentProvider provider) {
+        meters.get(provider).checkoutsInFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void checkoutFinished(PaymentProvider provider, long startNanos, CheckoutOutcome outcome) {
+        ProviderMeters m = meters.get(provider);
+        m.checkoutsInFlight.decrementAndGet();
+        m.checkout[outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Marks a webhook delivery as received; pass the result to {@link #webhookFinished}.
+     */
+    public long webhookReceived(PaymentProvider provider) {
+        meters.get(provider).webhooksInFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void webhookFinished(PaymentProvider provider, long startNanos, WebhookOutcome outcome) {
+        ProviderMeters m = meters.get(provider);
+        m.webhooksInFlight.decrementAndGet();
+        m.webhook[outcome.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void inboxEventCommitted(PaymentProvider provider, Instant receivedAt) {
+        meters.get(provider).inboxLag.record(
+                Math.max(0, System.currentTimeMillis() - receivedAt.toEpochMilli()), TimeUnit.MILLISECONDS);
+    }
+
+    public void duplicateWebhook(PaymentProvider provider, String eventType) {
+        ProviderMeters m = meters.get(provider);
+        Counter counter = eventType != null ? m.duplicates.get(eventType) : null;
+        (counter != null ? counter : m.otherDuplicates).increment();
+    }
+
+    public void signatureFailure(PaymentProvider provider, SignatureSource source) {
+        meters.get(provider).signatureFailures[source.ordinal()].increment();
+    }
+
+    private static String tag(Enum<?> value) {
+        return value.name().toLowerCase();
+    }
+
+    private static final class ProviderMeters {
+
+        final Timer[] checkout = new Timer[CheckoutOutcome.values().length];
+        final Timer[] webhook = new Timer[WebhookOutcome.values().length];
+        final Timer inboxLag;
+        final Map<String, Counter> duplicates = new HashMap<>();
+        final Counter otherDuplicates;
+        final Counter[] signatureFailures = new Counter[SignatureSource.values().length];
+        final AtomicInteger checkoutsInFlight = new AtomicInteger();
+        final AtomicInteger webhooksInFlight = new AtomicInteger();
+
+        ProviderMeters(MeterRegistry registry, PaymentProvider provider) {
+            String p = tag(provider);
+
+            for (CheckoutOutcome outcome : CheckoutOutcome.values()) {
+                checkout[outcome.ordinal()] = Timer.builder("payment.checkout")
+                        .tag("provider", p)
+                        .tag("outcome", tag(outcome))
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+            for (WebhookOutcome outcome : WebhookOutcome.values()) {
+                webhook[outcome.ordinal()] = Timer.builder("payment.webhook.latency")
+                        .description("Webhook receive-to-commit latency")
+                        .tag("provider", p)
+                        .tag("outcome", tag(outcome))
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+            inboxLag = Timer.builder("payment.webhook.inbox.lag")
+                    .description("Webhook receive-to-commit latency in accept-then-process mode")
+                    .tag("provider", p)
+                    .publishPercentileHistogram()
+                    .register(registry);
+
+            for (String type : KNOWN_EVENT_TYPES.getOrDefault(provider, List.of())) {
+                duplicates.put(type, duplicateCounter(registry, p, type));
+            }
+            otherDuplicates = duplicateCounter(registry, p, OTHER_TYPE);
+
+            for (SignatureSource source : SignatureSource.values()) {
+                signatureFailures[source.ordinal()] = Counter.builder("payment.signature.failures")
+                        .tag("provider", p)
+                        .tag("source", tag(source))
+                        .register(registry);
+            }
+
+            Gauge.builder("payment.checkout.in.flight", checkoutsInFlight, AtomicInteger::get)
+                    .tag("provider", p)
+                    .register(registry);
+            Gauge.builder("payment.webhook.in.flight", webhooksInFlight, AtomicInteger::get)
+                    .tag("provider", p)
+                    .register(registry);
+        }
+
+        private static Counter duplicateCounter(MeterRegistry registry, String provider, String type) {
+            return Counter.builder("payment.webhook.duplicates")
+                    .tag("provider", provider)
+                    .tag("type", type)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.manasgoyal.payment.provider;
+
+/**
+ * Paces provider API calls made on behalf of a background job; blocks until the next call may go out.
+ */
+@FunctionalInterface
+public interface CallBudget {
+
+    CallBudget UNLIMITED = () -> {};
+
+    void acquire() throws InterruptedException;
+}
@@ -0,0 +1,27 @@
+package com.manasgoyal.payment.provider;
+
+/**
+ * A webhook delivery that is rejected with 400; {@code badSignature} separates forgeries and
+ * secret mix-ups from malformed requests.
+ */
+public class InvalidWebhookException extends RuntimeException {
+
+    private final boolean badSignature;
+
+    public InvalidWebhookException(String message, boolean badSignature) {
+        super(message);
+        this.badSignature = badSignature;
+    }
+
+    public static InvalidWebhookException malformed(String message) {
+        return new InvalidWebhookException(message, false);
+    }
+
+    public static InvalidWebhookException badSignature() {
+        return new InvalidWebhookException("Invalid signature", true);
+    }
+
+    public boolean isBadSignature() {
+        return badSignature;
+    }
+}
@@ -0,0 +1,65 @@
+package com.manasgoyal.payment.provider;
+
+import com.manasgoyal.payment.dto.CheckoutResponse;
+import com.manasgoyal.payment.dto.VerifyPaymentRequest;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.gateway.ProviderHealth;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * What the checkout router, the webhook endpoint, the inbox, replays and the pending-payment
+ * sweeper need from a payment provider. Implementations are beans, collected by {@link PaymentProviders}.
+ */
+public interface PaymentProviderAdapter {
+
+    PaymentProvider provider();
+
+    /**
+     * Creates the provider checkout for the order with the account's credentials, or hands out the
+     * open one while it is still payable for the same amount.
+     */
+    CheckoutResponse createCheckout(String accountId, UUID orderId) throws Exception;
+
+    /**
+     * Confirms a payment the frontend reports as done, e.g. by its signature.
+     */
+    void verifyPayment(VerifyPaymentRequest request);
+
+    /**
+     * Verifies the delivery with the account's webhook secret and reads its event id and type.
+     *
+     * @param headers request header lookup, null for a missing header
+     * @throws InvalidWebhookException for a missing header, a bad signature or a malformed payload
+     */
+    WebhookEnvelope parseWebhook(String accountId, Function<String, String> headers, byte[] body);
+
+    /**
+     * Records and applies a parsed webhook in one transaction. Returns false for duplicates.
+     */
+    boolean handleWebhook(String accountId, WebhookEnvelope envelope, byte[] body);
+
+    /**
+     * Applies a stored event (inbox worker, replay); events about another account's payments are ignored.
+     */
+    void processWebhook(String accountId, byte[] payload);
+
+    /**
+     * The session, order or payment id a stored event refers to, null if it has none.
+     */
+    String paymentReference(byte[] payload);
+
+    /**
+     * Asks the provider where the payment stands. {@code budget} is acquired before each API call.
+     */
+    ProviderPaymentState fetchStatus(PaymentEntity payment, CallBudget budget) throws Exception;
+
+    /**
+     * False if an unpaid checkout stays payable until we give up on it ourselves (Razorpay orders).
+     */
+    boolean checkoutsExpire();
+
+    ProviderHealth health();
+}
@@ -0,0 +1,51 @@
+package com.manasgoyal.payment.provider;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The enabled providers, by {@link PaymentProvider}.
+ */
+@Component
+public class PaymentProviders {
+
+    private final Map<PaymentProvider, PaymentProviderAdapter> adapters = new EnumMap<>(PaymentProvider.class);
+
+    public PaymentProviders(List<PaymentProviderAdapter> adapters) {
+        for (PaymentProviderAdapter adapter : adapters) {
+            if (this.adapters.put(adapter.provider(), adapter) != null) {
+                throw new IllegalStateException("Two adapters for " + adapter.provider());
+            }
+        }
+    }
+
+    public PaymentProviderAdapter get(PaymentProvider provider) {
+        PaymentProviderAdapter adapter = adapters.get(provider);
+        if (adapter == null) {
+            throw new UnknownProviderException("Provider not enabled: " + provider);
+        }
+        return adapter;
+    }
+
+    /**
+     * Looks a provider up by its lower-case name, as used in webhook URLs.
+     */
+    public PaymentProviderAdapter get(String name) {
+        try {
+            return get(PaymentProvider.valueOf(name.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            throw new UnknownProviderException("Unknown provider: " + name);
+        }
+    }
+
+    public Collection<PaymentProviderAdapter> all() {
+        return Collections.unmodifiableCollection(adapters.values());
+    }
+}
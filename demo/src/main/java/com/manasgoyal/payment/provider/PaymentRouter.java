@@ -0,0 +1,125 @@
+package com.manasgoyal.payment.provider;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.gateway.ProviderHealth;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the provider for a checkout. Providers that take the order's currency
+ * ({@code payment.routing.<provider>.currencies}, empty = any) and have a positive
+ * {@code payment.routing.<provider>.weight} are candidates; one is drawn by weight.
+ * <p>
+ * In ADAPTIVE mode the weight is scaled down by the provider's recent error rate and by how far its
+ * p99 latency is over {@code latency-target}, and to nothing while its circuit is open. It never drops
+ * below {@code min-share} of the configured weight, so a degraded provider still sees enough traffic
+ * to notice when it has recovered.
+ */
+@Component
+public class PaymentRouter {
+
+    public enum Mode { WEIGHTED, ADAPTIVE }
+
+    private record Route(double weight, Set<String> currencies) {}
+
+    private record Scored(PaymentProviderAdapter adapter, double score) {}
+
+    private final Map<PaymentProvider, Route> routes = new EnumMap<>(PaymentProvider.class);
+    private final List<PaymentProviderAdapter> adapters;
+    private final Mode mode;
+    private final Duration latencyTarget;
+    private final int minCalls;
+    private final double minShare;
+
+    public PaymentRouter(
+            PaymentProviders paymentProviders,
+            Environment environment,
+            @Value("${payment.routing.mode:ADAPTIVE}") Mode mode,
+            @Value("${payment.routing.latency-target:PT2S}") Duration latencyTarget,
+            @Value("${payment.routing.min-calls:20}") int minCalls,
+            @Value("${payment.routing.min-share:0.05}") double minShare
+    ) {
+        this.adapters = List.copyOf(paymentProviders.all());
+        this.mode = mode;
+        this.latencyTarget = latencyTarget;
+        this.minCalls = minCalls;
+        this.minShare = minShare;
+
+        for (PaymentProviderAdapter adapter : adapters) {
+            String prefix = "payment.routing." + adapter.provider().name().toLowerCase(Locale.ROOT);
+            Set<String> currencies = Arrays.stream(environment.getProperty(prefix + ".currencies", String[].class, new String[0]))
+                    .map(c -> c.trim().toUpperCase(Locale.ROOT))
+                    .filter(c -> !c.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+            routes.put(adapter.provider(), new Route(environment.getProperty(prefix + ".weight", Double.class, 1.0), currencies));
+        }
+    }
+
+    /**
+     * The providers that may take a checkout in {@code currency}, in the order to try them:
+     * the drawn one first, the others by score for failover.
+     */
+    public List<PaymentProviderAdapter> route(String currency) {
+        String code = currency.toUpperCase(Locale.ROOT);
+
+        List<Scored> candidates = new ArrayList<>(adapters.size());
+        double total = 0;
+        for (PaymentProviderAdapter adapter : adapters) {
+            Route route = routes.get(adapter.provider());
+            if (route.weight() > 0 && (route.currencies().isEmpty() || route.currencies().contains(code))) {
+                double score = score(route, adapter.health());
+                candidates.add(new Scored(adapter, score));
+                total += score;
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        double draw = total > 0 ? ThreadLocalRandom.current().nextDouble(total) : 0;
+        int first = candidates.size() - 1;
+        for (int i = 0; i < candidates.size(); i++) {
+            draw -= candidates.get(i).score();
+            if (draw < 0) {
+                first = i;
+                break;
+            }
+        }
+
+        List<PaymentProviderAdapter> order = new ArrayList<>(candidates.size());
+        order.add(candidates.remove(first).adapter());
+        candidates.sort(Comparator.comparingDouble(Scored::score).reversed());
+        candidates.forEach(c -> order.add(c.adapter()));
+        return order;
+    }
+
+    private double score(Route route, ProviderHealth health) {
+        if (mode == Mode.WEIGHTED) {
+            return route.weight();
+        }
+        double score = route.weight();
+        if (health.circuitOpen()) {
+            score = 0;
+        } else if (health.calls() >= minCalls) {
+            long p99 = health.p99().toNanos();
+            if (p99 > latencyTarget.toNanos()) {
+                score *= (double) latencyTarget.toNanos() / p99;
+            }
+            score *= 1 - health.errorRate();
+        }
+        return Math.max(score, route.weight() * minShare);
+    }
+}
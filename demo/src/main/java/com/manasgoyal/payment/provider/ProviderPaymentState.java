@@ -0,0 +1,12 @@
+package com.manasgoyal.payment.provider;
+
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+/**
+ * What the provider says about a payment; PENDING means still payable.
+ */
+public record ProviderPaymentState(PaymentStatus status, String providerPaymentId) {
+
+    public static final ProviderPaymentState NOTHING_CREATED = new ProviderPaymentState(PaymentStatus.FAILED, null);
+    public static final ProviderPaymentState OPEN = new ProviderPaymentState(PaymentStatus.PENDING, null);
+}
@@ -0,0 +1,291 @@
+package com.manasgoyal.payment.provider;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.client.OrderSummaryCache;
+import com.manasgoyal.payment.dto.CheckoutResponse;
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.dto.SimulatedWebhookEvent;
+import com.manasgoyal.payment.dto.VerifyPaymentRequest;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.gateway.OrderServiceGateway;
+import com.manasgoyal.payment.gateway.ProviderGuard;
+import com.manasgoyal.payment.gateway.ProviderGuardFactory;
+import com.manasgoyal.payment.gateway.ProviderHealth;
+import com.manasgoyal.payment.metrics.PaymentMetrics;
+import com.manasgoyal.payment.metrics.PaymentMetrics.CheckoutOutcome;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import com.manasgoyal.payment.service.OrderOutboxService;
+import com.manasgoyal.payment.service.PaymentStateMachine;
+import com.manasgoyal.payment.service.WebhookDeduplicator;
+import com.manasgoyal.payment.webhook.WebhookEventParser;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * An in-process provider with configurable latency and failure rate, for exercising routing,
+ * failover and the webhook path without a provider sandbox. Its "API" calls go through a
+ * {@code payment.gateway.simulated.*} guard like the real ones; sessions live in memory.
+ * Webhooks are signed with {@code payment.providers.simulated.webhook-secret}
+ * (hex HMAC-SHA256 of the body in {@code X-Simulated-Signature}); there is no default, and the
+ * application does not start with the provider enabled and no secret set.
+ */
+@Service
+@ConditionalOnProperty(name = "payment.providers.simulated.enabled", havingValue = "true")
+public class SimulatedPaymentProvider implements PaymentProviderAdapter {
+
+    private final PaymentRepository paymentRepository;
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final OrderServiceGateway orderServiceGateway; // ⭐ talk to order-service
+    private final OrderSummaryCache orderSummaryCache;
+    private final OrderOutboxService orderOutboxService;
+    private final PaymentStateMachine paymentStateMachine;
+    private final PaymentMetrics paymentMetrics;
+    private final WebhookEventParser webhookEventParser;
+    private final ProviderAccountRegistry accounts;
+    private final HmacSha256Verifier webhookVerifier;
+    private final ProviderGuard guard;
+
+    // the provider's side: session id → state
+    private final Map<String, ProviderPaymentState> sessions = new ConcurrentHashMap<>();
+
+    private volatile Duration latency;
+    private volatile double failureRate;
+
+    public SimulatedPaymentProvider(
+            PaymentRepository paymentRepository,
+            WebhookDeduplicator webhookDeduplicator,
+            OrderServiceGateway orderServiceGateway,
+            OrderSummaryCache orderSummaryCache,
+            OrderOutboxService orderOutboxService,
+            PaymentStateMachine paymentStateMachine,
+            PaymentMetrics paymentMetrics,
+            WebhookEventParser webhookEventParser,
+            ProviderAccountRegistry accounts,
+            ProviderGuardFactory guardFactory,
+            @Value("${payment.providers.simulated.webhook-secret:}") String webhookSecret,
+            @Value("${payment.providers.simulated.latency:PT0.05S}") Duration latency,
+            @Value("${payment.providers.simulated.failure-rate:0}") double failureRate
+    ) {
+        if (webhookSecret.isBlank()) {
+            throw new IllegalStateException(
+                    "payment.providers.simulated.enabled=true needs payment.providers.simulated.webhook-secret");
+        }
+        this.paymentRepository = paymentRepository;
+        this.webhookDeduplicator = webhookDeduplicator;
+        this.orderServiceGateway = orderServiceGateway;
+        this.orderSummaryCache = orderSummaryCache;
+        this.orderOutboxService = orderOutboxService;
+        this.paymentStateMachine = paymentStateMachine;
+        this.paymentMetrics = paymentMetrics;
+        this.webhookEventParser = webhookEventParser;
+        this.accounts = accounts;
+        this.webhookVerifier = new HmacSha256Verifier(List.of(webhookSecret));
+        this.guard = guardFactory.create("simulated", "payment.gateway.simulated", Duration.ofSeconds(5), e -> true);
+        this.latency = latency;
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Changes how the provider behaves from the next call on.
+     */
+    public void simulate(Duration latency, double failureRate) {
+        this.latency = latency;
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * The customer finished (or abandoned) the session; returns the payment id for a paid one.
+     * The matching webhook is up to the caller, as it would be up to the provider.
+     */
+    public String complete(String sessionId, boolean paid) {
+        String paymentId = paid ? "sim_pay_" + UUID.randomUUID().toString().replace("-", "") : null;
+        sessions.put(sessionId, new ProviderPaymentState(paid ? PaymentStatus.PAID : PaymentStatus.FAILED, paymentId));
+        return paymentId;
+    }
+
+    @Override
+    public PaymentProvider provider() {
+        return PaymentProvider.SIMULATED;
+    }
+
+    @Override
+    public CheckoutResponse createCheckout(String accountId, UUID orderId) throws Exception {
+        long start = paymentMetrics.checkoutStarted(PaymentProvider.SIMULATED);
+        CheckoutOutcome outcome = CheckoutOutcome.ERROR;
+        try {
+            CheckoutResponse response = doCreateCheckout(accountId, orderId);
+            outcome = CheckoutOutcome.SUCCESS;
+            return response;
+        } finally {
+            paymentMetrics.checkoutFinished(PaymentProvider.SIMULATED, start, outcome);
+        }
+    }
+
+    private CheckoutResponse doCreateCheckout(String accountId, UUID orderId) throws Exception {
+
+        // 1️⃣ Fetch order from order-service
+        var order = orderSummaryCache.get(orderId, orderServiceGateway::getOrder);
+
+        // 2️⃣ Create or reuse payment record
+        PaymentEntity payment = paymentRepository.findByOrderIdAndProvider(orderId, PaymentProvider.SIMULATED)
+                .orElseGet(() -> PaymentEntity.builder()
+                        .orderId(orderId)
+                        .provider(PaymentProvider.SIMULATED)
+                        .accountId(accountId)
+                        .status(PaymentStatus.CREATED)
+                        .build());
+
+        if (!payment.getStatus().canTransitionTo(PaymentStatus.PENDING)) {
+            throw new RuntimeException("Order already paid");
+        }
+        if (!payment.getAccountId().equals(accountId)) {
+            throw new RuntimeException("Order is paid through another account");
+        }
+
+        // ♻️ Reuse the open session for the same amount
+        if (payment.getStatus() == PaymentStatus.PENDING
+                && payment.getCheckoutUrl() != null
+                && Long.valueOf(order.totalAmount()).equals(payment.getAmount())
+                && order.currency().equalsIgnoreCase(payment.getCurrency())) {
+            return CheckoutResponse.redirect(PaymentProvider.SIMULATED, payment.getCheckoutUrl());
+        }
+
+        // 3️⃣ Create the session at the "provider"
+        String sessionId = guard.call("checkout.create", () -> {
+            Thread.sleep(latency.toMillis());
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                throw new IllegalStateException("Simulated provider failure");
+            }
+            String id = "sim_cs_" + UUID.randomUUID().toString().replace("-", "");
+            sessions.put(id, ProviderPaymentState.OPEN);
+            return id;
+        });
+
+        // 4️⃣ Save session info
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setProviderSessionId(sessionId);
+        payment.setCheckoutUrl("https://checkout.simulated.invalid/" + sessionId);
+        payment.setAmount(order.totalAmount());
+        payment.setCurrency(order.currency());
+        paymentRepository.save(payment);
+
+        return CheckoutResponse.redirect(PaymentProvider.SIMULATED, payment.getCheckoutUrl());
+    }
+
+    @Override
+    public void verifyPayment(VerifyPaymentRequest request) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Simulated payments are confirmed by webhook");
+    }
+
+    @Override
+    public WebhookEnvelope parseWebhook(String accountId, Function<String, String> headers, byte[] body) {
+        accounts.get(accountId); // 404 for unknown accounts, like the real providers
+
+        String signature = headers.apply("X-Simulated-Signature");
+        if (signature == null) {
+            throw InvalidWebhookException.malformed("Missing X-Simulated-Signature header");
+        }
+        if (!webhookVerifier.verifyHex(body, signature)) {
+            throw InvalidWebhookException.badSignature();
+        }
+
+        SimulatedWebhookEvent event;
+        try {
+            event = webhookEventParser.parseSimulated(body);
+        } catch (IllegalArgumentException e) {
+            throw InvalidWebhookException.malformed("Malformed payload");
+        }
+        if (event.id() == null || event.type() == null) {
+            throw InvalidWebhookException.malformed("Missing event id or type");
+        }
+        return new WebhookEnvelope(event.id(), event.type(), event);
+    }
+
+    @Override
+    @Transactional
+    public boolean handleWebhook(String accountId, WebhookEnvelope envelope, byte[] body) {
+        SimulatedWebhookEvent event = (SimulatedWebhookEvent) envelope.event();
+        if (!webhookDeduplicator.insertIfNew(PaymentProvider.SIMULATED, accountId, event.id(), event.type(), body, WebhookEventStatus.PROCESSED)) {
+            return false; // idempotent
+        }
+        process(accountId, event);
+        return true;
+    }
+
+    @Override
+    public void processWebhook(String accountId, byte[] payload) {
+        process(accountId, webhookEventParser.parseSimulated(payload));
+    }
+
+    private void process(String accountId, SimulatedWebhookEvent event) {
+        PaymentStatus target = switch (String.valueOf(event.type())) {
+            case "payment.succeeded" -> PaymentStatus.PAID;
+            case "payment.failed" -> PaymentStatus.FAILED;
+            default -> null;
+        };
+        if (target == null || event.sessionId() == null) {
+            return;
+        }
+
+        PaymentEntity payment = paymentRepository.findByProviderSessionId(event.sessionId()).orElse(null);
+        if (payment == null || !payment.getAccountId().equals(accountId)) {
+            return;
+        }
+        if (!paymentStateMachine.transition(payment, target, event.paymentId())) {
+            return;
+        }
+
+        // 🔥 notify order-service (outbox, delivered after commit)
+        orderOutboxService.enqueue(payment.getOrderId(), new PaymentStatusUpdateRequest(target, event.paymentId()));
+    }
+
+    @Override
+    public String paymentReference(byte[] payload) {
+        return webhookEventParser.parseSimulated(payload).sessionId();
+    }
+
+    @Override
+    public ProviderPaymentState fetchStatus(PaymentEntity payment, CallBudget budget) throws Exception {
+        if (payment.getProviderSessionId() == null) {
+            return ProviderPaymentState.NOTHING_CREATED;
+        }
+        budget.acquire();
+        // sessions do not survive a restart: an unknown one has expired
+        return guard.call("checkout.retrieve", () -> {
+            Thread.sleep(latency.toMillis());
+            return sessions.getOrDefault(payment.getProviderSessionId(), ProviderPaymentState.NOTHING_CREATED);
+        });
+    }
+
+    @Override
+    public boolean checkoutsExpire() {
+        return true;
+    }
+
+    @Override
+    public ProviderHealth health() {
+        return guard.health();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        guard.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.manasgoyal.payment.provider;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * No such provider, or it is not enabled on this deployment.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UnknownProviderException extends RuntimeException {
+
+    public UnknownProviderException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.manasgoyal.payment.provider;
+
+/**
+ * A verified webhook delivery.
+ */
+public record WebhookEnvelope(
+        String eventId,
+        String eventType,
+        Object event        // the adapter's own parsed event, handed back to its handleWebhook
+) {}
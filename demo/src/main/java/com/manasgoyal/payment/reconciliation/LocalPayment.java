@@ -0,0 +1,14 @@
+package com.manasgoyal.payment.reconciliation;
+
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+/**
+ * The columns of a payment that reconciliation compares; {@code reference} is the provider's join key.
+ */
+public record LocalPayment(
+        Long id,
+        String reference,
+        PaymentStatus status,
+        Long amount,
+        String currency
+) {}
@@ -0,0 +1,73 @@
+package com.manasgoyal.payment.reconciliation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CSV of every discrepancy found by one run; written by all partitions of the run.
+ */
+final class ReconciliationReport implements Closeable {
+
+    enum Discrepancy { MISSING_LOCALLY, MISSING_AT_PROVIDER, STATUS_MISMATCH, AMOUNT_MISMATCH }
+
+    private final ReentrantLock lock = new ReentrantLock(); // held across file writes, so not a monitor
+    private final BufferedWriter writer;
+
+    ReconciliationReport(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            writer.write("discrepancy,reference,payment_id,local_status,provider_status,"
+                    + "local_amount,provider_amount,local_currency,provider_currency,corrected");
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create reconciliation report " + file, e);
+        }
+    }
+
+    void write(Discrepancy discrepancy, LocalPayment local, SettlementRecord remote, boolean corrected) {
+        String reference = local != null ? local.reference() : remote.reference();
+        lock.lock();
+        try {
+            writer.write(String.join(",",
+                    discrepancy.name(),
+                    csv(reference),
+                    local != null ? String.valueOf(local.id()) : "",
+                    local != null ? String.valueOf(local.status()) : "",
+                    remote != null && remote.status() != null ? remote.status().name() : "",
+                    local != null && local.amount() != null ? local.amount().toString() : "",
+                    remote != null && remote.amount() != null ? remote.amount().toString() : "",
+                    local != null && local.currency() != null ? csv(local.currency()) : "",
+                    remote != null && remote.currency() != null ? csv(remote.currency()) : "",
+                    String.valueOf(corrected)));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            writer.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,474 @@
+package com.manasgoyal.payment.reconciliation;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.config.ThreadFactories;
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.dto.ReconciliationRequest;
+import com.manasgoyal.payment.dto.ReconciliationView;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.ReconciliationRunEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.entity.enums.ReconciliationStatus;
+import com.manasgoyal.payment.reconciliation.ReconciliationReport.Discrepancy;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.repository.ReconciliationRunRepository;
+import com.manasgoyal.payment.service.OrderOutboxService;
+import com.manasgoyal.payment.service.PaymentStateMachine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Reconciles a provider settlement export against {@code payments} with bounded memory:
+ * <ul>
+ *   <li>the export is read once and external-sorted by reference into one partition per UTC day</li>
+ *   <li>each day is sort-merged against a cursor over that day's payments in reference order;
+ *   days run in parallel</li>
+ *   <li>records without a counterpart that day are matched up by key afterwards, so a payment
+ *   created just before midnight is not reported missing</li>
+ * </ul>
+ * Discrepancies go to a CSV report; with {@code autoCorrect} the provider's status is applied
+ * through {@link PaymentStateMachine}, so corrections follow the same rules as webhooks.
+ */
+@Slf4j
+@Service
+public class ReconciliationService {
+
+    private static final int LOOKUP_BATCH = 500;
+
+    private final ReconciliationRunRepository runRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentStateMachine paymentStateMachine;
+    private final OrderOutboxService orderOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService runner;
+    private final ExecutorService partitions;
+    private final Path importDir;
+    private final Path reportDir;
+    private final int runSize;
+    private final int maxUnmatched;
+
+    public ReconciliationService(
+            ReconciliationRunRepository runRepository,
+            PaymentRepository paymentRepository,
+            PaymentStateMachine paymentStateMachine,
+            OrderOutboxService orderOutboxService,
+            PlatformTransactionManager transactionManager,
+            ThreadFactories threadFactories,
+            @Value("${payment.reconciliation.import-dir:settlement-exports}") String importDir,
+            @Value("${payment.reconciliation.report-dir:reconciliation-reports}") String reportDir,
+            @Value("${payment.reconciliation.parallelism:4}") int parallelism,
+            @Value("${payment.reconciliation.run-size:200000}") int runSize,
+            @Value("${payment.reconciliation.max-unmatched:100000}") int maxUnmatched
+    ) {
+        this.runRepository = runRepository;
+        this.paymentRepository = paymentRepository;
+        this.paymentStateMachine = paymentStateMachine;
+        this.orderOutboxService = orderOutboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.runner = Executors.newCachedThreadPool(threadFactories.create("reconciliation-"));
+        this.partitions = Executors.newFixedThreadPool(parallelism, threadFactories.create("reconciliation-day-"));
+        this.importDir = Paths.get(importDir).toAbsolutePath().normalize();
+        this.reportDir = Paths.get(reportDir);
+        this.runSize = runSize;
+        this.maxUnmatched = maxUnmatched;
+    }
+
+    public ReconciliationView start(ReconciliationRequest request) {
+
+        if (!SettlementFileReader.supports(request.provider())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, request.provider() + " has no settlement exports");
+        }
+        if (!request.from().isBefore(request.to())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        Path file = importDir.resolve(request.file()).normalize();
+        if (!file.startsWith(importDir) || !Files.isRegularFile(file)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No settlement export " + request.file());
+        }
+
+        ReconciliationRunEntity run = runRepository.save(ReconciliationRunEntity.builder()
+                .provider(request.provider())
+                .accountId(request.accountId() != null ? request.accountId() : ProviderAccountRegistry.DEFAULT_ACCOUNT)
+                .source(request.file())
+                .fromDate(request.from())
+                .toDate(request.to())
+                .autoCorrect(request.autoCorrect())
+                .build());
+        runner.execute(() -> execute(run, file));
+        return ReconciliationView.of(run);
+    }
+
+    public Optional<ReconciliationView> find(Long id) {
+        return runRepository.findById(id).map(ReconciliationView::of);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        partitions.shutdownNow();
+    }
+
+    private void execute(ReconciliationRunEntity run, Path file) {
+
+        Path reportPath = reportDir.resolve("reconciliation-" + run.getId() + ".csv");
+        Tally tally = new Tally();
+        try (ReconciliationReport report = new ReconciliationReport(reportPath);
+             SettlementSorter sorter = new SettlementSorter(runSize)) {
+            run.setReportPath(reportPath.toString());
+            Job job = new Job(run.getId(), run.getProvider(), run.getAccountId(), run.isAutoCorrect(), sorter, report, tally);
+
+            // 1️⃣ One pass over the export: sorted runs per day on local disk
+            readExport(run, file, sorter, tally);
+
+            // 2️⃣ Sort-merge each day against that day's payments, days in parallel
+            List<CompletableFuture<Void>> days = new ArrayList<>();
+            for (LocalDate day = run.getFromDate(); day.isBefore(run.getToDate()); day = day.plusDays(1)) {
+                LocalDate d = day;
+                days.add(CompletableFuture.runAsync(() -> reconcileDay(job, d), partitions));
+            }
+            CompletableFuture.allOf(days.toArray(CompletableFuture[]::new)).join();
+
+            // 3️⃣ Records whose counterpart is in another day, or missing for real
+            stitch(job);
+
+            run.setStatus(ReconciliationStatus.COMPLETED);
+            log.info("Reconciliation {} ({}) completed: {} matched, {} missing locally, {} missing at provider, "
+                            + "{} status / {} amount mismatches, {} corrected", run.getId(), run.getProvider(),
+                    tally.matched, tally.missingLocally, tally.missingAtProvider,
+                    tally.statusMismatches, tally.amountMismatches, tally.corrected);
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Reconciliation {} failed", run.getId(), cause);
+            String error = cause.toString();
+            run.setStatus(ReconciliationStatus.FAILED);
+            run.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        } finally {
+            tally.copyTo(run);
+            run.setFinishedAt(Instant.now());
+            runRepository.save(run);
+        }
+    }
+
+    private void readExport(ReconciliationRunEntity run, Path file, SettlementSorter sorter, Tally tally) throws Exception {
+        long read = 0;
+        long outOfRange = 0;
+        try (SettlementFileReader reader = SettlementFileReader.open(file, run.getProvider())) {
+            SettlementRecord record;
+            while ((record = reader.next()) != null) {
+                read++;
+                LocalDate day = LocalDate.ofInstant(record.occurredAt(), ZoneOffset.UTC);
+                if (day.isBefore(run.getFromDate()) || !day.isBefore(run.getToDate())) {
+                    outOfRange++;
+                    continue;
+                }
+                sorter.add(day, record);
+            }
+            sorter.finish();
+            tally.rowsRead = read + reader.skipped();
+            tally.rowsSkipped = outOfRange + reader.skipped();
+        }
+    }
+
+    private void reconcileDay(Job job, LocalDate day) {
+
+        Instant from = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        List<Mismatch> corrections = new ArrayList<>();
+
+        try (SettlementSorter.Run run = job.sorter.open(day)) {
+            Remote remote = new Remote(run);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<LocalPayment> stream = streamLocal(job.provider, job.accountId, from, to)) {
+                    Iterator<LocalPayment> locals = stream.iterator();
+                    SettlementRecord r = remote.next();
+                    LocalPayment l = nextLocal(locals, null);
+
+                    while (r != null || l != null) {
+                        int cmp = r == null ? 1 : l == null ? -1 : r.reference().compareTo(l.reference());
+                        if (cmp < 0) {
+                            unmatchedRemote(job, r);
+                            r = remote.next();
+                        } else if (cmp > 0) {
+                            unmatchedLocal(job, l);
+                            l = nextLocal(locals, l);
+                        } else {
+                            compare(job, r, l, corrections);
+                            r = remote.next();
+                            l = nextLocal(locals, l);
+                        }
+                    }
+                }
+            });
+        }
+
+        // Writes happen after the cursor is closed
+        applyCorrections(job, corrections);
+    }
+
+    private void stitch(Job job) {
+        List<SettlementRecord> batch = new ArrayList<>(LOOKUP_BATCH);
+        SettlementRecord record;
+        while ((record = job.unmatchedRemote.poll()) != null) {
+            batch.add(record);
+            if (batch.size() == LOOKUP_BATCH) {
+                stitchBatch(job, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            stitchBatch(job, batch);
+        }
+
+        for (LocalPayment local : job.unmatchedLocal.values()) {
+            job.tally.missingAtProvider.increment();
+            job.report.write(Discrepancy.MISSING_AT_PROVIDER, local, null, false);
+        }
+    }
+
+    private void stitchBatch(Job job, List<SettlementRecord> batch) {
+        Map<String, SettlementRecord> remotes = new HashMap<>();
+        for (SettlementRecord record : batch) {
+            remotes.merge(record.reference(), record, ReconciliationService::stronger);
+        }
+        Map<String, LocalPayment> locals = new HashMap<>();
+        for (LocalPayment local : findLocal(job.provider, job.accountId, remotes.keySet())) {
+            locals.put(local.reference(), local);
+        }
+
+        List<Mismatch> corrections = new ArrayList<>();
+        for (SettlementRecord remote : remotes.values()) {
+            LocalPayment local = locals.get(remote.reference());
+            if (local == null) {
+                job.tally.missingLocally.increment();
+                job.report.write(Discrepancy.MISSING_LOCALLY, null, remote, false);
+            } else {
+                job.unmatchedLocal.remove(local.reference());
+                compare(job, remote, local, corrections);
+            }
+        }
+        applyCorrections(job, corrections);
+    }
+
+    private void compare(Job job, SettlementRecord remote, LocalPayment local, List<Mismatch> corrections) {
+        job.tally.matched.increment();
+
+        if (remote.amount() != null && local.amount() != null
+                && (!remote.amount().equals(local.amount())
+                || (remote.currency() != null && local.currency() != null
+                && !remote.currency().equalsIgnoreCase(local.currency())))) {
+            job.tally.amountMismatches.increment();
+            job.report.write(Discrepancy.AMOUNT_MISMATCH, local, remote, false);
+        }
+
+        if (remote.status() != null && remote.status() != local.status()) {
+            job.tally.statusMismatches.increment();
+            if (job.autoCorrect && local.status().canTransitionTo(remote.status())) {
+                corrections.add(new Mismatch(local, remote)); // reported once applied
+            } else {
+                job.report.write(Discrepancy.STATUS_MISMATCH, local, remote, false);
+            }
+        }
+    }
+
+    private void applyCorrections(Job job, List<Mismatch> corrections) {
+        for (Mismatch mismatch : corrections) {
+            boolean corrected = correct(job, mismatch.local().id(), mismatch.remote().status());
+            if (corrected) {
+                job.tally.corrected.increment();
+            }
+            job.report.write(Discrepancy.STATUS_MISMATCH, mismatch.local(), mismatch.remote(), corrected);
+        }
+    }
+
+    private boolean correct(Job job, Long paymentId, PaymentStatus target) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            PaymentEntity payment = paymentRepository.findById(paymentId).orElse(null);
+            if (payment == null) {
+                return false;
+            }
+            PaymentStatus before = payment.getStatus();
+            if (!paymentStateMachine.transition(payment, target, null)) {
+                return false;
+            }
+            log.warn("Reconciliation {} corrected payment {} (order {}): {} → {}",
+                    job.runId, paymentId, payment.getOrderId(), before, target);
+            orderOutboxService.enqueue(
+                    payment.getOrderId(),
+                    new PaymentStatusUpdateRequest(target, payment.getProviderPaymentId())
+            );
+            return true;
+        }));
+    }
+
+    private void unmatchedRemote(Job job, SettlementRecord record) {
+        countUnmatched(job);
+        job.unmatchedRemote.add(record);
+    }
+
+    // Only payments we consider PAID are expected in a settlement; the rest are abandoned checkouts
+    private void unmatchedLocal(Job job, LocalPayment local) {
+        if (local.status() == PaymentStatus.PAID) {
+            countUnmatched(job);
+            job.unmatchedLocal.put(local.reference(), local);
+        }
+    }
+
+    private void countUnmatched(Job job) {
+        if (job.unmatched.incrementAndGet() > maxUnmatched) {
+            throw new IllegalStateException("More than " + maxUnmatched
+                    + " unmatched records: check the export's provider and date range");
+        }
+    }
+
+    private Stream<LocalPayment> streamLocal(PaymentProvider provider, String accountId, Instant from, Instant to) {
+        return switch (provider) {
+            case STRIPE -> paymentRepository.streamByPaymentId(provider, accountId, from, to);
+            case RAZORPAY -> paymentRepository.streamByOrderId(provider, accountId, from, to);
+            case SIMULATED -> throw new IllegalArgumentException("No settlement exports for " + provider);
+        };
+    }
+
+    private List<LocalPayment> findLocal(PaymentProvider provider, String accountId, Collection<String> references) {
+        return switch (provider) {
+            case STRIPE -> paymentRepository.findByPaymentIds(provider, accountId, references);
+            case RAZORPAY -> paymentRepository.findByOrderIds(provider, accountId, references);
+            case SIMULATED -> throw new IllegalArgumentException("No settlement exports for " + provider);
+        };
+    }
+
+    /**
+     * The merge relies on the database ordering references exactly like {@link String#compareTo}.
+     */
+    private static LocalPayment nextLocal(Iterator<LocalPayment> locals, LocalPayment previous) {
+        if (!locals.hasNext()) {
+            return null;
+        }
+        LocalPayment next = locals.next();
+        if (previous != null && next.reference().compareTo(previous.reference()) <= 0) {
+            throw new IllegalStateException("Payments are not ordered by binary reference ("
+                    + previous.reference() + " before " + next.reference()
+                    + "); the provider reference columns need a binary collation, e.g. COLLATE \"C\"");
+        }
+        return next;
+    }
+
+    // An export may list a payment more than once (e.g. authorised, then captured): the furthest status wins
+    private static SettlementRecord stronger(SettlementRecord a, SettlementRecord b) {
+        return rank(b.status()) > rank(a.status()) ? b : a;
+    }
+
+    private static int rank(PaymentStatus status) {
+        if (status == null) return 0;
+        return switch (status) {
+            case CREATED -> 1;
+            case PENDING -> 2;
+            case FAILED -> 3;
+            case PAID -> 4;
+        };
+    }
+
+    /**
+     * Settlement records of one day in reference order, duplicates folded into one.
+     */
+    private static final class Remote {
+
+        private final SettlementSorter.Run run;
+        private SettlementRecord lookahead;
+
+        Remote(SettlementSorter.Run run) {
+            this.run = run;
+            this.lookahead = run.next();
+        }
+
+        SettlementRecord next() {
+            SettlementRecord record = lookahead;
+            if (record == null) {
+                return null;
+            }
+            SettlementRecord following;
+            while ((following = run.next()) != null && following.reference().equals(record.reference())) {
+                record = stronger(record, following);
+            }
+            lookahead = following;
+            return record;
+        }
+    }
+
+    private record Mismatch(LocalPayment local, SettlementRecord remote) {}
+
+    private record Job(
+            Long runId,
+            PaymentProvider provider,
+            String accountId,
+            boolean autoCorrect,
+            SettlementSorter sorter,
+            ReconciliationReport report,
+            Tally tally,
+            Queue<SettlementRecord> unmatchedRemote,
+            Map<String, LocalPayment> unmatchedLocal,
+            AtomicInteger unmatched
+    ) {
+        Job(Long runId, PaymentProvider provider, String accountId, boolean autoCorrect, SettlementSorter sorter,
+            ReconciliationReport report, Tally tally) {
+            this(runId, provider, accountId, autoCorrect, sorter, report, tally,
+                    new ConcurrentLinkedQueue<>(), new ConcurrentHashMap<>(), new AtomicInteger());
+        }
+    }
+
+    private static final class Tally {
+
+        long rowsRead;
+        long rowsSkipped;
+        final LongAdder matched = new LongAdder();
+        final LongAdder missingLocally = new LongAdder();
+        final LongAdder missingAtProvider = new LongAdder();
+        final LongAdder statusMismatches = new LongAdder();
+        final LongAdder amountMismatches = new LongAdder();
+        final LongAdder corrected = new LongAdder();
+
+        void copyTo(ReconciliationRunEntity run) {
+            run.setRowsRead(rowsRead);
+            run.setRowsSkipped(rowsSkipped);
+            run.setMatched(matched.sum());
+            run.setMissingLocally(missingLocally.sum());
+            run.setMissingAtProvider(missingAtProvider.sum());
+            run.setStatusMismatches(statusMismatches.sum());
+            run.setAmountMismatches(amountMismatches.sum());
+            run.setCorrected(corrected.sum());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.manasgoyal.payment.reconciliation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams a settlement export one row at a time: CSV with a header row, or JSON lines
+ * ({@code .jsonl} / {@code .ndjson}); either may be gzipped ({@code .gz}).
+ * Columns are looked up by name, so the provider's own export layout works as is.
+ */
+final class SettlementFileReader implements Closeable {
+
+    // Column names, first present wins: our own normalised layout, then the provider's
+    private static final Map<PaymentProvider, List<String>> REFERENCE_COLUMNS = Map.of(
+            PaymentProvider.STRIPE, List.of("reference", "payment_intent", "payment_intent_id"),
+            PaymentProvider.RAZORPAY, List.of("reference", "order_id")
+    );
+    private static final List<String> STATUS_COLUMNS = List.of("status");
+    private static final List<String> AMOUNT_COLUMNS = List.of("amount");
+    private static final List<String> CURRENCY_COLUMNS = List.of("currency");
+    private static final List<String> TIME_COLUMNS = List.of("created", "created_at", "date");
+
+    private static final Map<String, PaymentStatus> STATUSES = Map.ofEntries(
+            Map.entry("succeeded", PaymentStatus.PAID),
+            Map.entry("paid", PaymentStatus.PAID),
+            Map.entry("captured", PaymentStatus.PAID),
+            Map.entry("settled", PaymentStatus.PAID),
+            Map.entry("available", PaymentStatus.PAID),
+            Map.entry("failed", PaymentStatus.FAILED),
+            Map.entry("created", PaymentStatus.PENDING),
+            Map.entry("authorized", PaymentStatus.PENDING),
+            Map.entry("pending", PaymentStatus.PENDING),
+            Map.entry("processing", PaymentStatus.PENDING)
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BufferedReader reader;
+    private final boolean json;
+    private final List<String> referenceColumns;
+    private int[] csvColumns; // reference, status, amount, currency, time
+    private long skipped;
+
+    private SettlementFileReader(BufferedReader reader, boolean json, PaymentProvider provider) {
+        this.reader = reader;
+        this.json = json;
+        this.referenceColumns = REFERENCE_COLUMNS.get(provider);
+    }
+
+    static boolean supports(PaymentProvider provider) {
+        return REFERENCE_COLUMNS.containsKey(provider);
+    }
+
+    static SettlementFileReader open(Path file, PaymentProvider provider) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - 3);
+        }
+        try {
+            var in = Files.newInputStream(file);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    gzip ? new GZIPInputStream(in, 64 * 1024) : in, StandardCharsets.UTF_8), 64 * 1024);
+            return new SettlementFileReader(reader, name.endsWith(".jsonl") || name.endsWith(".ndjson"), provider);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open settlement export " + file, e);
+        }
+    }
+
+    /**
+     * Next usable row, or null at the end of the file. Rows without a reference or with
+     * unreadable values are counted in {@link #skipped()}.
+     */
+    SettlementRecord next() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (!json && csvColumns == null) {
+                    csvColumns = header(splitCsv(line));
+                    continue;
+                }
+                try {
+                    SettlementRecord record = json ? fromJson(line) : fromCsv(splitCsv(line));
+                    if (record != null) {
+                        return record;
+                    }
+                } catch (RuntimeException e) {
+                    // unreadable row: counted below
+                }
+                skipped++;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long skipped() {
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int[] header(List<String> names) {
+        List<String> normalised = names.stream().map(n -> n.trim().toLowerCase(Locale.ROOT)).toList();
+        int[] columns = {
+                indexOf(normalised, referenceColumns),
+                indexOf(normalised, STATUS_COLUMNS),
+                indexOf(normalised, AMOUNT_COLUMNS),
+                indexOf(normalised, CURRENCY_COLUMNS),
+                indexOf(normalised, TIME_COLUMNS)
+        };
+        if (columns[0] < 0 || columns[4] < 0) {
+            throw new IllegalArgumentException("Settlement export needs one of " + referenceColumns
+                    + " and one of " + TIME_COLUMNS + " columns, found " + normalised);
+        }
+        return columns;
+    }
+
+    private SettlementRecord fromCsv(List<String> fields) {
+        return record(field(fields, csvColumns[0]), field(fields, csvColumns[1]), field(fields, csvColumns[2]),
+                field(fields, csvColumns[3]), field(fields, csvColumns[4]));
+    }
+
+    private SettlementRecord fromJson(String line) throws IOException {
+        JsonNode row = objectMapper.readTree(line);
+        return record(text(row, referenceColumns), text(row, STATUS_COLUMNS), text(row, AMOUNT_COLUMNS),
+                text(row, CURRENCY_COLUMNS), text(row, TIME_COLUMNS));
+    }
+
+    private static SettlementRecord record(String reference, String status, String amount, String currency, String time) {
+        if (reference == null || time == null) {
+            return null;
+        }
+        String code = currency != null ? currency.toUpperCase(Locale.ROOT) : null;
+        return new SettlementRecord(
+                reference,
+                status != null ? STATUSES.get(status.toLowerCase(Locale.ROOT)) : null,
+                amount != null ? minorUnits(amount, code) : null,
+                code,
+                instant(time)
+        );
+    }
+
+    // "49900" is already in the smallest unit; "499.00" is converted using the currency's decimals
+    private static long minorUnits(String amount, String currency) {
+        if (amount.indexOf('.') < 0) {
+            return Long.parseLong(amount);
+        }
+        int digits = currency != null ? Currency.getInstance(currency).getDefaultFractionDigits() : 2;
+        return new BigDecimal(amount).movePointRight(Math.max(digits, 0)).longValueExact();
+    }
+
+    // epoch seconds, ISO-8601 with offset, or "yyyy-MM-dd HH:mm:ss" in UTC
+    private static Instant instant(String time) {
+        if (time.chars().allMatch(Character::isDigit)) {
+            return Instant.ofEpochSecond(Long.parseLong(time));
+        }
+        String iso = time.replace(' ', 'T');
+        if (iso.endsWith("Z") || iso.lastIndexOf('+') > 10 || iso.lastIndexOf('-') > 10) {
+            return OffsetDateTime.parse(iso).toInstant();
+        }
+        return LocalDateTime.parse(iso).toInstant(ZoneOffset.UTC);
+    }
+
+    private static int indexOf(List<String> names, List<String> candidates) {
+        for (String candidate : candidates) {
+            int i = names.indexOf(candidate);
+            if (i >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode row, List<String> candidates) {
+        for (String candidate : candidates) {
+            JsonNode value = row.get(candidate);
+            if (value != null && !value.isNull() && !value.asText().isEmpty()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    // RFC 4180 fields: quoted fields may contain commas and doubled quotes
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,16 @@
+package com.manasgoyal.payment.reconciliation;
+
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.time.Instant;
+
+/**
+ * One row of a provider settlement export, normalised.
+ */
+record SettlementRecord(
+        String reference,       // Stripe payment_intent / Razorpay order_id
+        PaymentStatus status,   // null if the export status means nothing to us (refunds, disputes, ...)
+        Long amount,            // smallest currency unit
+        String currency,
+        Instant occurredAt      // only used for partitioning; not kept in sorted runs
+) {}
@@ -0,0 +1,191 @@
+package com.manasgoyal.payment.reconciliation;
+
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * External sort of a settlement export, partitioned by day. At most {@code runSize} records are held
+ * in memory; each time the buffer fills, every day's records are sorted by reference and written
+ * to a run file. A partition is read back as a k-way merge of its runs.
+ */
+final class SettlementSorter implements Closeable {
+
+    private static final Comparator<SettlementRecord> BY_REFERENCE = Comparator.comparing(SettlementRecord::reference);
+    private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+    private final Path workDir;
+    private final int runSize;
+    private final Map<LocalDate, List<SettlementRecord>> buffers = new HashMap<>();
+    private final Map<LocalDate, List<Path>> runs = new HashMap<>();
+    private int buffered;
+    private int runCount;
+
+    SettlementSorter(int runSize) {
+        this.runSize = runSize;
+        try {
+            this.workDir = Files.createTempDirectory("reconciliation-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void add(LocalDate day, SettlementRecord record) {
+        buffers.computeIfAbsent(day, d -> new ArrayList<>()).add(record);
+        if (++buffered >= runSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Writes what is still buffered; call once after the last {@link #add}.
+     */
+    void finish() {
+        spill();
+    }
+
+    /**
+     * The day's records in reference order. Safe to call from several threads for different days.
+     */
+    Run open(LocalDate day) {
+        return new Run(runs.getOrDefault(day, List.of()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> files = Files.list(workDir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDir);
+    }
+
+    private void spill() {
+        buffers.forEach((day, records) -> {
+            if (records.isEmpty()) {
+                return;
+            }
+            records.sort(BY_REFERENCE);
+            Path file = workDir.resolve(day + "-" + (runCount++) + ".run");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+                out.writeInt(records.size());
+                for (SettlementRecord record : records) {
+                    out.writeUTF(record.reference());
+                    out.writeByte(record.status() != null ? record.status().ordinal() : -1);
+                    out.writeBoolean(record.amount() != null);
+                    out.writeLong(record.amount() != null ? record.amount() : 0);
+                    out.writeUTF(record.currency() != null ? record.currency() : "");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write sort run " + file, e);
+            }
+            runs.computeIfAbsent(day, d -> new ArrayList<>()).add(file);
+            records.clear();
+        });
+        buffered = 0;
+    }
+
+    /**
+     * K-way merge over the run files of one day.
+     */
+    static final class Run implements Closeable {
+
+        private final PriorityQueue<RunFile> heads = new PriorityQueue<>(
+                Comparator.comparing((RunFile r) -> r.head.reference()));
+        private final List<RunFile> files = new ArrayList<>();
+
+        private Run(List<Path> paths) {
+            try {
+                for (Path path : paths) {
+                    RunFile file = new RunFile(path);
+                    files.add(file);
+                    if (file.advance()) {
+                        heads.add(file);
+                    }
+                }
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Next record in reference order, or null when every run is exhausted.
+         */
+        SettlementRecord next() {
+            RunFile file = heads.poll();
+            if (file == null) {
+                return null;
+            }
+            SettlementRecord record = file.head;
+            try {
+                if (file.advance()) {
+                    heads.add(file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return record;
+        }
+
+        @Override
+        public void close() {
+            closeQuietly();
+        }
+
+        private void closeQuietly() {
+            for (RunFile file : files) {
+                try {
+                    file.in.close();
+                } catch (IOException ignored) {
+                    // temp file, deleted with the work dir
+                }
+            }
+        }
+    }
+
+    private static final class RunFile {
+
+        final DataInputStream in;
+        int remaining;
+        SettlementRecord head;
+
+        RunFile(Path path) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024));
+            this.remaining = in.readInt();
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                head = null;
+                return false;
+            }
+            remaining--;
+            String reference = in.readUTF();
+            byte status = in.readByte();
+            boolean hasAmount = in.readBoolean();
+            long amount = in.readLong();
+            String currency = in.readUTF();
+            head = new SettlementRecord(reference, status >= 0 ? STATUSES[status] : null,
+                    hasAmount ? amount : null, currency.isEmpty() ? null : currency, null);
+            return true;
+        }
+    }
+}
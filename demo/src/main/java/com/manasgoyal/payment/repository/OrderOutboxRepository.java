@@ -0,0 +1,37 @@
+package com.manasgoyal.payment.repository;
+
+import com.manasgoyal.payment.entity.OrderOutboxEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEntity, Long> {
+
+    /**
+     * Row-locks deliverable events. Only the oldest pending event of each order (by createdAt, then id)
+     * qualifies, so notifications for one order are delivered in the order they were written.
+     */
+    @Query(value = """
+            SELECT o.* FROM order_outbox o
+            WHERE o.status = 'PENDING'
+              AND o.available_at <= :now
+              AND (o.locked_until IS NULL OR o.locked_until < :now)
+              AND NOT EXISTS (
+                  SELECT 1 FROM order_outbox p
+                  WHERE p.order_id = o.order_id AND p.status = 'PENDING'
+                    AND (p.created_at < o.created_at OR (p.created_at = o.created_at AND p.id < o.id))
+              )
+            ORDER BY o.created_at, o.id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OrderOutboxEntity> lockDeliverable(Instant now, int limit);
+
+    @Modifying
+    @Query("UPDATE OrderOutboxEntity o SET o.lockedUntil = :lockedUntil, o.attempts = o.attempts + 1 WHERE o.id IN :ids")
+    int lease(Collection<Long> ids, Instant lockedUntil);
+}
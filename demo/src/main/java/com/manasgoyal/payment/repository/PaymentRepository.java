@@ -1,15 +1,162 @@
 package com.manasgoyal.payment.repository;
 
+import com.manasgoyal.payment.dto.PaymentStatusView;
 import com.manasgoyal.payment.entity.PaymentEntity;
-import jakarta.validation.constraints.NotNull;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.export.PaymentExportRow;
+import com.manasgoyal.payment.reconciliation.LocalPayment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface PaymentRepository extends JpaRepository<PaymentEntity, UUID> {
+public interface PaymentRepository extends JpaRepository<PaymentEntity, Long> {
     Optional<PaymentEntity> findByProviderSessionId(String providerSessionId);
-    Optional<PaymentEntity> findByOrderId(@NotNull UUID orderId);
+    Optional<PaymentEntity> findByOrderIdAndProvider(UUID orderId, PaymentProvider provider);
+    List<PaymentEntity> findAllByOrderId(UUID orderId);
     Optional<PaymentEntity> findByProviderPaymentId(String providerPaymentId);
+    Optional<PaymentEntity> findByProviderOrderId(String providerOrderId);
 
+    /**
+     * Conditional status change: updates nothing (returns 0) unless the committed status is one of
+     * {@code sources}, so concurrent transitions cannot overwrite each other. Keeps the current
+     * provider payment id when {@code providerPaymentId} is null. Bulk updates skip {@code @PreUpdate},
+     * so {@code updatedAt} is set here.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE PaymentEntity p
+            SET p.status = :target,
+                p.providerPaymentId = COALESCE(:providerPaymentId, p.providerPaymentId),
+                p.version = p.version + 1,
+                p.updatedAt = :now
+            WHERE p.id = :id AND p.status IN :sources
+            """)
+    int transition(Long id, Collection<PaymentStatus> sources, PaymentStatus target, String providerPaymentId, Instant now);
+
+    /**
+     * Row-locks CREATED / PENDING payments not saved since {@code staleBefore} and due for a check.
+     * SKIP LOCKED lets several sweepers claim disjoint batches.
+     */
+    @Query(value = """
+            SELECT p.* FROM payments p
+            WHERE p.status IN ('CREATED', 'PENDING')
+              AND p.updated_at < :staleBefore
+              AND (p.next_check_at IS NULL OR p.next_check_at <= :now)
+            ORDER BY p.updated_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<PaymentEntity> lockStale(Instant staleBefore, Instant now, int limit);
+
+    // No version bump: a concurrent checkout or webhook must not fail because the sweeper looked
+    @Modifying
+    @Query("UPDATE PaymentEntity p SET p.nextCheckAt = :nextCheckAt WHERE p.id IN :ids")
+    int deferChecks(Collection<Long> ids, Instant nextCheckAt);
+
+    interface OrderReference {
+        UUID getOrderId();
+        String getProviderSessionId();
+        String getProviderPaymentId();
+        String getProviderOrderId();
+    }
+
+    /**
+     * Orders behind provider references (Stripe session / payment intent ids, Razorpay order ids), in one query.
+     */
+    @Query("""
+            SELECT p.orderId AS orderId, p.providerSessionId AS providerSessionId,
+                   p.providerPaymentId AS providerPaymentId, p.providerOrderId AS providerOrderId
+            FROM PaymentEntity p
+            WHERE p.providerSessionId IN :references
+               OR p.providerPaymentId IN :references
+               OR p.providerOrderId IN :references
+            """)
+    List<OrderReference> findOrderReferences(Collection<String> references);
+
+    // Read path: selects the view columns only, no managed entities
+    @Query("""
+            SELECT new com.manasgoyal.payment.dto.PaymentStatusView(
+                p.orderId, p.provider, p.status, p.providerPaymentId, p.amount, p.currency)
+            FROM PaymentEntity p
+            WHERE p.orderId = :orderId
+            ORDER BY p.createdAt
+            """)
+    List<PaymentStatusView> findStatusViewsByOrderId(UUID orderId);
+
+    @Query("""
+            SELECT new com.manasgoyal.payment.dto.PaymentStatusView(
+                p.orderId, p.provider, p.status, p.providerPaymentId, p.amount, p.currency)
+            FROM PaymentEntity p
+            WHERE p.orderId IN :orderIds
+            """)
+    List<PaymentStatusView> findStatusViewsByOrderIdIn(Collection<UUID> orderIds);
+
+    // Reconciliation join keys: Stripe exports carry the payment intent, Razorpay exports the order id.
+    // Streamed in key order for a sort-merge; the caller keeps the transaction open while reading.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT new com.manasgoyal.payment.reconciliation.LocalPayment(
+                p.id, p.providerPaymentId, p.status, p.amount, p.currency)
+            FROM PaymentEntity p
+            WHERE p.provider = :provider AND p.accountId = :accountId AND p.providerPaymentId IS NOT NULL
+              AND p.createdAt >= :from AND p.createdAt < :to
+            ORDER BY p.providerPaymentId
+            """)
+    Stream<LocalPayment> streamByPaymentId(PaymentProvider provider, String accountId, Instant from, Instant to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT new com.manasgoyal.payment.reconciliation.LocalPayment(
+                p.id, p.providerOrderId, p.status, p.amount, p.currency)
+            FROM PaymentEntity p
+            WHERE p.provider = :provider AND p.accountId = :accountId AND p.providerOrderId IS NOT NULL
+              AND p.createdAt >= :from AND p.createdAt < :to
+            ORDER BY p.providerOrderId
+            """)
+    Stream<LocalPayment> streamByOrderId(PaymentProvider provider, String accountId, Instant from, Instant to);
+
+    @Query("""
+            SELECT new com.manasgoyal.payment.reconciliation.LocalPayment(
+                p.id, p.providerPaymentId, p.status, p.amount, p.currency)
+            FROM PaymentEntity p
+            WHERE p.provider = :provider AND p.accountId = :accountId AND p.providerPaymentId IN :references
+            """)
+    List<LocalPayment> findByPaymentIds(PaymentProvider provider, String accountId, Collection<String> references);
+
+    @Query("""
+            SELECT new com.manasgoyal.payment.reconciliation.LocalPayment(
+                p.id, p.providerOrderId, p.status, p.amount, p.currency)
+            FROM PaymentEntity p
+            WHERE p.provider = :provider AND p.accountId = :accountId AND p.providerOrderId IN :references
+            """)
+    List<LocalPayment> findByOrderIds(PaymentProvider provider, String accountId, Collection<String> references);
+
+    // Exports: one keyset page in id order, streamed through a forward-only cursor; null filters match everything
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT new com.manasgoyal.payment.export.PaymentExportRow(
+                p.id, p.orderId, p.provider, p.accountId, p.status, p.providerPaymentId, p.providerSessionId,
+                p.providerOrderId, p.amount, p.currency, p.createdAt, p.updatedAt)
+            FROM PaymentEntity p
+            WHERE p.id > :afterId
+              AND (:provider IS NULL OR p.provider = :provider)
+              AND (:status IS NULL OR p.status = :status)
+              AND (:from IS NULL OR p.createdAt >= :from)
+              AND (:to IS NULL OR p.createdAt < :to)
+            ORDER BY p.id
+            """)
+    Stream<PaymentExportRow> streamExportPage(long afterId, PaymentProvider provider, PaymentStatus status,
+                                              Instant from, Instant to, Limit limit);
 }
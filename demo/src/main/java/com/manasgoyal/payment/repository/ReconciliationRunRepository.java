@@ -0,0 +1,7 @@
+package com.manasgoyal.payment.repository;
+
+import com.manasgoyal.payment.entity.ReconciliationRunEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRunEntity, Long> {
+}
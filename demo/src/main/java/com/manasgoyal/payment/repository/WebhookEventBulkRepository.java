@@ -0,0 +1,35 @@
+package com.manasgoyal.payment.repository;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Bulk writes to {@code webhook_events} for inbox batches and backfills.
+ */
+public interface WebhookEventBulkRepository {
+
+    /**
+     * One stored webhook event; {@code rawPayload} is the body as received, it is compressed on write.
+     * A null {@code accountId} stores the event for the default account.
+     */
+    record NewWebhookEvent(
+            PaymentProvider provider,
+            String accountId,
+            String eventId,
+            String eventType,
+            byte[] rawPayload,
+            WebhookEventStatus status,
+            Instant receivedAt
+    ) {}
+
+    /**
+     * Inserts the events with multi-row {@code INSERT ... ON CONFLICT DO NOTHING} statements,
+     * skipping (provider, eventId) pairs that are already stored.
+     *
+     * @return number of rows actually inserted
+     */
+    int insertAllIfAbsent(List<NewWebhookEvent> events);
+}
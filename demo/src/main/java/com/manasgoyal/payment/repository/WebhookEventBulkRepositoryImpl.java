@@ -0,0 +1,86 @@
+package com.manasgoyal.payment.repository;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.entity.GzipPayloadConverter;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+class WebhookEventBulkRepositoryImpl implements WebhookEventBulkRepository {
+
+    private static final GzipPayloadConverter PAYLOAD_CODEC = new GzipPayloadConverter();
+
+    private static final String INSERT = """
+            INSERT INTO webhook_events
+                (id, provider, account_id, event_id, event_type, payload, status, attempts, available_at, processed_at, received_at)
+            VALUES
+            """;
+    private static final String ROW = "(nextval('webhook_events_seq'), ?, ?, ?, ?, ?, ?, 0, ?, ?, ?)";
+    private static final String ON_CONFLICT = "\nON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int rowsPerStatement;
+    private final String fullStatement;
+
+    WebhookEventBulkRepositoryImpl(
+            JdbcTemplate jdbcTemplate,
+            @Value("${payment.webhooks.bulk.rows-per-statement:500}") int rowsPerStatement
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowsPerStatement = Math.max(1, rowsPerStatement);
+        this.fullStatement = statement(this.rowsPerStatement);
+    }
+
+    @Override
+    @Transactional
+    public int insertAllIfAbsent(List<NewWebhookEvent> events) {
+        int inserted = 0;
+        for (int from = 0; from < events.size(); from += rowsPerStatement) {
+            List<NewWebhookEvent> chunk = events.subList(from, Math.min(events.size(), from + rowsPerStatement));
+            String sql = chunk.size() == rowsPerStatement ? fullStatement : statement(chunk.size());
+            inserted += jdbcTemplate.update(sql, ps -> bind(ps, chunk));
+        }
+        return inserted;
+    }
+
+    private static void bind(PreparedStatement ps, List<NewWebhookEvent> chunk) throws SQLException {
+        int i = 1;
+        for (NewWebhookEvent event : chunk) {
+            Instant receivedAt = event.receivedAt() != null ? event.receivedAt() : Instant.now();
+            OffsetDateTime at = OffsetDateTime.ofInstant(receivedAt, ZoneOffset.UTC);
+
+            ps.setString(i++, event.provider().name());
+            ps.setString(i++, event.accountId() != null ? event.accountId() : ProviderAccountRegistry.DEFAULT_ACCOUNT);
+            ps.setString(i++, event.eventId());
+            ps.setString(i++, event.eventType());
+            ps.setBytes(i++, PAYLOAD_CODEC.convertToDatabaseColumn(event.rawPayload()));
+            ps.setString(i++, event.status().name());
+            ps.setObject(i++, at, Types.TIMESTAMP_WITH_TIMEZONE);                  // available_at
+            if (event.status() == WebhookEventStatus.PROCESSED) {
+                ps.setObject(i++, at, Types.TIMESTAMP_WITH_TIMEZONE);              // processed_at
+            } else {
+                ps.setNull(i++, Types.TIMESTAMP_WITH_TIMEZONE);
+            }
+            ps.setObject(i++, at, Types.TIMESTAMP_WITH_TIMEZONE);                  // received_at
+        }
+    }
+
+    private static String statement(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + rows * (ROW.length() + 2) + ON_CONFLICT.length());
+        sql.append(INSERT);
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) sql.append(",\n");
+            sql.append(ROW);
+        }
+        return sql.append(ON_CONFLICT).toString();
+    }
+}
@@ -2,8 +2,157 @@ package com.manasgoyal.payment.repository;
 
 import com.manasgoyal.payment.entity.WebhookEventEntity;
 import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.export.WebhookEventExportRow;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface WebhookEventRepository extends JpaRepository<WebhookEventEntity, Long> {
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEventEntity, Long>, WebhookEventBulkRepository {
     boolean existsByProviderAndEventId(PaymentProvider provider, String eventId);
+
+    interface EventKey {
+        PaymentProvider getProvider();
+        String getEventId();
+    }
+
+    /**
+     * Single-statement dedupe: returns 0 when (provider, eventId) already exists, without the
+     * exists-then-insert race. Payload must already be encoded for the column.
+     * No conflict target: uk_webhook_provider_event is the only unique key besides the generated id.
+     * The id comes from the entity's pooled sequence: each nextval is a block of its own, this row uses one id of it.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO webhook_events
+                (id, provider, account_id, event_id, event_type, payload, status, attempts, available_at, processed_at, received_at)
+            VALUES
+                (nextval('webhook_events_seq'), :provider, :accountId, :eventId, :eventType, :payload, :status, 0, :now,
+                 CASE WHEN :status = 'PROCESSED' THEN CAST(:now AS TIMESTAMP(6) WITH TIME ZONE) END, :now)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(String provider, String accountId, String eventId, String eventType, byte[] payload, String status, Instant now);
+
+    @Query("""
+            SELECT e.provider AS provider, e.eventId AS eventId FROM WebhookEventEntity e
+            WHERE e.receivedAt >= :since
+            ORDER BY e.id DESC
+            """)
+    List<EventKey> findRecentKeys(Instant since, Pageable page);
+
+    /**
+     * Next page of a replay, in id order after {@code afterId} (keyset: cost does not grow with the offset).
+     * Null filters match everything.
+     */
+    @Query("""
+            SELECT e FROM WebhookEventEntity e
+            WHERE e.id > :afterId
+              AND e.status IN :statuses
+              AND (:provider IS NULL OR e.provider = :provider)
+              AND (:eventType IS NULL OR e.eventType = :eventType)
+              AND (:receivedFrom IS NULL OR e.receivedAt >= :receivedFrom)
+              AND (:receivedTo IS NULL OR e.receivedAt < :receivedTo)
+            ORDER BY e.id
+            """)
+    List<WebhookEventEntity> findReplayPage(long afterId, Collection<WebhookEventStatus> statuses, PaymentProvider provider,
+                                            String eventType, Instant receivedFrom, Instant receivedTo, Pageable page);
+
+    @Modifying
+    @Query("""
+            UPDATE WebhookEventEntity e
+            SET e.status = 'PROCESSED', e.processedAt = :now, e.lastError = NULL
+            WHERE e.id = :id AND e.status <> 'PROCESSING'
+            """)
+    int markReplayed(Long id, Instant now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM WebhookEventEntity e WHERE e.id = :id")
+    Optional<WebhookEventEntity> findLockedById(Long id);
+
+    /**
+     * Row-locks up to {@code limit} claimable inbox events, skipping rows another node already holds.
+     * Must run inside the same transaction as {@link #lease}.
+     */
+    @Query(value = """
+            SELECT id FROM webhook_events
+            WHERE (status = 'RECEIVED' AND available_at <= :now)
+               OR (status = 'PROCESSING' AND locked_until < :now)
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> lockClaimableIds(Instant now, int limit);
+
+    @Modifying
+    @Query("""
+            UPDATE WebhookEventEntity e
+            SET e.status = com.manasgoyal.payment.entity.enums.WebhookEventStatus.PROCESSING,
+                e.lockedBy = :owner, e.lockedUntil = :lockedUntil, e.attempts = e.attempts + 1
+            WHERE e.id IN :ids
+            """)
+    int lease(Collection<Long> ids, String owner, Instant lockedUntil);
+
+    @Query("""
+            SELECT e FROM WebhookEventEntity e
+            WHERE e.status = :status AND e.receivedAt < :before AND e.payload IS NOT NULL
+            ORDER BY e.id
+            """)
+    List<WebhookEventEntity> findArchivable(WebhookEventStatus status, Instant before, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE WebhookEventEntity e
+            SET e.payload = null, e.archiveRef = :archiveRef, e.archivedAt = :archivedAt
+            WHERE e.id IN :ids
+            """)
+    int markArchived(Collection<Long> ids, String archiveRef, Instant archivedAt);
+
+    /**
+     * Deletes up to {@code limit} archived events received before {@code before}; small batches
+     * keep each transaction (and its WAL / lock footprint) short.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            DELETE FROM webhook_events
+            WHERE id IN (
+                SELECT id FROM webhook_events
+                WHERE received_at < :before AND payload IS NULL
+                ORDER BY id
+                LIMIT :limit
+            )
+            """, nativeQuery = true)
+    int deleteArchivedBefore(Instant before, int limit);
+
+    // Exports: like PaymentRepository.streamExportPage, without the payload
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            SELECT new com.manasgoyal.payment.export.WebhookEventExportRow(
+                e.id, e.provider, e.accountId, e.eventId, e.eventType, e.status, e.attempts, e.receivedAt,
+                e.processedAt, e.lastError, e.archiveRef)
+            FROM WebhookEventEntity e
+            WHERE e.id > :afterId
+              AND (:provider IS NULL OR e.provider = :provider)
+              AND (:status IS NULL OR e.status = :status)
+              AND (:from IS NULL OR e.receivedAt >= :from)
+              AND (:to IS NULL OR e.receivedAt < :to)
+            ORDER BY e.id
+            """)
+    Stream<WebhookEventExportRow> streamExportPage(long afterId, PaymentProvider provider, WebhookEventStatus status,
+                                                   Instant from, Instant to, Limit limit);
 }
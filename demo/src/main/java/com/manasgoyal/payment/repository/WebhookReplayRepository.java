@@ -0,0 +1,7 @@
+package com.manasgoyal.payment.repository;
+
+import com.manasgoyal.payment.entity.WebhookReplayEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface WebhookReplayRepository extends JpaRepository<WebhookReplayEntity, Long> {
+}
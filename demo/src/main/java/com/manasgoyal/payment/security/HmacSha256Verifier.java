@@ -0,0 +1,157 @@
+package com.manasgoyal.payment.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Verifies hex encoded HMAC-SHA256 signatures against one or more active secrets
+ * (the first one is current, the rest are still accepted during a rotation).
+ * Initialised {@link Mac} instances are pooled per secret, so the hot path does no
+ * provider lookup or key setup, and signatures are compared in constant time.
+ */
+public final class HmacSha256Verifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final int MAX_POOLED_PER_SECRET = 64;
+
+    private final List<MacPool> pools;
+
+    public HmacSha256Verifier(List<String> secrets) {
+        if (secrets.isEmpty()) {
+            throw new IllegalArgumentException("At least one HMAC secret is required");
+        }
+        this.pools = secrets.stream().map(MacPool::new).toList();
+    }
+
+    /**
+     * Current secret plus comma separated previous secrets that are still accepted.
+     */
+    public static HmacSha256Verifier of(String current, String previous) {
+        List<String> secrets = new ArrayList<>();
+        secrets.add(current);
+        Arrays.stream(previous.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .forEach(secrets::add);
+        return new HmacSha256Verifier(secrets);
+    }
+
+    /**
+     * True if {@code hexSignature} is the HMAC of {@code data} under any active secret.
+     */
+    public boolean verifyHex(byte[] data, String hexSignature) {
+        return matches(hexSignature, mac -> mac.update(data));
+    }
+
+    /**
+     * True if {@code hexSignature} is the HMAC of {@code prefix} followed by {@code data}.
+     */
+    public boolean verifyHex(byte[] prefix, byte[] data, String hexSignature) {
+        return matches(hexSignature, mac -> {
+            mac.update(prefix);
+            mac.update(data);
+        });
+    }
+
+    /**
+     * True if {@code hexSignature} is the HMAC of {@code parts} joined by {@code separator}.
+     */
+    public boolean verifyHex(String hexSignature, char separator, String... parts) {
+        return matches(hexSignature, mac -> {
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) mac.update((byte) separator);
+                mac.update(parts[i].getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    /**
+     * Hex HMAC of {@code data} under the current secret.
+     */
+    public String signHex(byte[] data) {
+        MacPool pool = pools.get(0);
+        Mac mac = pool.borrow();
+        try {
+            return HexFormat.of().formatHex(mac.doFinal(data));
+        } finally {
+            pool.release(mac);
+        }
+    }
+
+    private boolean matches(String hexSignature, Consumer<Mac> input) {
+        byte[] expected = decodeHex(hexSignature);
+        if (expected == null) {
+            return false;
+        }
+
+        // current secret first, so the extra work only happens mid-rotation
+        for (MacPool pool : pools) {
+            Mac mac = pool.borrow();
+            try {
+                input.accept(mac);
+                if (MessageDigest.isEqual(mac.doFinal(), expected)) {
+                    return true;
+                }
+            } finally {
+                pool.release(mac);
+            }
+        }
+        return false;
+    }
+
+    private static byte[] decodeHex(String hex) {
+        if (hex == null || hex.length() != MAC_LENGTH * 2) {
+            return null;
+        }
+        try {
+            return HexFormat.of().parseHex(hex);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class MacPool {
+
+        private final SecretKeySpec key;
+        private final Queue<Mac> idle = new ConcurrentLinkedQueue<>();
+
+        MacPool(String secret) {
+            this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            idle.add(newMac()); // fail fast on a bad key
+        }
+
+        Mac borrow() {
+            Mac mac = idle.poll();
+            return mac != null ? mac : newMac();
+        }
+
+        void release(Mac mac) {
+            mac.reset();
+            // size() is O(n) but bounded by MAX_POOLED_PER_SECRET
+            if (idle.size() < MAX_POOLED_PER_SECRET) {
+                idle.offer(mac);
+            }
+        }
+
+        private Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC error", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.manasgoyal.payment.security;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Razorpay signature checks for webhooks (webhook secret) and checkout callbacks (key secret),
+ * with the secrets of the given account. An account without Razorpay credentials throws
+ * {@link com.manasgoyal.payment.account.UnknownAccountException}.
+ */
+@Component
+public class RazorpaySignatureVerifier {
+
+    private final ProviderAccountRegistry accounts;
+
+    public RazorpaySignatureVerifier(ProviderAccountRegistry accounts) {
+        this.accounts = accounts;
+    }
+
+    /**
+     * X-Razorpay-Signature = hex(HMAC(webhookSecret, raw body))
+     */
+    public boolean verifyWebhook(String accountId, byte[] rawBody, String signature) {
+        return accounts.get(accountId).razorpayWebhookVerifier().verifyHex(rawBody, signature);
+    }
+
+    /**
+     * razorpay_signature = hex(HMAC(keySecret, order_id + "|" + payment_id))
+     */
+    public boolean verifyPayment(String accountId, String razorpayOrderId, String razorpayPaymentId, String signature) {
+        return accounts.get(accountId).razorpayPaymentVerifier().verifyHex(signature, '|', razorpayOrderId, razorpayPaymentId);
+    }
+}
@@ -0,0 +1,66 @@
+package com.manasgoyal.payment.security;
+
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Stripe-Signature check on the raw body bytes, equivalent to {@code Webhook.constructEvent}
+ * without decoding the payload into a String first.
+ * Header format: {@code t=<unix seconds>,v1=<hex hmac>[,v1=...]}, signed payload {@code <t>.<body>}.
+ * Each account has its own webhook endpoint secret.
+ */
+@Component
+public class StripeSignatureVerifier {
+
+    private final ProviderAccountRegistry accounts;
+    private final long toleranceSeconds;
+
+    public StripeSignatureVerifier(
+            ProviderAccountRegistry accounts,
+            @Value("${stripe.webhookToleranceSeconds:300}") long toleranceSeconds
+    ) {
+        this.accounts = accounts;
+        this.toleranceSeconds = toleranceSeconds;
+    }
+
+    /**
+     * @throws com.manasgoyal.payment.account.UnknownAccountException if the account has no Stripe credentials
+     */
+    public boolean verify(String accountId, byte[] rawBody, String signatureHeader) {
+        if (signatureHeader == null) {
+            return false;
+        }
+        HmacSha256Verifier verifier = accounts.get(accountId).stripeWebhookVerifier();
+
+        String timestamp = null;
+        for (String item : signatureHeader.split(",")) {
+            if (item.startsWith("t=")) {
+                timestamp = item.substring(2).trim();
+            }
+        }
+        if (timestamp == null || !withinTolerance(timestamp)) {
+            return false;
+        }
+
+        byte[] prefix = (timestamp + ".").getBytes(StandardCharsets.US_ASCII);
+        for (String item : signatureHeader.split(",")) {
+            if (item.startsWith("v1=") && verifier.verifyHex(prefix, rawBody, item.substring(3).trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean withinTolerance(String timestamp) {
+        try {
+            long signedAt = Long.parseLong(timestamp);
+            return Math.abs(Instant.now().getEpochSecond() - signedAt) <= toleranceSeconds;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
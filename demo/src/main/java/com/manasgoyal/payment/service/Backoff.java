@@ -0,0 +1,21 @@
+package com.manasgoyal.payment.service;
+
+import java.time.Duration;
+
+final class Backoff {
+
+    private Backoff() {
+    }
+
+    /**
+     * 2^attempts seconds, capped at {@code max}.
+     */
+    static Duration exponential(int attempts, Duration max) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 20));
+        return delay.compareTo(max) > 0 ? max : delay;
+    }
+
+    static String truncate(String message, int maxLength) {
+        return message.length() <= maxLength ? message : message.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,121 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.client.OrderSummaryCache;
+import com.manasgoyal.payment.dto.CheckoutResponse;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.gateway.OrderServiceGateway;
+import com.manasgoyal.payment.gateway.ProviderUnavailableException;
+import com.manasgoyal.payment.provider.PaymentProviderAdapter;
+import com.manasgoyal.payment.provider.PaymentProviders;
+import com.manasgoyal.payment.provider.PaymentRouter;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The provider-neutral checkout: {@link PaymentRouter} picks the provider, and when it is unavailable
+ * (circuit open, bulkhead full, timeout) the next candidate is tried. An order with an open checkout
+ * stays with that provider, so a customer never holds two payable checkouts for one order.
+ */
+@Slf4j
+@Service
+public class CheckoutService {
+
+    private final PaymentRouter paymentRouter;
+    private final PaymentProviders paymentProviders;
+    private final PaymentRepository paymentRepository;
+    private final OrderServiceGateway orderServiceGateway; // ⭐ talk to order-service
+    private final OrderSummaryCache orderSummaryCache;
+    private final Map<PaymentProvider, Counter[]> checkouts = new EnumMap<>(PaymentProvider.class);
+
+    public CheckoutService(
+            PaymentRouter paymentRouter,
+            PaymentProviders paymentProviders,
+            PaymentRepository paymentRepository,
+            OrderServiceGateway orderServiceGateway,
+            OrderSummaryCache orderSummaryCache,
+            MeterRegistry meterRegistry
+    ) {
+        this.paymentRouter = paymentRouter;
+        this.paymentProviders = paymentProviders;
+        this.paymentRepository = paymentRepository;
+        this.orderServiceGateway = orderServiceGateway;
+        this.orderSummaryCache = orderSummaryCache;
+
+        for (PaymentProvider provider : PaymentProvider.values()) {
+            checkouts.put(provider, new Counter[]{
+                    checkoutCounter(meterRegistry, provider, "first"),
+                    checkoutCounter(meterRegistry, provider, "failover")
+            });
+        }
+    }
+
+    /**
+     * Creates the checkout at {@code provider}, or at the routed one when it is null.
+     */
+    public CheckoutResponse checkout(String accountId, UUID orderId, PaymentProvider provider) throws Exception {
+
+        List<PaymentProviderAdapter> candidates = candidates(orderId, provider);
+
+        ProviderUnavailableException unavailable = null;
+        for (int attempt = 0; attempt < candidates.size(); attempt++) {
+            PaymentProviderAdapter adapter = candidates.get(attempt);
+            try {
+                CheckoutResponse response = adapter.createCheckout(accountId, orderId);
+                checkouts.get(adapter.provider())[attempt == 0 ? 0 : 1].increment();
+                return response;
+            } catch (ProviderUnavailableException e) {
+                // the checkout was not created (or the payment stays CREATED for the sweeper): next provider
+                log.warn("Checkout for order {} failed over from {}: {}", orderId, adapter.provider(), e.getMessage());
+                unavailable = e;
+            }
+        }
+        throw unavailable;
+    }
+
+    private List<PaymentProviderAdapter> candidates(UUID orderId, PaymentProvider requested) {
+
+        // 1️⃣ An open checkout pins the order to its provider
+        for (PaymentEntity payment : paymentRepository.findAllByOrderId(orderId)) {
+            if (payment.getStatus() == PaymentStatus.PAID) {
+                throw new RuntimeException("Order already paid");
+            }
+            if (payment.getStatus() == PaymentStatus.PENDING) {
+                if (requested != null && requested != payment.getProvider()) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Order has an open checkout at " + payment.getProvider());
+                }
+                return List.of(paymentProviders.get(payment.getProvider()));
+            }
+        }
+        if (requested != null) {
+            return List.of(paymentProviders.get(requested));
+        }
+
+        // 2️⃣ Otherwise route by the order's currency and the providers' recent health
+        String currency = orderSummaryCache.get(orderId, orderServiceGateway::getOrder).currency();
+        List<PaymentProviderAdapter> candidates = paymentRouter.route(currency);
+        if (candidates.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, "No provider accepts " + currency);
+        }
+        return candidates;
+    }
+
+    private static Counter checkoutCounter(MeterRegistry registry, PaymentProvider provider, String attempt) {
+        return Counter.builder("payment.routing.checkouts")
+                .tag("provider", provider.name().toLowerCase())
+                .tag("attempt", attempt)
+                .register(registry);
+    }
+}
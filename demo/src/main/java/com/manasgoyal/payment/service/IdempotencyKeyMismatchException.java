@@ -0,0 +1,12 @@
+package com.manasgoyal.payment.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_CONTENT)
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String scope) {
+        super("Idempotency-Key was already used for a different " + scope + " request");
+    }
+}
@@ -0,0 +1,109 @@
+package com.manasgoyal.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manasgoyal.payment.entity.IdempotencyRecordEntity;
+import com.manasgoyal.payment.entity.enums.IdempotencyStatus;
+import com.manasgoyal.payment.repository.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+
+/**
+ * Client Idempotency-Key support: the first request with a key runs, its response is stored,
+ * and retries with the same key get the stored response without touching the provider.
+ * Keys are scoped per endpoint and merchant account, so two accounts never see each other's responses.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${payment.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    public <T> T execute(String endpoint, String accountId, String key, String fingerprint, Class<T> responseType,
+                         Callable<T> action) throws Exception {
+
+        if (key == null || key.isBlank()) {
+            return action.call();
+        }
+        String scope = endpoint + ":" + accountId;
+        String accountFingerprint = accountId + ":" + fingerprint;
+
+        IdempotencyRecordEntity stored = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key)
+                .orElse(null);
+        if (stored != null && stored.getExpiresAt().isBefore(Instant.now())) {
+            idempotencyRecordRepository.delete(stored);
+            stored = null;
+        }
+        if (stored != null) {
+            return replayOrRun(stored, endpoint, accountFingerprint, responseType, action);
+        }
+
+        IdempotencyRecordEntity record;
+        try {
+            record = idempotencyRecordRepository.saveAndFlush(
+                    IdempotencyRecordEntity.builder()
+                            .scope(scope)
+                            .idempotencyKey(key)
+                            .requestFingerprint(accountFingerprint)
+                            .status(IdempotencyStatus.IN_PROGRESS)
+                            .expiresAt(Instant.now().plus(ttl))
+                            .build()
+            );
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request with the same key got there first
+            IdempotencyRecordEntity winner = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key)
+                    .orElseThrow(() -> e);
+            return replayOrRun(winner, endpoint, accountFingerprint, responseType, action);
+        }
+
+        T response;
+        try {
+            response = action.call();
+        } catch (Exception e) {
+            idempotencyRecordRepository.delete(record); // let the client retry with the same key
+            throw e;
+        }
+
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setResponseBody(toJson(response));
+        idempotencyRecordRepository.save(record);
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        idempotencyRecordRepository.deleteExpired(Instant.now());
+    }
+
+    private <T> T replayOrRun(IdempotencyRecordEntity record, String endpoint, String fingerprint,
+                              Class<T> responseType, Callable<T> action) throws Exception {
+
+        if (!record.getRequestFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(endpoint);
+        }
+        if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+            return objectMapper.readValue(record.getResponseBody(), responseType);
+        }
+        // still in progress: the services collapse duplicate checkouts per order, so joining is safe
+        return action.call();
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to store idempotent response", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.client.OrderSummaryCache;
+import com.manasgoyal.payment.dto.OrderPaymentStatusUpdate;
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.entity.OrderOutboxEntity;
+import com.manasgoyal.payment.gateway.OrderServiceGateway;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delivers outbox events to order-service outside of any payment transaction.
+ * Delivery is at-least-once: order-service must treat repeated status updates as idempotent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderOutboxDispatcher {
+
+    private final OrderOutboxService orderOutboxService;
+    private final OrderServiceGateway orderServiceGateway;
+    private final OrderSummaryCache orderSummaryCache;
+
+    @Value("${order.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${order.outbox.lease:PT1M}")
+    private Duration lease;
+
+    // order-service exposes PUT /api/orders/payment-status
+    @Value("${order.service.batch-enabled:false}")
+    private boolean batchEndpoint;
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:500}")
+    public void poll() {
+        dispatchBatch();
+    }
+
+    /**
+     * Delivers one batch and returns its size.
+     */
+    public int dispatchBatch() {
+
+        List<OrderOutboxEntity> batch = orderOutboxService.claim(batchSize, lease);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        if (batchEndpoint) {
+            List<Long> ids = batch.stream().map(OrderOutboxEntity::getId).toList();
+            try {
+                orderServiceGateway.updatePaymentStatuses(batch.stream()
+                        .map(e -> new OrderPaymentStatusUpdate(e.getOrderId(), e.getPaymentStatus(), e.getPaymentReferenceId()))
+                        .toList());
+                orderOutboxService.markDelivered(ids);
+                batch.forEach(e -> orderSummaryCache.invalidate(e.getOrderId()));
+            } catch (Exception e) {
+                log.warn("Batch delivery of {} order-service notifications failed", ids.size(), e);
+                orderOutboxService.markFailed(ids, e);
+            }
+            return batch.size();
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        for (OrderOutboxEntity event : batch) {
+            try {
+                orderServiceGateway.updatePaymentStatus(
+                        event.getOrderId(),
+                        new PaymentStatusUpdateRequest(event.getPaymentStatus(), event.getPaymentReferenceId())
+                );
+                delivered.add(event.getId());
+                orderSummaryCache.invalidate(event.getOrderId());
+            } catch (Exception e) {
+                log.warn("Delivery of order-service notification {} failed", event.getId(), e);
+                orderOutboxService.markFailed(List.of(event.getId()), e);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            orderOutboxService.markDelivered(delivered);
+        }
+        return batch.size();
+    }
+}
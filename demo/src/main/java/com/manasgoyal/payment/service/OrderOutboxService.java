@@ -0,0 +1,90 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.entity.OrderOutboxEntity;
+import com.manasgoyal.payment.entity.enums.OutboxStatus;
+import com.manasgoyal.payment.repository.OrderOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transactional outbox for order-service notifications.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderOutboxService {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(15);
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    @Value("${order.outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    /**
+     * Records a payment-status notification. Must join the transaction that changes the payment,
+     * so the notification is stored if and only if the status change commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(UUID orderId, PaymentStatusUpdateRequest request) {
+        orderOutboxRepository.save(
+                OrderOutboxEntity.builder()
+                        .orderId(orderId)
+                        .paymentStatus(request.paymentStatus())
+                        .paymentReferenceId(request.paymentReferenceId())
+                        .status(OutboxStatus.PENDING)
+                        .build()
+        );
+    }
+
+    /**
+     * Leases up to {@code limit} deliverable events (at most one per order).
+     */
+    @Transactional
+    public List<OrderOutboxEntity> claim(int limit, Duration lease) {
+        Instant now = Instant.now();
+        List<OrderOutboxEntity> batch = orderOutboxRepository.lockDeliverable(now, limit);
+        if (!batch.isEmpty()) {
+            orderOutboxRepository.lease(batch.stream().map(OrderOutboxEntity::getId).toList(), now.plus(lease));
+        }
+        return batch;
+    }
+
+    @Transactional
+    public void markDelivered(Collection<Long> ids) {
+        Instant now = Instant.now();
+        orderOutboxRepository.findAllById(ids).forEach(event -> {
+            event.setStatus(OutboxStatus.DELIVERED);
+            event.setDeliveredAt(now);
+            event.setLockedUntil(null);
+            event.setLastError(null);
+        });
+    }
+
+    /**
+     * Schedules another attempt with exponential backoff, or parks the events as FAILED.
+     */
+    @Transactional
+    public void markFailed(Collection<Long> ids, Exception error) {
+        Instant now = Instant.now();
+        orderOutboxRepository.findAllById(ids).forEach(event -> {
+            event.setLockedUntil(null);
+            event.setLastError(Backoff.truncate(String.valueOf(error), 1000));
+
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+            } else {
+                event.setAvailableAt(now.plus(Backoff.exponential(event.getAttempts(), MAX_BACKOFF)));
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.dto.PaymentStatusView;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The only place a payment changes status after checkout (webhooks, Razorpay verify).
+ * <ul>
+ *   <li>transitions follow {@link PaymentStatus#canTransitionTo}; anything else is ignored</li>
+ *   <li>the change is a conditional {@code UPDATE ... WHERE status IN (...)}, so of two concurrent
+ *   transitions only the first to commit applies, on any node</li>
+ *   <li>on one node, transitions of the same order queue on a striped lock held until commit,
+ *   instead of piling up on the row lock</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class PaymentStateMachine {
+
+    private final PaymentRepository paymentRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StripedLock orderLocks;
+    private final Duration lockTimeout;
+
+    public PaymentStateMachine(
+            PaymentRepository paymentRepository,
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${payment.transitions.lock-stripes:1024}") int lockStripes,
+            @Value("${payment.transitions.lock-timeout:PT2S}") Duration lockTimeout
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.orderLocks = lockStripes > 0 ? new StripedLock(lockStripes) : null;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Moves {@code payment} to {@code target} within the caller's transaction.
+     * {@code payment} is refreshed to the stored state either way.
+     *
+     * @return false if the transition is not allowed or another transaction got there first
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean transition(PaymentEntity payment, PaymentStatus target, String providerPaymentId) {
+
+        // 1️⃣ Queue behind other transitions of this order on this node
+        lockUntilCompletion(payment.getOrderId());
+
+        // 2️⃣ Nothing to write if the status we read already rules it out
+        if (!payment.getStatus().canTransitionTo(target)) {
+            log.info("Ignoring {} → {} for order {}", payment.getStatus(), target, payment.getOrderId());
+            return false;
+        }
+
+        // 3️⃣ Conditional update: decides against the committed status, not the one we read
+        int updated = paymentRepository.transition(
+                payment.getId(), PaymentStatus.sourcesOf(target), target, providerPaymentId, Instant.now());
+        entityManager.refresh(payment);
+
+        if (updated == 0) {
+            log.info("Ignoring → {} for order {}: already {}", target, payment.getOrderId(), payment.getStatus());
+            return false;
+        }
+
+        // 4️⃣ Status subscribers are notified after commit
+        eventPublisher.publishEvent(new PaymentStatusChangedEvent(PaymentStatusView.of(payment)));
+        return true;
+    }
+
+    private void lockUntilCompletion(UUID orderId) {
+        if (orderLocks == null) {
+            return;
+        }
+        ReentrantLock lock = orderLocks.forKey(orderId);
+        try {
+            // Only an optimisation: on timeout the conditional update still keeps this correct
+            if (!lock.tryLock(lockTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+}
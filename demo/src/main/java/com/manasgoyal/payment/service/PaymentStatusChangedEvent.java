@@ -0,0 +1,8 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.dto.PaymentStatusView;
+
+/**
+ * Published inside the transaction that changes a payment's status; listeners act after commit.
+ */
+public record PaymentStatusChangedEvent(PaymentStatusView payment) {}
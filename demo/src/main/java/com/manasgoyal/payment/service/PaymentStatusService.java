@@ -0,0 +1,260 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.config.ThreadFactories;
+import com.manasgoyal.payment.datasource.ReadYourWrites;
+import com.manasgoyal.payment.dto.PaymentStatusView;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Payment status reads and push notifications.
+ * Subscribers are async {@link SseEmitter}s: a waiting checkout page holds a socket, not a thread,
+ * and is notified once, after the transaction that changed the payment commits.
+ * Pushes go through a small sender pool so a slow client never delays the webhook that committed.
+ * <p>
+ * Commit events only reach subscribers on the node that made the change. Changes made on other
+ * nodes (webhooks, inbox workers, the sweeper, reconciliation) are picked up by the heartbeat, which
+ * re-reads the status of every subscribed order in batched queries and pushes what was not sent yet.
+ */
+@Slf4j
+@Service
+public class PaymentStatusService {
+
+    private static final String STATUS_EVENT = "payment-status";
+    private static final int POLL_BATCH = 1000;
+
+    private final PaymentRepository paymentRepository;
+    private final ReadYourWrites readYourWrites;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate primaryRead;
+    private final ConcurrentMap<UUID, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    // last status pushed per subscribed order and provider; only touched inside compute
+    private final ConcurrentMap<UUID, Map<PaymentProvider, PaymentStatus>> sent = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService sender;
+    private final Duration streamTimeout;
+    private final int maxSubscribers;
+
+    public PaymentStatusService(
+            PaymentRepository paymentRepository,
+            ReadYourWrites readYourWrites,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            ThreadFactories threadFactories,
+            @Value("${payment.status.stream.timeout:PT10M}") Duration streamTimeout,
+            @Value("${payment.status.stream.max-subscribers:10000}") int maxSubscribers,
+            @Value("${payment.status.stream.send-threads:2}") int sendThreads
+    ) {
+        this.paymentRepository = paymentRepository;
+        this.readYourWrites = readYourWrites;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // not read-only, so on the primary: a lagging replica could report a status older than one already pushed
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.streamTimeout = streamTimeout;
+        this.maxSubscribers = maxSubscribers;
+        this.sender = Executors.newFixedThreadPool(sendThreads, threadFactories.create("payment-status-sse-"));
+        Gauge.builder("payment.status.subscribers", subscriberCount, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Current status of every payment attempt for the order (one per provider).
+     * Served by the read replica when there is one, unless this node just wrote the order's payments.
+     */
+    public List<PaymentStatusView> find(UUID orderId) {
+        return readYourWrites.read(orderId, () ->
+                readOnlyTransaction.execute(status -> paymentRepository.findStatusViewsByOrderId(orderId)));
+    }
+
+    /**
+     * Strong validator for {@link #find}; equal views give equal tags on every node.
+     */
+    public static String etag(List<PaymentStatusView> payments) {
+        StringBuilder key = new StringBuilder();
+        for (PaymentStatusView p : payments) {
+            key.append(p.provider()).append(':').append(p.status()).append(':')
+                    .append(p.paymentReferenceId()).append(':').append(p.amount()).append(':')
+                    .append(p.currency()).append(';');
+        }
+        return '"' + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+
+    /**
+     * Opens a status stream: the current state first, then every committed change.
+     * The stream completes once the order is paid.
+     */
+    public SseEmitter subscribe(UUID orderId) {
+
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many payment status subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        // Register before reading, so a change committed in between is pushed rather than lost
+        subscribers.compute(orderId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            set.add(emitter);
+            return set;
+        });
+        emitter.onCompletion(() -> unsubscribe(orderId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> emitter.complete());
+
+        try {
+            List<PaymentStatusView> current = find(orderId);
+            for (PaymentStatusView payment : current) {
+                advance(payment, false);
+                send(orderId, emitter, payment);
+            }
+        } catch (RuntimeException e) {
+            unsubscribe(orderId, emitter); // the emitter never reaches the client: free its slot
+            throw e;
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        PaymentStatusView payment = event.payment();
+        Set<SseEmitter> emitters = subscribers.get(payment.orderId());
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        advance(payment, true);
+        try {
+            sender.execute(() -> emitters.forEach(emitter -> send(payment.orderId(), emitter, payment)));
+        } catch (RejectedExecutionException e) {
+            log.debug("Status push for order {} dropped: shutting down", payment.orderId());
+        }
+    }
+
+    /**
+     * Every interval: pushes changes committed on other nodes, then a comment line that keeps
+     * proxies from closing idle streams and detects gone clients.
+     */
+    @Scheduled(fixedDelayString = "${payment.status.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // on the sender pool: the scheduler thread is shared with the outbox and inbox pollers
+        sender.execute(() -> {
+            pushMissedChanges();
+            subscribers.forEach((orderId, emitters) -> emitters.forEach(emitter -> {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(orderId, emitter);
+                }
+            }));
+        });
+    }
+
+    private void pushMissedChanges() {
+        List<UUID> orderIds = List.copyOf(subscribers.keySet());
+        for (int from = 0; from < orderIds.size(); from += POLL_BATCH) {
+            List<UUID> batch = orderIds.subList(from, Math.min(from + POLL_BATCH, orderIds.size()));
+            List<PaymentStatusView> current;
+            try {
+                current = primaryRead.execute(tx -> paymentRepository.findStatusViewsByOrderIdIn(batch));
+            } catch (DataAccessException e) {
+                log.warn("Status poll of {} subscribed orders failed: {}", batch.size(), e.getMessage());
+                return;
+            }
+            for (PaymentStatusView payment : current) {
+                Set<SseEmitter> emitters = subscribers.get(payment.orderId());
+                if (emitters != null && advance(payment, false)) {
+                    emitters.forEach(emitter -> send(payment.orderId(), emitter, payment));
+                }
+            }
+        }
+    }
+
+    /**
+     * Records {@code payment} as the order's last pushed status. A read ({@code committed} false) is
+     * skipped when it is the same or could not follow it, i.e. an older read racing a commit event.
+     *
+     * @return true if it was recorded and should be pushed
+     */
+    private boolean advance(PaymentStatusView payment, boolean committed) {
+        boolean[] advanced = {false};
+        sent.compute(payment.orderId(), (id, statuses) -> {
+            if (!subscribers.containsKey(id)) {
+                return null;
+            }
+            Map<PaymentProvider, PaymentStatus> map = statuses != null ? statuses : new EnumMap<>(PaymentProvider.class);
+            PaymentStatus last = map.get(payment.provider());
+            if (committed || last == null || (last != payment.status() && last.canTransitionTo(payment.status()))) {
+                map.put(payment.provider(), payment.status());
+                advanced[0] = true;
+            }
+            return map;
+        });
+        return advanced[0];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    private void send(UUID orderId, SseEmitter emitter, PaymentStatusView payment) {
+        try {
+            emitter.send(SseEmitter.event().name(STATUS_EVENT).data(payment, MediaType.APPLICATION_JSON));
+            if (payment.status() == PaymentStatus.PAID) {
+                emitter.complete(); // nothing left to wait for
+            }
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(orderId, emitter); // client went away
+        }
+    }
+
+    private void unsubscribe(UUID orderId, SseEmitter emitter) {
+        subscribers.computeIfPresent(orderId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                subscriberCount.decrementAndGet();
+            }
+            if (emitters.isEmpty()) {
+                sent.remove(id);
+                return null;
+            }
+            return emitters;
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims and settles payments that never got a webhook; driven by {@link PendingPaymentSweeper}.
+ */
+@Service
+@RequiredArgsConstructor
+public class PendingPaymentService {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentStateMachine paymentStateMachine;
+    private final OrderOutboxService orderOutboxService;
+
+    /**
+     * Leases up to {@code limit} stale payments: no other node picks them again before {@code recheckAfter},
+     * which is also when a payment that is still pending at the provider is looked at next.
+     */
+    @Transactional
+    public List<PaymentEntity> claim(Duration staleAfter, int limit, Duration recheckAfter) {
+        Instant now = Instant.now();
+        List<PaymentEntity> batch = paymentRepository.lockStale(now.minus(staleAfter), now, limit);
+        if (!batch.isEmpty()) {
+            paymentRepository.deferChecks(batch.stream().map(PaymentEntity::getId).toList(), now.plus(recheckAfter));
+        }
+        return batch;
+    }
+
+    /**
+     * Applies the status the provider reported and notifies order-service.
+     *
+     * @return false if the payment moved on in the meantime (e.g. a webhook arrived first)
+     */
+    @Transactional
+    public boolean settle(Long paymentId, PaymentStatus target, String providerPaymentId) {
+
+        PaymentEntity payment = paymentRepository.findById(paymentId).orElse(null);
+        if (payment == null || !paymentStateMachine.transition(payment, target, providerPaymentId)) {
+            return false;
+        }
+
+        // 🔥 notify order-service (outbox, delivered after commit)
+        orderOutboxService.enqueue(
+                payment.getOrderId(),
+                new PaymentStatusUpdateRequest(target, payment.getProviderPaymentId())
+        );
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.config.ThreadFactories;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.provider.PaymentProviderAdapter;
+import com.manasgoyal.payment.provider.PaymentProviders;
+import com.manasgoyal.payment.provider.ProviderPaymentState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Settles payments whose webhook never arrived. Stale CREATED / PENDING payments are claimed in
+ * batches (a lease, so nodes never poll the same payment), their provider is asked for the status
+ * within a per-provider request budget ({@code payment.sweeper.<provider>.requests-per-second}),
+ * and the real status is applied.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class PendingPaymentSweeper {
+
+    private enum Outcome { PAID, FAILED, PENDING, SUPERSEDED, ERROR }
+
+    private final PendingPaymentService pendingPaymentService;
+    private final PaymentProviders paymentProviders;
+    private final ExecutorService executor;
+    private final Map<PaymentProvider, RateLimiter> rateLimiters = new EnumMap<>(PaymentProvider.class);
+    private final Map<PaymentProvider, Counter[]> checks = new EnumMap<>(PaymentProvider.class);
+    private final int batchSize;
+    private final Duration staleAfter;
+    private final Duration expireAfter;
+    private final Duration recheckAfter;
+
+    public PendingPaymentSweeper(
+            PendingPaymentService pendingPaymentService,
+            PaymentProviders paymentProviders,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            ThreadFactories threadFactories,
+            @Value("${payment.sweeper.batch-size:100}") int batchSize,
+            @Value("${payment.sweeper.concurrency:4}") int concurrency,
+            @Value("${payment.sweeper.stale-after:PT30M}") Duration staleAfter,
+            @Value("${payment.sweeper.expire-after:PT24H}") Duration expireAfter,
+            @Value("${payment.sweeper.recheck-after:PT10M}") Duration recheckAfter
+    ) {
+        this.pendingPaymentService = pendingPaymentService;
+        this.paymentProviders = paymentProviders;
+        this.executor = Executors.newFixedThreadPool(concurrency, threadFactories.create("payment-sweeper-"));
+        this.batchSize = batchSize;
+        this.staleAfter = staleAfter;
+        this.expireAfter = expireAfter;
+        this.recheckAfter = recheckAfter;
+
+        for (PaymentProvider provider : PaymentProvider.values()) {
+            double rate = environment.getProperty(
+                    "payment.sweeper." + provider.name().toLowerCase() + ".requests-per-second", Double.class,
+                    provider == PaymentProvider.RAZORPAY ? 5.0 : 10.0);
+            rateLimiters.put(provider, new RateLimiter(rate));
+
+            Counter[] counters = new Counter[Outcome.values().length];
+            for (Outcome outcome : Outcome.values()) {
+                counters[outcome.ordinal()] = Counter.builder("payment.sweeper.checks")
+                        .tag("provider", provider.name().toLowerCase())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+            checks.put(provider, counters);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.sweeper.interval-ms:60000}",
+            initialDelayString = "${payment.sweeper.initial-delay-ms:60000}")
+    public void sweep() {
+        // claimed payments are deferred, so this ends once every due payment had its turn
+        while (sweepBatch() == batchSize) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks one batch and returns its size.
+     */
+    public int sweepBatch() {
+
+        List<PaymentEntity> batch = pendingPaymentService.claim(staleAfter, batchSize, recheckAfter);
+
+        List<Future<?>> tasks = batch.stream()
+                .<Future<?>>map(payment -> executor.submit(() -> check(payment)))
+                .toList();
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.warn("Pending payment check failed", e.getCause());
+            }
+        }
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void check(PaymentEntity payment) {
+        Outcome outcome;
+        try {
+            PaymentProviderAdapter provider = paymentProviders.get(payment.getProvider());
+            ProviderPaymentState state = provider.fetchStatus(payment, rateLimiters.get(payment.getProvider())::acquire);
+            PaymentStatus target = state.status();
+
+            // checkouts that never expire at the provider are given up on after expire-after
+            if (target == PaymentStatus.PENDING && !provider.checkoutsExpire()
+                    && payment.getUpdatedAt().isBefore(Instant.now().minus(expireAfter))) {
+                target = PaymentStatus.FAILED;
+            }
+
+            if (target == PaymentStatus.PENDING) {
+                outcome = Outcome.PENDING;
+            } else if (pendingPaymentService.settle(payment.getId(), target, state.providerPaymentId())) {
+                log.info("Sweeper settled {} payment {} for order {}: {} → {}", payment.getProvider(),
+                        payment.getId(), payment.getOrderId(), payment.getStatus(), target);
+                outcome = target == PaymentStatus.PAID ? Outcome.PAID : Outcome.FAILED;
+            } else {
+                outcome = Outcome.SUPERSEDED;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            // left for the next check after recheck-after
+            log.warn("Could not check {} payment {}: {}", payment.getProvider(), payment.getId(), e.toString());
+            outcome = Outcome.ERROR;
+        }
+        checks.get(payment.getProvider())[outcome.ordinal()].increment();
+    }
+}
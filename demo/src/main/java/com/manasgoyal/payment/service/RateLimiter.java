@@ -0,0 +1,38 @@
+package com.manasgoyal.payment.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spaces calls evenly at {@code permitsPerSecond} across all threads (no bursts).
+ * Zero or less means unlimited.
+ */
+final class RateLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock(); // not a monitor: callers may be virtual threads
+    private final long intervalNanos;
+    private long nextFreeNanos = System.nanoTime();
+
+    RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long slot = Math.max(nextFreeNanos, now);
+            nextFreeNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        } finally {
+            lock.unlock();
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -1,59 +1,115 @@
 package com.manasgoyal.payment.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.manasgoyal.payment.client.OrderClient;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.client.OrderSummaryCache;
+import com.manasgoyal.payment.dto.CheckoutResponse;
 import com.manasgoyal.payment.dto.CreateRazorpayOrderResponse;
+import com.manasgoyal.payment.dto.RazorpayWebhookEvent;
 import com.manasgoyal.payment.dto.RazorpayVerifyPaymentRequest;
+import com.manasgoyal.payment.dto.VerifyPaymentRequest;
 import com.manasgoyal.payment.entity.PaymentEntity;
-import com.manasgoyal.payment.entity.WebhookEventEntity;
 import com.manasgoyal.payment.entity.enums.PaymentProvider;
 import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.gateway.OrderServiceGateway;
+import com.manasgoyal.payment.gateway.ProviderHealth;
+import com.manasgoyal.payment.gateway.RazorpayGateway;
+import com.manasgoyal.payment.metrics.PaymentMetrics;
+import com.manasgoyal.payment.metrics.PaymentMetrics.CheckoutOutcome;
+import com.manasgoyal.payment.metrics.PaymentMetrics.SignatureSource;
+import com.manasgoyal.payment.provider.CallBudget;
+import com.manasgoyal.payment.provider.InvalidWebhookException;
+import com.manasgoyal.payment.provider.PaymentProviderAdapter;
+import com.manasgoyal.payment.provider.ProviderPaymentState;
+import com.manasgoyal.payment.provider.WebhookEnvelope;
 import com.manasgoyal.payment.repository.PaymentRepository;
-import com.manasgoyal.payment.repository.WebhookEventRepository;
 import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.security.RazorpaySignatureVerifier;
+import com.manasgoyal.payment.webhook.WebhookEventParser;
 import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
+import com.razorpay.Payment;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.util.HexFormat;
 import java.util.UUID;
+import java.util.function.Function;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class RazorpayPaymentService {
+public class RazorpayPaymentService implements PaymentProviderAdapter {
 
-    private final RazorpayClient razorpayClient;
+    private final RazorpayGateway razorpayGateway;
     private final PaymentRepository paymentRepository;
-    private final WebhookEventRepository webhookEventRepository;
-    private final OrderClient orderClient; // ⭐ talk to order-service
-
-    @Value("${razorpay.keyId}")
-    private String keyId;
-
-    @Value("${razorpay.keySecret}")
-    private String keySecret;
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final OrderServiceGateway orderServiceGateway; // ⭐ talk to order-service
+    private final OrderSummaryCache orderSummaryCache;
+    private final OrderOutboxService orderOutboxService;
+    private final RazorpaySignatureVerifier signatureVerifier;
+    private final ProviderAccountRegistry accounts;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentStateMachine paymentStateMachine;
+    private final WebhookEventParser webhookEventParser;
+    private final SingleFlight<UUID, CreateRazorpayOrderResponse> ordersInFlight = new SingleFlight<>();
+
+    @Override
+    public PaymentProvider provider() {
+        return PaymentProvider.RAZORPAY;
+    }
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Override
+    public CheckoutResponse createCheckout(String accountId, UUID orderId) throws Exception {
+        CreateRazorpayOrderResponse order = createRazorpayOrder(accountId, orderId);
+        return new CheckoutResponse(PaymentProvider.RAZORPAY, null,
+                order.razorpayKeyId(), order.razorpayOrderId(), order.amount(), order.currency());
+    }
 
     /**
-     * Called by order-service to create payment at Razorpay
+     * Called by order-service to create payment at Razorpay, with the account's key pair
      */
-    public CreateRazorpayOrderResponse createRazorpayOrder(UUID orderId) throws Exception {
+    public CreateRazorpayOrderResponse createRazorpayOrder(String accountId, UUID orderId) throws Exception {
+        long start = paymentMetrics.checkoutStarted(PaymentProvider.RAZORPAY);
+        CheckoutOutcome outcome = CheckoutOutcome.ERROR;
+        try {
+            // concurrent calls for the same order share one Razorpay order
+            CreateRazorpayOrderResponse response = ordersInFlight.execute(orderId, () -> doCreateRazorpayOrder(accountId, orderId));
+            outcome = CheckoutOutcome.SUCCESS;
+            return response;
+        } finally {
+            paymentMetrics.checkoutFinished(PaymentProvider.RAZORPAY, start, outcome);
+        }
+    }
+
+    private CreateRazorpayOrderResponse doCreateRazorpayOrder(String accountId, UUID orderId) throws Exception {
 
         // 1️⃣ Fetch order from Order Service
-        var order = orderClient.getOrder(orderId);
+        var order = orderSummaryCache.get(orderId, orderServiceGateway::getOrder);
 
         long amountInPaise = order.totalAmount(); // already in paise from order-service
         String currency = order.currency();
 
+        PaymentEntity existing = paymentRepository.findByOrderIdAndProvider(orderId, PaymentProvider.RAZORPAY)
+                .orElse(null);
+
+        if (existing != null && !existing.getStatus().canTransitionTo(PaymentStatus.PENDING)) {
+            throw new RuntimeException("Order already paid");
+        }
+        if (existing != null && !existing.getAccountId().equals(accountId)) {
+            throw new RuntimeException("Order is paid through another account");
+        }
+        String keyId = accounts.get(accountId).razorpayKeyId();
+
+        // ♻️ Razorpay orders stay payable until paid: reuse it while the amount is unchanged
+        if (existing != null
+                && existing.getProviderOrderId() != null
+                && Long.valueOf(amountInPaise).equals(existing.getAmount())
+                && currency.equalsIgnoreCase(existing.getCurrency())) {
+            return new CreateRazorpayOrderResponse(keyId, existing.getProviderOrderId(), amountInPaise, currency);
+        }
+
         // 2️⃣ Create Razorpay order
         JSONObject request = new JSONObject();
         request.put("amount", amountInPaise);
@@ -61,17 +117,17 @@ public class RazorpayPaymentService {
         request.put("receipt", "ord_" + orderId.toString().replace("-", "").substring(0, 30));
         request.put("payment_capture", 1);
 
-        Order rzOrder = razorpayClient.orders.create(request);
+        Order rzOrder = razorpayGateway.createOrder(accountId, request);
 
-        // 3️⃣ Save payment record
-        PaymentEntity payment = paymentRepository.save(
-                PaymentEntity.builder()
-                        .orderId(orderId)
-                        .provider(PaymentProvider.RAZORPAY)
-                        .providerOrderId(rzOrder.get("id"))
-                        .status(PaymentStatus.PENDING)
-                        .build()
-        );
+        // 3️⃣ Save payment record (one per order, pointed at the latest Razorpay order)
+        PaymentEntity payment = existing != null
+                ? existing
+                : PaymentEntity.builder().orderId(orderId).provider(PaymentProvider.RAZORPAY).accountId(accountId).build();
+        payment.setProviderOrderId(rzOrder.get("id"));
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setAmount(amountInPaise);
+        payment.setCurrency(currency);
+        paymentRepository.save(payment);
 
         // 4️⃣ Send data to frontend
         return new CreateRazorpayOrderResponse(
@@ -83,93 +139,151 @@ public class RazorpayPaymentService {
     }
 
 
+    @Override
+    @Transactional
+    public void verifyPayment(VerifyPaymentRequest request) {
+        verifyPayment(new RazorpayVerifyPaymentRequest(
+                request.orderId(), request.providerOrderId(), request.providerPaymentId(), request.signature()));
+    }
+
     /**
-     * Frontend signature verification
+     * Frontend signature verification, with the key secret of the account the order was created with
      */
     @Transactional
     public void verifyPayment(RazorpayVerifyPaymentRequest req) {
 
-        String data = req.razorpayOrderId() + "|" + req.razorpayPaymentId();
-        String generatedSignature = hmacSha256Hex(data, keySecret);
+        PaymentEntity payment = paymentRepository.findByOrderIdAndProvider(req.orderId(), PaymentProvider.RAZORPAY)
+                .orElseThrow(() -> new RuntimeException("Payment not found"));
 
-        if (!generatedSignature.equals(req.razorpaySignature())) {
+        if (!signatureVerifier.verifyPayment(payment.getAccountId(), req.razorpayOrderId(), req.razorpayPaymentId(), req.razorpaySignature())) {
+            paymentMetrics.signatureFailure(PaymentProvider.RAZORPAY, SignatureSource.PAYMENT);
             throw new RuntimeException("Invalid Razorpay signature");
         }
 
-        PaymentEntity payment = paymentRepository.findByOrderId(req.orderId())
-                .orElseThrow(() -> new RuntimeException("Payment not found"));
-
-        payment.setProviderPaymentId(req.razorpayPaymentId());
-        payment.setStatus(PaymentStatus.PAID);
-        paymentRepository.save(payment);
+        // already PAID (webhook was first): nothing to notify
+        if (!paymentStateMachine.transition(payment, PaymentStatus.PAID, req.razorpayPaymentId())) {
+            return;
+        }
 
-        // 🔥 Notify order-service
-        orderClient.updatePaymentStatus(
+        // 🔥 Notify order-service (outbox, delivered after commit)
+        orderOutboxService.enqueue(
                 req.orderId(),
                 new PaymentStatusUpdateRequest(PaymentStatus.PAID, req.razorpayPaymentId())
         );
     }
 
+    @Override
+    public WebhookEnvelope parseWebhook(String accountId, Function<String, String> headers, byte[] body) {
+        String signature = headers.apply("X-Razorpay-Signature");
+        String eventId = headers.apply("X-Razorpay-Event-Id");
+        if (signature == null || eventId == null) {
+            throw InvalidWebhookException.malformed("Missing Razorpay headers");
+        }
+
+        // Verify webhook signature on the raw bytes
+        if (!signatureVerifier.verifyWebhook(accountId, body, signature)) {
+            throw InvalidWebhookException.badSignature();
+        }
+
+        RazorpayWebhookEvent event;
+        try {
+            event = webhookEventParser.parseRazorpay(body);
+        } catch (IllegalArgumentException e) {
+            throw InvalidWebhookException.malformed("Malformed payload");
+        }
+        return new WebhookEnvelope(eventId, event.event(), event);
+    }
+
+    @Override
+    @Transactional
+    public boolean handleWebhook(String accountId, WebhookEnvelope envelope, byte[] body) {
+        return handleWebhook(accountId, (RazorpayWebhookEvent) envelope.event(), envelope.eventId(), body);
+    }
+
+    @Override
+    public void processWebhook(String accountId, byte[] payload) {
+        processWebhook(accountId, webhookEventParser.parseRazorpay(payload));
+    }
+
+    @Override
+    public String paymentReference(byte[] payload) {
+        return webhookEventParser.parseRazorpay(payload).orderId();
+    }
+
     /**
-     * Webhook handler (gateway → payment-service)
+     * Webhook handler (gateway → payment-service) for events received on {@code accountId}'s endpoint.
+     * Returns false for duplicates.
      */
     @Transactional
-    public void handleWebhook(String rawPayload, String webhookEventId) {
+    public boolean handleWebhook(String accountId, RazorpayWebhookEvent event, String webhookEventId, byte[] rawPayload) {
 
-        if (webhookEventRepository.existsByProviderAndEventId(PaymentProvider.RAZORPAY, webhookEventId)) {
-            return; // idempotent
+        if (!webhookDeduplicator.insertIfNew(PaymentProvider.RAZORPAY, accountId, webhookEventId, event.event(), rawPayload, WebhookEventStatus.PROCESSED)) {
+            return false; // idempotent
         }
 
-        webhookEventRepository.save(
-                WebhookEventEntity.builder()
-                        .provider(PaymentProvider.RAZORPAY)
-                        .eventId(webhookEventId)
-                        .payload(rawPayload)
-                        .build()
-        );
+        processWebhook(accountId, event);
+        return true;
+    }
 
-        try {
-            JsonNode root = objectMapper.readTree(rawPayload);
-            String event = root.path("event").asText();
-
-            if ("payment.captured".equals(event)) {
-                JsonNode entity = root.path("payload").path("payment").path("entity");
-
-                String razorpayPaymentId = entity.path("id").asText();
-                String razorpayOrderId = entity.path("order_id").asText();
-
-                PaymentEntity payment = paymentRepository.findAll().stream()
-                        .filter(p -> razorpayOrderId.equals(p.getProviderOrderId()))
-                        .findFirst()
-                        .orElse(null);
-
-                if (payment != null) {
-                    payment.setProviderPaymentId(razorpayPaymentId);
-                    payment.setStatus(PaymentStatus.PAID);
-                    paymentRepository.save(payment);
-
-                    // 🔥 Notify order-service
-                    orderClient.updatePaymentStatus(
-                            payment.getOrderId(),
-                            new PaymentStatusUpdateRequest(PaymentStatus.PAID, razorpayPaymentId)
-                    );
-                }
+    /**
+     * Applies a stored Razorpay event (synchronous webhook path or inbox worker)
+     */
+    public void processWebhook(String accountId, RazorpayWebhookEvent event) {
+
+        if ("payment.captured".equals(event.event()) && event.orderId() != null) {
+
+            PaymentEntity payment = paymentRepository.findByProviderOrderId(event.orderId()).orElse(null);
+
+            // a webhook secret only vouches for events about its own account's payments
+            if (payment != null && !payment.getAccountId().equals(accountId)) {
+                log.warn("Ignoring Razorpay event from account {} for payment {} of account {}",
+                        accountId, payment.getId(), payment.getAccountId());
+                return;
             }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Webhook processing failed", e);
+            if (payment != null && paymentStateMachine.transition(payment, PaymentStatus.PAID, event.paymentId())) {
+                // 🔥 Notify order-service (outbox, delivered after commit)
+                orderOutboxService.enqueue(
+                        payment.getOrderId(),
+                        new PaymentStatusUpdateRequest(PaymentStatus.PAID, event.paymentId())
+                );
+            }
         }
     }
 
-    private String hmacSha256Hex(String data, String secret) {
-        try {
-            Mac sha256Hmac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            sha256Hmac.init(secretKey);
-            byte[] hash = sha256Hmac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (Exception e) {
-            throw new RuntimeException("HMAC error", e);
+    @Override
+    public ProviderPaymentState fetchStatus(PaymentEntity payment, CallBudget budget) throws Exception {
+        String orderId = payment.getProviderOrderId();
+        if (orderId == null) {
+            return ProviderPaymentState.NOTHING_CREATED;
+        }
+
+        budget.acquire();
+        Order order = razorpayGateway.fetchOrder(payment.getAccountId(), orderId);
+        if (!"paid".equals(order.get("status"))) {
+            return ProviderPaymentState.OPEN;
         }
+
+        // the order is paid: find the captured payment for the reference id
+        budget.acquire();
+        String paymentId = null;
+        for (Payment p : razorpayGateway.fetchOrderPayments(payment.getAccountId(), orderId)) {
+            if ("captured".equals(p.get("status"))) {
+                paymentId = p.get("id");
+                break;
+            }
+        }
+        return new ProviderPaymentState(PaymentStatus.PAID, paymentId);
+    }
+
+    // Orders stay payable until paid
+    @Override
+    public boolean checkoutsExpire() {
+        return false;
+    }
+
+    @Override
+    public ProviderHealth health() {
+        return razorpayGateway.health();
     }
 }
@@ -1,55 +1,130 @@
 package com.manasgoyal.payment.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.manasgoyal.payment.client.OrderClient;
+import com.manasgoyal.payment.client.OrderSummaryCache;
+import com.manasgoyal.payment.dto.CheckoutResponse;
 import com.manasgoyal.payment.dto.CreateStripeCheckoutResponse;
 import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.dto.StripeWebhookEvent;
+import com.manasgoyal.payment.dto.VerifyPaymentRequest;
 import com.manasgoyal.payment.entity.PaymentEntity;
-import com.manasgoyal.payment.entity.WebhookEventEntity;
-import com.manasgoyal.payment.entity.enums.OrderStatus;
 import com.manasgoyal.payment.entity.enums.PaymentProvider;
 import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.gateway.OrderServiceGateway;
+import com.manasgoyal.payment.gateway.ProviderHealth;
+import com.manasgoyal.payment.gateway.StripeGateway;
+import com.manasgoyal.payment.metrics.PaymentMetrics;
+import com.manasgoyal.payment.metrics.PaymentMetrics.CheckoutOutcome;
+import com.manasgoyal.payment.provider.CallBudget;
+import com.manasgoyal.payment.provider.InvalidWebhookException;
+import com.manasgoyal.payment.provider.PaymentProviderAdapter;
+import com.manasgoyal.payment.provider.ProviderPaymentState;
+import com.manasgoyal.payment.provider.WebhookEnvelope;
 import com.manasgoyal.payment.repository.PaymentRepository;
-import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.security.StripeSignatureVerifier;
+import com.manasgoyal.payment.webhook.WebhookEventParser;
 import com.stripe.exception.StripeException;
-import com.stripe.model.Event;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
+import java.util.function.Function;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class StripePaymentService {
+public class StripePaymentService implements PaymentProviderAdapter {
 
     private final PaymentRepository paymentRepository;
-    private final WebhookEventRepository webhookEventRepository;
-    private final OrderClient orderClient; // ⭐ talk to order-service
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebhookDeduplicator webhookDeduplicator;
+    private final OrderServiceGateway orderServiceGateway; // ⭐ talk to order-service
+    private final OrderSummaryCache orderSummaryCache;
+    private final StripeGateway stripeGateway;
+    private final OrderOutboxService orderOutboxService;
+    private final PaymentMetrics paymentMetrics;
+    private final PaymentStateMachine paymentStateMachine;
+    private final StripeSignatureVerifier signatureVerifier;
+    private final WebhookEventParser webhookEventParser;
+    private final SingleFlight<UUID, CreateStripeCheckoutResponse> checkoutsInFlight = new SingleFlight<>();
 
-    public CreateStripeCheckoutResponse createCheckoutSession(UUID orderId) throws StripeException {
+    // Don't hand out a session that expires before the customer can finish paying
+    @Value("${stripe.sessionReuseMargin:PT10M}")
+    private Duration sessionReuseMargin;
+
+    @Override
+    public PaymentProvider provider() {
+        return PaymentProvider.STRIPE;
+    }
+
+    @Override
+    public CheckoutResponse createCheckout(String accountId, UUID orderId) throws StripeException {
+        return CheckoutResponse.redirect(PaymentProvider.STRIPE, createCheckoutSession(accountId, orderId).checkoutUrl());
+    }
+
+    @Override
+    public void verifyPayment(VerifyPaymentRequest request) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stripe payments are confirmed by webhook");
+    }
+
+    /**
+     * Concurrent calls for the same order share one Stripe session, created with the account's API key.
+     */
+    public CreateStripeCheckoutResponse createCheckoutSession(String accountId, UUID orderId) throws StripeException {
+        long start = paymentMetrics.checkoutStarted(PaymentProvider.STRIPE);
+        CheckoutOutcome outcome = CheckoutOutcome.ERROR;
+        try {
+            CreateStripeCheckoutResponse response = checkoutsInFlight.execute(orderId, () -> doCreateCheckoutSession(accountId, orderId));
+            outcome = CheckoutOutcome.SUCCESS;
+            return response;
+        } catch (StripeException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            paymentMetrics.checkoutFinished(PaymentProvider.STRIPE, start, outcome);
+        }
+    }
+
+    private CreateStripeCheckoutResponse doCreateCheckoutSession(String accountId, UUID orderId) throws StripeException {
 
         // 1️⃣ Fetch order from order-service
-        var order = orderClient.getOrder(orderId);
+        var order = orderSummaryCache.get(orderId, orderServiceGateway::getOrder);
 
         long amount = order.totalAmount();     // already in smallest unit
         String currency = order.currency();
 
         // 2️⃣ Create or reuse payment record
-        PaymentEntity payment = paymentRepository.findByOrderId(orderId)
+        PaymentEntity payment = paymentRepository.findByOrderIdAndProvider(orderId, PaymentProvider.STRIPE)
                 .orElseGet(() -> paymentRepository.save(
                         PaymentEntity.builder()
                                 .orderId(orderId)
                                 .provider(PaymentProvider.STRIPE)
+                                .accountId(accountId)
                                 .status(PaymentStatus.CREATED)
                                 .build()
                 ));
 
+        if (!payment.getStatus().canTransitionTo(PaymentStatus.PENDING)) {
+            throw new RuntimeException("Order already paid");
+        }
+        if (!payment.getAccountId().equals(accountId)) {
+            throw new RuntimeException("Order is paid through another account");
+        }
+
+        // ♻️ Reuse the open session for the same amount instead of creating another one
+        if (hasReusableSession(payment, amount, currency)) {
+            return new CreateStripeCheckoutResponse(payment.getCheckoutUrl());
+        }
+
         // 3️⃣ Create Stripe checkout session
         SessionCreateParams params =
                 SessionCreateParams.builder()
@@ -75,86 +150,160 @@ public class StripePaymentService {
                         .putMetadata("orderId", orderId.toString())
                         .build();
 
-        Session session = Session.create(params);
+        Session session = stripeGateway.createCheckoutSession(accountId, params);
 
         // 4️⃣ Save session info
         payment.setStatus(PaymentStatus.PENDING);
         payment.setProviderSessionId(session.getId());
+        payment.setCheckoutUrl(session.getUrl());
+        payment.setProviderSessionExpiresAt(session.getExpiresAt() != null ? Instant.ofEpochSecond(session.getExpiresAt()) : null);
+        payment.setAmount(amount);
+        payment.setCurrency(currency);
         paymentRepository.save(payment);
 
         // 5️⃣ Send checkout URL to frontend
         return new CreateStripeCheckoutResponse(session.getUrl());
     }
 
+    private boolean hasReusableSession(PaymentEntity payment, long amount, String currency) {
+        return payment.getStatus() == PaymentStatus.PENDING
+                && payment.getCheckoutUrl() != null
+                && payment.getProviderSessionExpiresAt() != null
+                && payment.getProviderSessionExpiresAt().isAfter(Instant.now().plus(sessionReuseMargin))
+                && Long.valueOf(amount).equals(payment.getAmount())
+                && currency.equalsIgnoreCase(payment.getCurrency());
+    }
 
-    @Transactional
-    public void handleStripeEvent(Event event, String rawPayload) {
 
-        if (webhookEventRepository.existsByProviderAndEventId(PaymentProvider.STRIPE, event.getId())) {
-            return;
+    @Override
+    public WebhookEnvelope parseWebhook(String accountId, Function<String, String> headers, byte[] body) {
+        String sigHeader = headers.apply("Stripe-Signature");
+        if (sigHeader == null) {
+            throw InvalidWebhookException.malformed("Missing Stripe-Signature header");
+        }
+        if (!signatureVerifier.verify(accountId, body, sigHeader)) {
+            throw InvalidWebhookException.badSignature();
         }
 
-        webhookEventRepository.save(
-                WebhookEventEntity.builder()
-                        .provider(PaymentProvider.STRIPE)
-                        .eventId(event.getId())
-                        .payload(rawPayload)
-                        .build()
-        );
-
-        switch (event.getType()) {
-            case "checkout.session.completed" -> handleCheckoutSessionCompleted(rawPayload);
-            case "payment_intent.payment_failed" -> handlePaymentIntentFailed(rawPayload);
+        StripeWebhookEvent event;
+        try {
+            event = webhookEventParser.parseStripe(body);
+        } catch (IllegalArgumentException e) {
+            throw InvalidWebhookException.malformed("Malformed payload");
+        }
+        if (event.id() == null || event.type() == null) {
+            throw InvalidWebhookException.malformed("Missing event id or type");
         }
+        return new WebhookEnvelope(event.id(), event.type(), event);
     }
 
-    private void handleCheckoutSessionCompleted(String rawPayload) {
-        try {
-            JsonNode obj = objectMapper.readTree(rawPayload)
-                    .path("data").path("object");
+    @Override
+    @Transactional
+    public boolean handleWebhook(String accountId, WebhookEnvelope envelope, byte[] body) {
+        return handleStripeEvent(accountId, (StripeWebhookEvent) envelope.event(), body);
+    }
 
-            String sessionId = obj.path("id").asText();
-            String paymentIntentId = obj.path("payment_intent").asText();
+    @Override
+    public void processWebhook(String accountId, byte[] payload) {
+        processStripeEvent(accountId, webhookEventParser.parseStripe(payload));
+    }
 
-            PaymentEntity payment = paymentRepository.findByProviderSessionId(sessionId).orElse(null);
-            if (payment == null) return;
+    @Override
+    public String paymentReference(byte[] payload) {
+        return webhookEventParser.parseStripe(payload).objectId();
+    }
 
-            payment.setStatus(PaymentStatus.PAID);
-            payment.setProviderPaymentId(paymentIntentId);
-            paymentRepository.save(payment);
+    /**
+     * Records and applies a webhook event received on {@code accountId}'s endpoint. Returns false for duplicates.
+     */
+    @Transactional
+    public boolean handleStripeEvent(String accountId, StripeWebhookEvent event, byte[] rawPayload) {
 
-            // 🔥 notify order-service
-            orderClient.updatePaymentStatus(
-                    payment.getOrderId(),
-                    new PaymentStatusUpdateRequest(PaymentStatus.PAID, paymentIntentId)
-            );
+        if (!webhookDeduplicator.insertIfNew(PaymentProvider.STRIPE, accountId, event.id(), event.type(), rawPayload, WebhookEventStatus.PROCESSED)) {
+            return false; // idempotent
+        }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Stripe success webhook error", e);
+        processStripeEvent(accountId, event);
+        return true;
+    }
+
+    /**
+     * Applies a stored Stripe event (synchronous webhook path or inbox worker)
+     */
+    public void processStripeEvent(String accountId, StripeWebhookEvent event) {
+        if (event.type() == null || event.objectId() == null) {
+            return;
+        }
+        switch (event.type()) {
+            case "checkout.session.completed" -> handleCheckoutSessionCompleted(accountId, event.objectId(), event.paymentIntentId());
+            case "payment_intent.payment_failed" -> handlePaymentIntentFailed(accountId, event.objectId());
         }
     }
 
-    private void handlePaymentIntentFailed(String rawPayload) {
-        try {
-            JsonNode obj = objectMapper.readTree(rawPayload)
-                    .path("data").path("object");
+    private void handleCheckoutSessionCompleted(String accountId, String sessionId, String paymentIntentId) {
 
-            String paymentIntentId = obj.path("id").asText();
+        PaymentEntity payment = paymentRepository.findByProviderSessionId(sessionId).orElse(null);
+        if (payment == null || !ownedBy(payment, accountId)) return;
 
-            PaymentEntity payment = paymentRepository.findByProviderPaymentId(paymentIntentId).orElse(null);
-            if (payment == null) return;
+        if (!paymentStateMachine.transition(payment, PaymentStatus.PAID, paymentIntentId)) return;
 
-            payment.setStatus(PaymentStatus.FAILED);
-            paymentRepository.save(payment);
+        // 🔥 notify order-service (outbox, delivered after commit)
+        orderOutboxService.enqueue(
+                payment.getOrderId(),
+                new PaymentStatusUpdateRequest(PaymentStatus.PAID, paymentIntentId)
+        );
+    }
 
-            // 🔥 notify order-service
-            orderClient.updatePaymentStatus(
-                    payment.getOrderId(),
-                    new PaymentStatusUpdateRequest(PaymentStatus.FAILED, paymentIntentId)
-            );
+    private void handlePaymentIntentFailed(String accountId, String paymentIntentId) {
 
-        } catch (Exception e) {
-            throw new RuntimeException("Stripe failure webhook error", e);
+        PaymentEntity payment = paymentRepository.findByProviderPaymentId(paymentIntentId).orElse(null);
+        if (payment == null || !ownedBy(payment, accountId)) return;
+
+        // a late failure must not overwrite PAID
+        if (!paymentStateMachine.transition(payment, PaymentStatus.FAILED, null)) return;
+
+        // 🔥 notify order-service (outbox, delivered after commit)
+        orderOutboxService.enqueue(
+                payment.getOrderId(),
+                new PaymentStatusUpdateRequest(PaymentStatus.FAILED, paymentIntentId)
+        );
+    }
+
+    @Override
+    public ProviderPaymentState fetchStatus(PaymentEntity payment, CallBudget budget) throws Exception {
+        if (payment.getProviderSessionId() == null) {
+            return ProviderPaymentState.NOTHING_CREATED;
+        }
+        budget.acquire();
+        Session session = stripeGateway.retrieveCheckoutSession(payment.getAccountId(), payment.getProviderSessionId());
+
+        if ("complete".equals(session.getStatus()) && !"unpaid".equals(session.getPaymentStatus())) {
+            return new ProviderPaymentState(PaymentStatus.PAID, session.getPaymentIntent());
+        }
+        if ("expired".equals(session.getStatus())) {
+            return new ProviderPaymentState(PaymentStatus.FAILED, null);
+        }
+        return ProviderPaymentState.OPEN;
+    }
+
+    // Sessions expire on their own and then report "expired"
+    @Override
+    public boolean checkoutsExpire() {
+        return true;
+    }
+
+    @Override
+    public ProviderHealth health() {
+        return stripeGateway.health();
+    }
+
+    // A webhook secret only vouches for events about its own account's payments
+    private static boolean ownedBy(PaymentEntity payment, String accountId) {
+        if (payment.getAccountId().equals(accountId)) {
+            return true;
         }
+        log.warn("Ignoring Stripe event from account {} for payment {} of account {}",
+                accountId, payment.getId(), payment.getAccountId());
+        return false;
     }
 }
@@ -0,0 +1,27 @@
+package com.manasgoyal.payment.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by hash: bounded memory however many keys there are,
+ * at the cost of unrelated keys occasionally sharing a stripe.
+ */
+final class StripedLock {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    StripedLock(int minStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minStripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    ReentrantLock forKey(Object key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,108 @@
+package com.manasgoyal.payment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manasgoyal.payment.entity.GzipPayloadConverter;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.metrics.PaymentMetrics;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Records each webhook event exactly once. Retries of recently seen events are answered from memory;
+ * everything else is a single {@code INSERT ... ON CONFLICT DO NOTHING} against
+ * {@code uk_webhook_provider_event}, which stays the source of truth.
+ * Only committed events enter the cache, so a rolled-back insert is never mistaken for a duplicate.
+ */
+@Slf4j
+@Component
+public class WebhookDeduplicator {
+
+    private static final GzipPayloadConverter PAYLOAD_CODEC = new GzipPayloadConverter();
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentMetrics paymentMetrics;
+    private final Cache<String, Boolean> recent;
+    private final Duration window;
+    private final int maxSize;
+
+    public WebhookDeduplicator(
+            WebhookEventRepository webhookEventRepository,
+            PaymentMetrics paymentMetrics,
+            @Value("${payment.webhooks.dedupe.window:PT72H}") Duration window,
+            @Value("${payment.webhooks.dedupe.max-size:100000}") int maxSize
+    ) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentMetrics = paymentMetrics;
+        this.window = window;
+        this.maxSize = maxSize;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Inserts the event unless it was already recorded. Must run inside the caller's transaction.
+     *
+     * @return false for a duplicate
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean insertIfNew(PaymentProvider provider, String accountId, String eventId, String eventType,
+                               byte[] rawPayload, WebhookEventStatus status) {
+
+        String key = key(provider, eventId);
+        if (recent.getIfPresent(key) != null) {
+            paymentMetrics.duplicateWebhook(provider, eventType);
+            return false;
+        }
+
+        int inserted = webhookEventRepository.insertIfAbsent(
+                provider.name(), accountId, eventId, eventType, PAYLOAD_CODEC.convertToDatabaseColumn(rawPayload),
+                status.name(), Instant.now());
+
+        if (inserted == 0) {
+            recent.put(key, Boolean.TRUE); // committed by someone else
+            paymentMetrics.duplicateWebhook(provider, eventType);
+            return false;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recent.put(key, Boolean.TRUE);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Preloads events received within the dedupe window, so a restart during a retry storm
+     * does not send every retry to the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        var keys = webhookEventRepository.findRecentKeys(Instant.now().minus(window), PageRequest.of(0, maxSize));
+        keys.forEach(k -> recent.put(key(k.getProvider(), k.getEventId()), Boolean.TRUE));
+        if (!keys.isEmpty()) {
+            log.info("Webhook dedupe cache warmed with {} recent events", keys.size());
+        }
+    }
+
+    private static String key(PaymentProvider provider, String eventId) {
+        return provider.name() + ':' + eventId;
+    }
+}
@@ -0,0 +1,76 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.entity.WebhookEventEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.metrics.PaymentMetrics;
+import com.manasgoyal.payment.provider.PaymentProviders;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class WebhookEventProcessor {
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentProviders paymentProviders;
+    private final PaymentMetrics paymentMetrics;
+
+    /**
+     * Runs one leased inbox event through its provider handler. No-op if the lease was lost.
+     */
+    @Transactional
+    public void process(Long id, String owner) {
+
+        WebhookEventEntity event = webhookEventRepository.findLockedById(id).orElse(null);
+        if (event == null
+                || event.getStatus() != WebhookEventStatus.PROCESSING
+                || !owner.equals(event.getLockedBy())) {
+            return;
+        }
+
+        apply(event.getProvider(), event.getAccountId(), event.getPayload());
+
+        event.setStatus(WebhookEventStatus.PROCESSED);
+        event.setProcessedAt(Instant.now());
+        event.setLockedBy(null);
+        event.setLockedUntil(null);
+        event.setLastError(null);
+
+        PaymentProvider provider = event.getProvider();
+        Instant receivedAt = event.getReceivedAt();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                paymentMetrics.inboxEventCommitted(provider, receivedAt);
+            }
+        });
+    }
+
+    /**
+     * Re-applies a stored event for a replay, bypassing the dedupe and lease checks.
+     * A dry run goes through the same handlers and then rolls back.
+     */
+    @Transactional
+    public void replay(Long id, PaymentProvider provider, String accountId, byte[] payload, boolean dryRun) {
+
+        apply(provider, accountId, payload);
+
+        if (dryRun) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        } else {
+            webhookEventRepository.markReplayed(id, Instant.now());
+        }
+    }
+
+    private void apply(PaymentProvider provider, String accountId, byte[] payload) {
+        paymentProviders.get(provider).processWebhook(accountId, payload);
+    }
+}
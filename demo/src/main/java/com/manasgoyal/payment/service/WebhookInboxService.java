@@ -0,0 +1,86 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.repository.WebhookEventBulkRepository.NewWebhookEvent;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Durable webhook inbox backed by {@code webhook_events} ("accept-then-process" mode).
+ */
+@Service
+@RequiredArgsConstructor
+public class WebhookInboxService {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final WebhookDeduplicator webhookDeduplicator;
+
+    @Value("${payment.webhooks.async.max-attempts:10}")
+    private int maxAttempts;
+
+    /**
+     * Stores a verified event for the inbox workers. Returns false for duplicates.
+     */
+    @Transactional
+    public boolean accept(PaymentProvider provider, String accountId, String eventId, String eventType, byte[] rawPayload) {
+
+        return webhookDeduplicator.insertIfNew(provider, accountId, eventId, eventType, rawPayload, WebhookEventStatus.RECEIVED);
+    }
+
+    /**
+     * Stores a batch of events (backfills, bulk imports) a few hundred rows per statement.
+     * RECEIVED events are applied by the inbox workers, PROCESSED ones are only recorded.
+     *
+     * @return number of events that were not already stored
+     */
+    @Transactional
+    public int acceptAll(List<NewWebhookEvent> events) {
+        return webhookEventRepository.insertAllIfAbsent(events);
+    }
+
+    /**
+     * Leases up to {@code limit} events to {@code owner}. Rows locked by other nodes are skipped,
+     * and events whose lease expired (crashed worker) are picked up again.
+     */
+    @Transactional
+    public List<Long> claim(String owner, int limit, Duration lease) {
+        Instant now = Instant.now();
+        List<Long> ids = webhookEventRepository.lockClaimableIds(now, limit);
+        if (!ids.isEmpty()) {
+            webhookEventRepository.lease(ids, owner, now.plus(lease));
+        }
+        return ids;
+    }
+
+    /**
+     * Releases a failed event back to the inbox with exponential backoff, or parks it as FAILED.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void markFailed(Long id, String owner, Exception error) {
+        webhookEventRepository.findById(id)
+                .filter(event -> owner.equals(event.getLockedBy()))
+                .ifPresent(event -> {
+                    event.setLockedBy(null);
+                    event.setLockedUntil(null);
+                    event.setLastError(Backoff.truncate(String.valueOf(error), 1000));
+
+                    if (event.getAttempts() >= maxAttempts) {
+                        event.setStatus(WebhookEventStatus.FAILED);
+                    } else {
+                        event.setStatus(WebhookEventStatus.RECEIVED);
+                        event.setAvailableAt(Instant.now().plus(Backoff.exponential(event.getAttempts(), MAX_BACKOFF)));
+                    }
+                });
+    }
+}
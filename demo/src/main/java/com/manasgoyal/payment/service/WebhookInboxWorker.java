@@ -0,0 +1,90 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.config.ThreadFactories;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the webhook inbox with a bounded worker pool. Several nodes can run this side by side:
+ * claims use {@code FOR UPDATE SKIP LOCKED} plus a lease that expires if a node dies mid-event.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.webhooks.async.enabled", havingValue = "true")
+public class WebhookInboxWorker {
+
+    private final WebhookInboxService webhookInboxService;
+    private final WebhookEventProcessor webhookEventProcessor;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int batchSize;
+    private final Duration lease;
+    private final String owner;
+
+    public WebhookInboxWorker(
+            WebhookInboxService webhookInboxService,
+            WebhookEventProcessor webhookEventProcessor,
+            ThreadFactories threadFactories,
+            @Value("${payment.webhooks.async.workers:8}") int workers,
+            @Value("${payment.webhooks.async.batch-size:50}") int batchSize,
+            @Value("${payment.webhooks.async.lease:PT2M}") Duration lease
+    ) {
+        this.webhookInboxService = webhookInboxService;
+        this.webhookEventProcessor = webhookEventProcessor;
+        this.executor = Executors.newFixedThreadPool(workers, threadFactories.create("webhook-inbox-"));
+        this.inFlight = new Semaphore(workers);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.owner = nodeName() + "/" + UUID.randomUUID();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.webhooks.async.poll-interval-ms:500}")
+    public void poll() {
+
+        int free = inFlight.availablePermits();
+        if (free == 0) {
+            return; // all workers busy, leave the rest for other nodes
+        }
+
+        List<Long> ids = webhookInboxService.claim(owner, Math.min(free, batchSize), lease);
+
+        for (Long id : ids) {
+            inFlight.acquireUninterruptibly();
+            executor.execute(() -> {
+                try {
+                    webhookEventProcessor.process(id, owner);
+                } catch (Exception e) {
+                    log.warn("Webhook event {} failed, releasing for retry", id, e);
+                    webhookInboxService.markFailed(id, owner, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static String nodeName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.config.ThreadFactories;
+import com.manasgoyal.payment.dto.WebhookReplayRequest;
+import com.manasgoyal.payment.dto.WebhookReplayView;
+import com.manasgoyal.payment.entity.WebhookEventEntity;
+import com.manasgoyal.payment.entity.WebhookReplayEntity;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.entity.enums.WebhookReplayMode;
+import com.manasgoyal.payment.entity.enums.WebhookReplayStatus;
+import com.manasgoyal.payment.provider.PaymentProviders;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.repository.WebhookReplayRepository;
+import com.manasgoyal.payment.webhook.WebhookPayloadArchive;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays stored webhook events through the normal handlers, e.g. after a handler bug fix
+ * or to backfill payments from events that failed.
+ * <ul>
+ *   <li>events are read in id order one page at a time (keyset, no long-running transaction)</li>
+ *   <li>each page is split into lanes by order, so events of one order are applied in the order
+ *   they were received while different orders run in parallel</li>
+ *   <li>after each page the last id and the counters are saved; a paused or interrupted replay
+ *   resumes from there</li>
+ * </ul>
+ * Only PROCESSED and FAILED events are replayed, so a replay never races the inbox workers.
+ */
+@Slf4j
+@Service
+public class WebhookReplayService {
+
+    private final WebhookReplayRepository replayRepository;
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentRepository paymentRepository;
+    private final WebhookEventProcessor webhookEventProcessor;
+    private final PaymentProviders paymentProviders;
+    private final WebhookPayloadArchive payloadArchive;
+    private final ExecutorService runner;
+    private final ExecutorService lanes;
+    private final int parallelism;
+    private final int batchSize;
+    private final Counter replayed;
+    private final Counter failed;
+
+    // Replays running on this node
+    private final ConcurrentMap<Long, Run> active = new ConcurrentHashMap<>();
+
+    public WebhookReplayService(
+            WebhookReplayRepository replayRepository,
+            WebhookEventRepository webhookEventRepository,
+            PaymentRepository paymentRepository,
+            WebhookEventProcessor webhookEventProcessor,
+            PaymentProviders paymentProviders,
+            WebhookPayloadArchive payloadArchive,
+            MeterRegistry meterRegistry,
+            ThreadFactories threadFactories,
+            @Value("${payment.webhooks.replay.parallelism:4}") int parallelism,
+            @Value("${payment.webhooks.replay.batch-size:500}") int batchSize
+    ) {
+        this.replayRepository = replayRepository;
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentRepository = paymentRepository;
+        this.webhookEventProcessor = webhookEventProcessor;
+        this.paymentProviders = paymentProviders;
+        this.payloadArchive = payloadArchive;
+        this.runner = Executors.newCachedThreadPool(threadFactories.create("webhook-replay-"));
+        this.lanes = Executors.newFixedThreadPool(parallelism, threadFactories.create("webhook-replay-lane-"));
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.replayed = replayCounter(meterRegistry, "replayed");
+        this.failed = replayCounter(meterRegistry, "failed");
+    }
+
+    public WebhookReplayView start(WebhookReplayRequest request) {
+        WebhookReplayEntity replay = replayRepository.save(WebhookReplayEntity.builder()
+                .provider(request.provider())
+                .eventType(request.eventType())
+                .receivedFrom(request.receivedFrom())
+                .receivedTo(request.receivedTo())
+                .mode(request.mode())
+                .build());
+        launch(replay);
+        return view(replay);
+    }
+
+    public Optional<WebhookReplayView> find(Long id) {
+        return replayRepository.findById(id).map(this::view);
+    }
+
+    /**
+     * Stops after the page in flight; its checkpoint is saved before the status turns PAUSED.
+     */
+    public WebhookReplayView pause(Long id) {
+        WebhookReplayEntity replay = load(id);
+        Run run = active.get(id);
+        if (run != null) {
+            run.pauseRequested = true;
+        }
+        return view(replay);
+    }
+
+    /**
+     * Continues after the checkpoint. Also picks up replays left RUNNING by a node that went away.
+     */
+    public WebhookReplayView resume(Long id) {
+        WebhookReplayEntity replay = load(id);
+        if (replay.getStatus() == WebhookReplayStatus.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Replay " + id + " already completed");
+        }
+        if (!active.containsKey(id)) {
+            replay.setStatus(WebhookReplayStatus.RUNNING);
+            replay.setLastError(null);
+            replay = replayRepository.save(replay);
+            launch(replay);
+        }
+        return view(replay);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Let every run save its checkpoint and stop as PAUSED
+        active.values().forEach(run -> run.pauseRequested = true);
+        runner.shutdown();
+        runner.awaitTermination(30, TimeUnit.SECONDS);
+        lanes.shutdownNow();
+    }
+
+    private void launch(WebhookReplayEntity replay) {
+        Run run = new Run(replay.getProcessed());
+        if (active.putIfAbsent(replay.getId(), run) != null) {
+            return;
+        }
+        runner.execute(() -> {
+            try {
+                run(replay, run);
+            } finally {
+                active.remove(replay.getId());
+            }
+        });
+    }
+
+    private void run(WebhookReplayEntity replay, Run run) {
+
+        Set<WebhookEventStatus> statuses = replay.getMode() == WebhookReplayMode.FAILED
+                ? Set.of(WebhookEventStatus.FAILED)
+                : Set.of(WebhookEventStatus.PROCESSED, WebhookEventStatus.FAILED);
+        boolean dryRun = replay.getMode() == WebhookReplayMode.DRY_RUN;
+
+        try {
+            while (true) {
+                if (run.pauseRequested) {
+                    finish(replay, WebhookReplayStatus.PAUSED, null);
+                    return;
+                }
+
+                // 1️⃣ Next page after the checkpoint
+                List<WebhookEventEntity> page = webhookEventRepository.findReplayPage(
+                        replay.getCheckpointId(), statuses, replay.getProvider(), replay.getEventType(),
+                        replay.getReceivedFrom(), replay.getReceivedTo(), PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    finish(replay, WebhookReplayStatus.COMPLETED, null);
+                    log.info("Webhook replay {} completed: {} replayed, {} failed",
+                            replay.getId(), replay.getProcessed(), replay.getFailed());
+                    return;
+                }
+
+                // 2️⃣ Lanes by order: sequential within a lane, lanes in parallel
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (List<Replayed> lane : split(page)) {
+                    futures.add(CompletableFuture.runAsync(
+                            () -> lane.forEach(event -> replayOne(event, dryRun, run)), lanes));
+                }
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+                // 3️⃣ Checkpoint: everything up to the last id of the page is done
+                replay.setCheckpointId(page.get(page.size() - 1).getId());
+                replay.setProcessed(run.processed.sum());
+                replay.setFailed(replay.getFailed() + run.failedInPage.sumThenReset());
+                replay.setLastError(run.lastError);
+                replay.setUpdatedAt(Instant.now());
+                replayRepository.save(replay);
+            }
+        } catch (Exception e) {
+            log.error("Webhook replay {} stopped at checkpoint {}", replay.getId(), replay.getCheckpointId(), e);
+            finish(replay, WebhookReplayStatus.FAILED, e.toString());
+        }
+    }
+
+    private void replayOne(Replayed event, boolean dryRun, Run run) {
+        try {
+            if (event.payload() == null) {
+                throw new IllegalStateException("Payload of webhook event " + event.id() + " is no longer available");
+            }
+            webhookEventProcessor.replay(event.id(), event.source().getProvider(), event.source().getAccountId(),
+                    event.payload(), dryRun);
+            run.processed.increment();
+            replayed.increment();
+        } catch (Exception e) {
+            log.warn("Replay of webhook event {} failed", event.id(), e);
+            run.failedInPage.increment();
+            run.lastError = "event " + event.id() + ": " + e.getMessage();
+            failed.increment();
+        }
+    }
+
+    /**
+     * Splits a page into {@code parallelism} lanes keyed by order, in order of receipt within each lane
+     * (receivedAt, not the id: pooled id blocks are not in arrival order across nodes).
+     */
+    private List<List<Replayed>> split(List<WebhookEventEntity> page) {
+
+        List<Replayed> events = new ArrayList<>(page.size());
+        Set<String> references = new HashSet<>();
+        List<WebhookEventEntity> received = new ArrayList<>(page);
+        received.sort(Comparator.comparing(WebhookEventEntity::getReceivedAt).thenComparing(WebhookEventEntity::getId));
+        for (WebhookEventEntity event : received) {
+            byte[] payload = payloadOf(event);
+            String reference = payload != null ? referenceOf(event, payload) : null;
+            events.add(new Replayed(event, payload, reference));
+            if (reference != null) {
+                references.add(reference);
+            }
+        }
+
+        // One query per page resolves provider references to orders
+        Map<String, String> orderByReference = new HashMap<>();
+        if (!references.isEmpty()) {
+            for (PaymentRepository.OrderReference ref : paymentRepository.findOrderReferences(references)) {
+                String orderId = ref.getOrderId().toString();
+                if (ref.getProviderSessionId() != null) orderByReference.put(ref.getProviderSessionId(), orderId);
+                if (ref.getProviderPaymentId() != null) orderByReference.put(ref.getProviderPaymentId(), orderId);
+                if (ref.getProviderOrderId() != null) orderByReference.put(ref.getProviderOrderId(), orderId);
+            }
+        }
+
+        List<List<Replayed>> lanesByKey = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            lanesByKey.add(new ArrayList<>());
+        }
+        for (Replayed event : events) {
+            String key = event.reference() == null
+                    ? event.source().getEventId()
+                    : orderByReference.getOrDefault(event.reference(), event.reference());
+            lanesByKey.get(Math.floorMod(key.hashCode(), parallelism)).add(event);
+        }
+        lanesByKey.removeIf(List::isEmpty);
+        return lanesByKey;
+    }
+
+    private byte[] payloadOf(WebhookEventEntity event) {
+        if (event.getPayload() != null) {
+            return event.getPayload();
+        }
+        if (event.getArchiveRef() == null) {
+            return null;
+        }
+        return payloadArchive.read(event.getArchiveRef(), event.getId())
+                .map(WebhookPayloadArchive.ArchivedPayload::payload)
+                .orElse(null);
+    }
+
+    // Provider reference of the payment the event is about; null if the payload cannot be read
+    private String referenceOf(WebhookEventEntity event, byte[] payload) {
+        try {
+            return paymentProviders.get(event.getProvider()).paymentReference(payload);
+        } catch (RuntimeException e) {
+            return null; // replayOne reports it
+        }
+    }
+
+    private void finish(WebhookReplayEntity replay, WebhookReplayStatus status, String error) {
+        replay.setStatus(status);
+        if (error != null) {
+            replay.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        }
+        replay.setUpdatedAt(Instant.now());
+        replayRepository.save(replay);
+    }
+
+    private WebhookReplayEntity load(Long id) {
+        return replayRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Replay " + id + " not found"));
+    }
+
+    private WebhookReplayView view(WebhookReplayEntity replay) {
+        Run run = active.get(replay.getId());
+        return WebhookReplayView.of(replay, run != null ? run.eventsPerSecond() : 0);
+    }
+
+    private static Counter replayCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("payment.webhook.replay.events")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record Replayed(WebhookEventEntity source, byte[] payload, String reference) {
+        Long id() {
+            return source.getId();
+        }
+    }
+
+    private static final class Run {
+
+        final long startNanos = System.nanoTime();
+        final long processedAtStart;
+        final LongAdder processed = new LongAdder();
+        final LongAdder failedInPage = new LongAdder();
+        volatile boolean pauseRequested;
+        volatile String lastError;
+
+        Run(long processedAtStart) {
+            this.processedAtStart = processedAtStart;
+            this.processed.add(processedAtStart);
+        }
+
+        double eventsPerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds > 0 ? (processed.sum() - processedAtStart) / seconds : 0;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.manasgoyal.payment.service;
+
+import com.manasgoyal.payment.entity.WebhookEventEntity;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.webhook.WebhookPayloadArchive;
+import com.manasgoyal.payment.webhook.WebhookPayloadArchive.ArchivedPayload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keeps {@code webhook_events} small:
+ * processed payloads older than {@code archive-after} move to the archive (the row stays for dedupe),
+ * archived rows older than {@code delete-after} are deleted in batches.
+ * {@code delete-after} must exceed the providers' redelivery window (Stripe retries for 3 days).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payment.webhooks.retention.enabled", havingValue = "true", matchIfMissing = true)
+public class WebhookRetentionJob {
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final WebhookPayloadArchive webhookPayloadArchive;
+
+    @Value("${payment.webhooks.retention.archive-after:P7D}")
+    private Duration archiveAfter;
+
+    @Value("${payment.webhooks.retention.delete-after:P90D}")
+    private Duration deleteAfter;
+
+    @Value("${payment.webhooks.retention.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${payment.webhooks.retention.interval-ms:600000}")
+    public void run() {
+        int archived = 0;
+        int deleted = 0;
+        int n;
+        while ((n = archiveBatch()) > 0) archived += n;
+        while ((n = deleteBatch()) > 0) deleted += n;
+        if (archived > 0 || deleted > 0) {
+            log.info("Webhook retention: archived {} payloads, deleted {} events", archived, deleted);
+        }
+    }
+
+    /**
+     * Archives one batch and returns its size.
+     */
+    public int archiveBatch() {
+
+        List<WebhookEventEntity> batch = webhookEventRepository.findArchivable(
+                WebhookEventStatus.PROCESSED, Instant.now().minus(archiveAfter), PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 1️⃣ Write to cold storage first; a crash after this only re-archives the batch
+        String ref = webhookPayloadArchive.write(batch.stream()
+                .map(e -> new ArchivedPayload(e.getId(), e.getProvider(), e.getEventId(), e.getEventType(),
+                        e.getReceivedAt(), e.getPayload()))
+                .toList());
+
+        // 2️⃣ Drop the payload, keep the dedupe key
+        webhookEventRepository.markArchived(batch.stream().map(WebhookEventEntity::getId).toList(), ref, Instant.now());
+        return batch.size();
+    }
+
+    /**
+     * Deletes one batch of expired, already archived events and returns its size.
+     */
+    public int deleteBatch() {
+        return webhookEventRepository.deleteArchivedBefore(Instant.now().minus(deleteAfter), batchSize);
+    }
+}
@@ -0,0 +1,103 @@
+package com.manasgoyal.payment.webhook;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local-disk archive: one gzip NDJSON file per batch under {@code <dir>/yyyy/MM/dd/}.
+ * Files are written to a temp name and moved into place, so a crash never leaves a partial batch.
+ */
+@Component
+@RegisterReflectionForBinding(FileWebhookPayloadArchive.Line.class)
+public class FileWebhookPayloadArchive implements WebhookPayloadArchive {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy/MM/dd").withZone(ZoneOffset.UTC);
+
+    // One archived event per line; payload bytes are base64 encoded by Jackson
+    record Line(long id, PaymentProvider provider, String eventId, String eventType, String receivedAt, byte[] payload) {}
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final Path root;
+
+    public FileWebhookPayloadArchive(@Value("${payment.webhooks.retention.archive-dir:webhook-archive}") String dir) {
+        this.root = Paths.get(dir);
+    }
+
+    @Override
+    public String write(List<ArchivedPayload> payloads) {
+        if (payloads.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to archive");
+        }
+        ArchivedPayload first = payloads.get(0);
+        String ref = DAY.format(first.receivedAt()) + "/webhook-events-"
+                + first.id() + "-" + payloads.get(payloads.size() - 1).id() + ".ndjson.gz";
+
+        Path target = root.resolve(ref);
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), "webhook-events-", ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tmp)), StandardCharsets.UTF_8))) {
+                for (ArchivedPayload payload : payloads) {
+                    writer.write(objectMapper.writeValueAsString(new Line(payload.id(), payload.provider(),
+                            payload.eventId(), payload.eventType(), payload.receivedAt().toString(), payload.payload())));
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive webhook payloads to " + target, e);
+        }
+        return ref;
+    }
+
+    @Override
+    public Optional<ArchivedPayload> read(String archiveRef, long id) {
+        Path file = root.resolve(archiveRef).normalize();
+        if (!file.startsWith(root.normalize())) {
+            throw new IllegalArgumentException("Archive ref outside archive dir: " + archiveRef);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Line entry = objectMapper.readValue(line, Line.class);
+                if (entry.id() == id) {
+                    return Optional.of(new ArchivedPayload(entry.id(), entry.provider(), entry.eventId(),
+                            entry.eventType(), Instant.parse(entry.receivedAt()), entry.payload()));
+                }
+            }
+            return Optional.empty();
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.manasgoyal.payment.webhook;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a webhook body exactly once into a single array. Signature verification, JSON parsing
+ * and persistence in {@code webhook_events} all work on that array.
+ */
+@Component
+public class WebhookBodyReader {
+
+    @Value("${payment.webhooks.max-body-bytes:1048576}")
+    private int maxBodyBytes;
+
+    public byte[] read(HttpServletRequest request) throws IOException {
+
+        long declared = request.getContentLengthLong();
+        if (declared > maxBodyBytes) {
+            throw new WebhookPayloadTooLargeException(declared, maxBodyBytes); // before reading anything
+        }
+
+        InputStream in = request.getInputStream();
+
+        if (declared >= 0) {
+            // Content-Length known: one exact-size allocation, no intermediate buffers
+            byte[] body = new byte[(int) declared];
+            int read = 0;
+            while (read < body.length) {
+                int n = in.read(body, read, body.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+            return read == body.length ? body : Arrays.copyOf(body, read);
+        }
+
+        // chunked transfer: bounded read, one byte over the limit tells us it is too large
+        byte[] body = in.readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            throw new WebhookPayloadTooLargeException(body.length, maxBodyBytes);
+        }
+        return body;
+    }
+}
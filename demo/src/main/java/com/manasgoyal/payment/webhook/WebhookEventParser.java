@@ -0,0 +1,109 @@
+package com.manasgoyal.payment.webhook;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.manasgoyal.payment.dto.RazorpayWebhookEvent;
+import com.manasgoyal.payment.dto.SimulatedWebhookEvent;
+import com.manasgoyal.payment.dto.StripeWebhookEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Single-pass streaming extraction of the few webhook fields we act on. Objects that are not
+ * on the way to a wanted field are skipped without being materialised, and parsing stops as
+ * soon as every wanted field has been seen.
+ */
+@Component
+public class WebhookEventParser {
+
+    private static final String[] STRIPE_PATHS = {
+            "id", "type", "data.object.id", "data.object.payment_intent"
+    };
+
+    private static final String[] RAZORPAY_PATHS = {
+            "event", "payload.payment.entity.id", "payload.payment.entity.order_id"
+    };
+
+    private static final String[] SIMULATED_PATHS = {
+            "id", "type", "data.session", "data.payment"
+    };
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public StripeWebhookEvent parseStripe(byte[] body) {
+        String[] v = extract(body, STRIPE_PATHS);
+        return new StripeWebhookEvent(v[0], v[1], v[2], v[3]);
+    }
+
+    public RazorpayWebhookEvent parseRazorpay(byte[] body) {
+        String[] v = extract(body, RAZORPAY_PATHS);
+        return new RazorpayWebhookEvent(v[0], v[1], v[2]);
+    }
+
+    public SimulatedWebhookEvent parseSimulated(byte[] body) {
+        String[] v = extract(body, SIMULATED_PATHS);
+        return new SimulatedWebhookEvent(v[0], v[1], v[2], v[3]);
+    }
+
+    private String[] extract(byte[] body, String[] paths) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Webhook payload is not a JSON object");
+            }
+            String[] values = new String[paths.length];
+            walkObject(parser, "", paths, values, new int[1]);
+            return values;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed webhook payload", e);
+        }
+    }
+
+    /**
+     * Walks the object the parser is positioned in. Returns false once every path has been found.
+     */
+    private boolean walkObject(JsonParser parser, String prefix, String[] paths, String[] values, int[] found)
+            throws IOException {
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = prefix.isEmpty() ? parser.currentName() : prefix + "." + parser.currentName();
+            JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.START_OBJECT) {
+                if (!leadsToWantedPath(path, paths)) {
+                    parser.skipChildren();
+                } else if (!walkObject(parser, path, paths, values, found)) {
+                    return false;
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else {
+                int index = indexOf(path, paths);
+                if (index >= 0 && token != JsonToken.VALUE_NULL) {
+                    values[index] = parser.getText();
+                    if (++found[0] == paths.length) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean leadsToWantedPath(String path, String[] paths) {
+        for (String wanted : paths) {
+            if (wanted.length() > path.length() && wanted.startsWith(path) && wanted.charAt(path.length()) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(String path, String[] paths) {
+        for (int i = 0; i < paths.length; i++) {
+            if (paths[i].equals(path)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,29 @@
+package com.manasgoyal.payment.webhook;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cold storage for webhook payloads that no longer need to live in {@code webhook_events}.
+ */
+public interface WebhookPayloadArchive {
+
+    record ArchivedPayload(
+            long id,
+            PaymentProvider provider,
+            String eventId,
+            String eventType,
+            Instant receivedAt,
+            byte[] payload
+    ) {}
+
+    /**
+     * Durably stores the batch and returns a reference to it; rows may be cleared only after this returns.
+     */
+    String write(List<ArchivedPayload> payloads);
+
+    Optional<ArchivedPayload> read(String archiveRef, long id);
+}
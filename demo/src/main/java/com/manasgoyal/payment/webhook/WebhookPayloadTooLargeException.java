@@ -0,0 +1,12 @@
+package com.manasgoyal.payment.webhook;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONTENT_TOO_LARGE)
+public class WebhookPayloadTooLargeException extends RuntimeException {
+
+    public WebhookPayloadTooLargeException(long size, int limit) {
+        super("Webhook body of " + size + " bytes exceeds the " + limit + " byte limit");
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.client.CaffeineOrderSummaryCache;
+import com.manasgoyal.payment.dto.OrderSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CaffeineOrderSummaryCacheTests {
+
+    private final CaffeineOrderSummaryCache cache = new CaffeineOrderSummaryCache(Duration.ofMinutes(1), 100);
+
+    @Test
+    void concurrentLookupsShareOneLoad() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<OrderSummary> first = CompletableFuture.supplyAsync(() -> cache.get(orderId, id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return new OrderSummary(id, 49900, "INR");
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<OrderSummary> second = CompletableFuture.supplyAsync(() -> cache.get(orderId, id -> {
+            loads.incrementAndGet();
+            return new OrderSummary(id, 1, "USD");
+        }));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(second.get(5, TimeUnit.SECONDS));
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void failuresAreNotCachedAndInvalidateForcesReload() {
+        UUID orderId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> cache.get(orderId, id -> {
+            throw new IllegalStateException("order-service down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(orderId, id -> new OrderSummary(id, loads.incrementAndGet(), "INR"));
+        cache.get(orderId, id -> new OrderSummary(id, loads.incrementAndGet(), "INR"));
+        cache.invalidate(orderId);
+        OrderSummary reloaded = cache.get(orderId, id -> new OrderSummary(id, loads.incrementAndGet(), "INR"));
+
+        assertThat(reloaded.totalAmount()).isEqualTo(2);
+        assertThat(cache.stats().loadFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void errorsInTheLoaderAreNotCachedEither() {
+        UUID orderId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> cache.get(orderId, id -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        assertThat(cache.get(orderId, id -> new OrderSummary(id, 49900, "INR")).totalAmount()).isEqualTo(49900);
+        assertThat(cache.stats().loadFailures()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Small chunks so a page spans several keyset chunks (and transactions); own database, as the properties make a new context
+@SpringBootTest(
+        classes = PaymentApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:payment_export;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "payment.export.chunk-size=2"
+        }
+)
+@AutoConfigureMockMvc
+class ExportControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void exportsPagesInIdOrderAndResumesAfterTheLastId() throws Exception {
+        Instant from = Instant.now();
+        List<Long> ids = paymentRepository.saveAll(List.of(
+                payment(PaymentStatus.PAID), payment(PaymentStatus.FAILED), payment(PaymentStatus.PAID),
+                payment(PaymentStatus.PAID), payment(PaymentStatus.PAID), payment(PaymentStatus.PENDING)
+        )).stream().map(PaymentEntity::getId).sorted().toList();
+
+        String firstPage = mockMvc.perform(get("/api/admin/exports/payments")
+                        .param("provider", "STRIPE").param("status", "paid")
+                        .param("from", from.toString()).param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+        List<String> rows = firstPage.lines().toList();
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0)).startsWith("{\"id\":" + ids.get(0) + ",").contains("\"status\":\"PAID\"", "\"amount\":49900");
+        assertThat(rows.get(2)).startsWith("{\"id\":" + ids.get(3) + ",");
+
+        byte[] rest = mockMvc.perform(get("/api/admin/exports/payments")
+                        .param("provider", "STRIPE").param("status", "PAID").param("from", from.toString())
+                        .param("afterId", ids.get(3).toString()).param("format", "csv")
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        List<String> csv = new String(new GZIPInputStream(new ByteArrayInputStream(rest)).readAllBytes(), StandardCharsets.UTF_8)
+                .lines().toList();
+        assertThat(csv.get(0)).startsWith("id,orderId,provider,accountId,status,");
+        assertThat(csv).hasSize(2);
+        assertThat(csv.get(1)).startsWith(ids.get(4) + ",").contains(",STRIPE,default,PAID,", ",49900,EUR,");
+    }
+
+    @Test
+    void rejectsUnknownStatusesAndFormats() throws Exception {
+        mockMvc.perform(get("/api/admin/exports/webhook-events").param("status", "PAID"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/exports/payments").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private PaymentEntity payment(PaymentStatus status) {
+        return PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.STRIPE)
+                .providerSessionId("cs_" + UUID.randomUUID())
+                .status(status)
+                .amount(49900L)
+                .currency("EUR")
+                .build();
+    }
+}
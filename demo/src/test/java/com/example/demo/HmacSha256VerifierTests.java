@@ -0,0 +1,54 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HmacSha256VerifierTests {
+
+    // RFC 4231 test case 2
+    private static final String KEY = "Jefe";
+    private static final byte[] DATA = "what do ya want for nothing?".getBytes(StandardCharsets.UTF_8);
+    private static final String MAC = "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843";
+
+    @Test
+    void verifiesKnownSignature() {
+        HmacSha256Verifier verifier = new HmacSha256Verifier(List.of(KEY));
+
+        assertThat(verifier.signHex(DATA)).isEqualTo(MAC);
+        assertThat(verifier.verifyHex(DATA, MAC)).isTrue();
+        assertThat(verifier.verifyHex(DATA, MAC.toUpperCase())).isTrue();
+        assertThat(verifier.verifyHex("what do ya want for nothing?".getBytes(StandardCharsets.UTF_8), MAC)).isTrue();
+    }
+
+    @Test
+    void rejectsTamperedOrMalformedSignatures() {
+        HmacSha256Verifier verifier = new HmacSha256Verifier(List.of(KEY));
+
+        assertThat(verifier.verifyHex(DATA, MAC.replace('5', '6'))).isFalse();
+        assertThat(verifier.verifyHex(DATA, MAC.substring(2))).isFalse();
+        assertThat(verifier.verifyHex(DATA, "zz" + MAC.substring(2))).isFalse();
+        assertThat(verifier.verifyHex(DATA, null)).isFalse();
+    }
+
+    @Test
+    void acceptsPreviousSecretDuringRotation() {
+        HmacSha256Verifier verifier = new HmacSha256Verifier(List.of("new-secret", KEY));
+
+        assertThat(verifier.verifyHex(DATA, MAC)).isTrue();
+        assertThat(verifier.signHex(DATA)).isNotEqualTo(MAC);
+    }
+
+    @Test
+    void joinsPartsWithSeparator() {
+        HmacSha256Verifier verifier = new HmacSha256Verifier(List.of(KEY));
+        String signature = verifier.signHex("order_1|pay_1".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(verifier.verifyHex(signature, '|', "order_1", "pay_1")).isTrue();
+        assertThat(verifier.verifyHex(signature, '|', "order_1", "pay_2")).isFalse();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.dto.CreateStripeCheckoutResponse;
+import com.manasgoyal.payment.service.IdempotencyKeyMismatchException;
+import com.manasgoyal.payment.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = PaymentApplication.class)
+class IdempotencyServiceTests {
+
+    private static final String ACCOUNT = ProviderAccountRegistry.DEFAULT_ACCOUNT;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Test
+    void replaysStoredResponseForSameKey() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            CreateStripeCheckoutResponse response = idempotencyService.execute(
+                    "stripe-checkout", ACCOUNT, "key-replay", "order-1", CreateStripeCheckoutResponse.class,
+                    () -> new CreateStripeCheckoutResponse("https://checkout/" + calls.incrementAndGet())
+            );
+            assertThat(response.checkoutUrl()).isEqualTo("https://checkout/1");
+        }
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void keysAreScopedToTheAccount() throws Exception {
+        CreateStripeCheckoutResponse first = idempotencyService.execute(
+                "stripe-checkout", ACCOUNT, "key-accounts", "order-1", CreateStripeCheckoutResponse.class,
+                () -> new CreateStripeCheckoutResponse("https://checkout/default"));
+        CreateStripeCheckoutResponse other = idempotencyService.execute(
+                "stripe-checkout", "acme", "key-accounts", "order-1", CreateStripeCheckoutResponse.class,
+                () -> new CreateStripeCheckoutResponse("https://checkout/acme"));
+
+        assertThat(first.checkoutUrl()).isEqualTo("https://checkout/default");
+        assertThat(other.checkoutUrl()).isEqualTo("https://checkout/acme");
+    }
+
+    @Test
+    void rejectsKeyReusedForAnotherRequest() throws Exception {
+        idempotencyService.execute("stripe-checkout", ACCOUNT, "key-mismatch", "order-1", CreateStripeCheckoutResponse.class,
+                () -> new CreateStripeCheckoutResponse("https://checkout/1"));
+
+        assertThatThrownBy(() -> idempotencyService.execute(
+                "stripe-checkout", ACCOUNT, "key-mismatch", "order-2", CreateStripeCheckoutResponse.class,
+                () -> new CreateStripeCheckoutResponse("https://checkout/2")))
+                .isInstanceOf(IdempotencyKeyMismatchException.class);
+    }
+
+    @Test
+    void failedRequestCanBeRetriedWithSameKey() throws Exception {
+        assertThatThrownBy(() -> idempotencyService.execute(
+                "stripe-checkout", ACCOUNT, "key-retry", "order-1", CreateStripeCheckoutResponse.class,
+                () -> { throw new RuntimeException("provider down"); }))
+                .hasMessage("provider down");
+
+        CreateStripeCheckoutResponse response = idempotencyService.execute(
+                "stripe-checkout", ACCOUNT, "key-retry", "order-1", CreateStripeCheckoutResponse.class,
+                () -> new CreateStripeCheckoutResponse("https://checkout/ok"));
+        assertThat(response.checkoutUrl()).isEqualTo("https://checkout/ok");
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.dto.PaymentStatusUpdateRequest;
+import com.manasgoyal.payment.entity.OrderOutboxEntity;
+import com.manasgoyal.payment.entity.enums.OutboxStatus;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.OrderOutboxRepository;
+import com.manasgoyal.payment.service.OrderOutboxDispatcher;
+import com.manasgoyal.payment.service.OrderOutboxService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        classes = PaymentApplication.class,
+        properties = {
+                "order.outbox.dispatcher.enabled=true",
+                "order.outbox.poll-interval-ms=3600000"
+        }
+)
+class OrderOutboxTests {
+
+    private static final StubOrderService ORDER_SERVICE = startStub();
+
+    @DynamicPropertySource
+    static void orderServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("order.service.url", ORDER_SERVICE::url);
+    }
+
+    @Autowired
+    private OrderOutboxService orderOutboxService;
+
+    @Autowired
+    private OrderOutboxDispatcher orderOutboxDispatcher;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        orderOutboxRepository.deleteAll();
+        ORDER_SERVICE.reset();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        ORDER_SERVICE.close();
+    }
+
+    @Test
+    void deliversEventsOfOneOrderInWriteOrder() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            orderOutboxService.enqueue(first, new PaymentStatusUpdateRequest(PaymentStatus.FAILED, "pi_1"));
+            orderOutboxService.enqueue(first, new PaymentStatusUpdateRequest(PaymentStatus.PAID, "pi_2"));
+            orderOutboxService.enqueue(second, new PaymentStatusUpdateRequest(PaymentStatus.PAID, "pay_1"));
+        });
+
+        assertThat(orderOutboxDispatcher.dispatchBatch()).isEqualTo(2);
+        assertThat(orderOutboxDispatcher.dispatchBatch()).isEqualTo(1);
+        assertThat(orderOutboxDispatcher.dispatchBatch()).isZero();
+
+        assertThat(ORDER_SERVICE.calls())
+                .filteredOn(call -> call.path().contains(first.toString()))
+                .extracting(StubOrderService.Call::body)
+                .containsExactly(
+                        "{\"paymentStatus\":\"FAILED\",\"paymentReferenceId\":\"pi_1\"}",
+                        "{\"paymentStatus\":\"PAID\",\"paymentReferenceId\":\"pi_2\"}"
+                );
+        assertThat(orderOutboxRepository.findAll())
+                .extracting(OrderOutboxEntity::getStatus)
+                .containsOnly(OutboxStatus.DELIVERED);
+    }
+
+    @Test
+    void failedDeliveryIsRescheduledWithBackoff() {
+        transactionTemplate.executeWithoutResult(tx -> orderOutboxService.enqueue(
+                UUID.randomUUID(), new PaymentStatusUpdateRequest(PaymentStatus.PAID, "pay_2")));
+        ORDER_SERVICE.failNext(1);
+
+        assertThat(orderOutboxDispatcher.dispatchBatch()).isEqualTo(1);
+
+        OrderOutboxEntity event = orderOutboxRepository.findAll().get(0);
+        assertThat(event.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getAvailableAt()).isAfter(Instant.now());
+        assertThat(orderOutboxDispatcher.dispatchBatch()).isZero();
+    }
+
+    private static StubOrderService startStub() {
+        try {
+            return new StubOrderService();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.example.demo;
 
 import com.manasgoyal.payment.PaymentApplication;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest(classes = PaymentApplication.class)
 class PaymentApplicationTests {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void publishesOrderSummaryCacheMetrics() {
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "order.summary").functionCounters()).hasSize(2);
+        assertThat(meterRegistry.find("cache.size").tag("cache", "order.summary").gauge()).isNotNull();
+    }
+
 }
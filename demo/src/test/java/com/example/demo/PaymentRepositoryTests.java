@@ -0,0 +1,55 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = PaymentApplication.class)
+@Transactional
+class PaymentRepositoryTests {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void findsPaymentByProviderReferences() {
+        UUID orderId = UUID.randomUUID();
+        paymentRepository.save(razorpayPayment(orderId, "order_lookup_1"));
+        paymentRepository.save(razorpayPayment(UUID.randomUUID(), "order_lookup_2"));
+
+        assertThat(paymentRepository.findByProviderOrderId("order_lookup_1"))
+                .get()
+                .extracting(PaymentEntity::getOrderId)
+                .isEqualTo(orderId);
+        assertThat(paymentRepository.findByProviderOrderId("order_missing")).isEmpty();
+    }
+
+    @Test
+    void rejectsDuplicateProviderOrderId() {
+        paymentRepository.saveAndFlush(razorpayPayment(UUID.randomUUID(), "order_dup"));
+
+        assertThatThrownBy(() -> paymentRepository.saveAndFlush(razorpayPayment(UUID.randomUUID(), "order_dup")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private PaymentEntity razorpayPayment(UUID orderId, String providerOrderId) {
+        return PaymentEntity.builder()
+                .orderId(orderId)
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId(providerOrderId)
+                .status(PaymentStatus.PENDING)
+                .build();
+    }
+}
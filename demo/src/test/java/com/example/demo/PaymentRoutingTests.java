@@ -0,0 +1,153 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.gateway.ProviderHealth;
+import com.manasgoyal.payment.provider.PaymentProviderAdapter;
+import com.manasgoyal.payment.provider.PaymentProviders;
+import com.manasgoyal.payment.provider.PaymentRouter;
+import com.manasgoyal.payment.provider.SimulatedPaymentProvider;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(
+        classes = PaymentApplication.class,
+        properties = {
+                // only the simulated provider takes checkouts here
+                "payment.routing.stripe.weight=0",
+                "payment.routing.razorpay.weight=0"
+        }
+)
+@AutoConfigureMockMvc
+class PaymentRoutingTests {
+
+    private static final StubOrderService ORDER_SERVICE = startStub();
+    private static final HmacSha256Verifier SIMULATED_SIGNER = new HmacSha256Verifier(List.of("whsec_simulated"));
+
+    @DynamicPropertySource
+    static void orderServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("order.service.url", ORDER_SERVICE::url);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SimulatedPaymentProvider simulatedProvider;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @AfterAll
+    static void stopStub() {
+        ORDER_SERVICE.close();
+    }
+
+    @Test
+    void routedCheckoutIsPaidThroughTheProviderWebhook() throws Exception {
+        UUID orderId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/payments/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orderId\":\"" + orderId + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.provider").value("SIMULATED"));
+
+        PaymentEntity payment = paymentRepository.findByOrderIdAndProvider(orderId, PaymentProvider.SIMULATED).orElseThrow();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PENDING);
+
+        String paymentId = simulatedProvider.complete(payment.getProviderSessionId(), true);
+        byte[] body = """
+                {"id":"evt_sim_%s","type":"payment.succeeded","data":{"session":"%s","payment":"%s"}}
+                """.formatted(UUID.randomUUID(), payment.getProviderSessionId(), paymentId).getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/webhooks/simulated")
+                        .header("X-Simulated-Signature", SIMULATED_SIGNER.signHex(body))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.PAID);
+    }
+
+    @Test
+    void adaptiveRoutingShiftsTrafficAwayFromADegradedProvider() {
+        PaymentProviderAdapter healthy = adapter(PaymentProvider.STRIPE, new ProviderHealth("stripe", 100, Duration.ofMillis(300), 0, false));
+        PaymentProviderAdapter degraded = adapter(PaymentProvider.SIMULATED, new ProviderHealth("simulated", 100, Duration.ofSeconds(8), 0.5, false));
+        PaymentProviders providers = new PaymentProviders(List.of(healthy, degraded));
+
+        PaymentRouter adaptive = new PaymentRouter(providers, new MockEnvironment(), PaymentRouter.Mode.ADAPTIVE, Duration.ofSeconds(2), 20, 0.05);
+        PaymentRouter weighted = new PaymentRouter(providers, new MockEnvironment(), PaymentRouter.Mode.WEIGHTED, Duration.ofSeconds(2), 20, 0.05);
+
+        // degraded: 1 × (2s / 8s) × (1 - 0.5) = 0.125 against 1, about 11% of checkouts
+        assertThat(shareOf(degraded, adaptive)).isBetween(0.05, 0.2);
+        assertThat(shareOf(degraded, weighted)).isBetween(0.4, 0.6);
+        assertThat(adaptive.route("USD")).containsExactlyInAnyOrder(healthy, degraded);
+    }
+
+    @Test
+    void onlyProvidersTakingTheCurrencyAreCandidates() {
+        PaymentProviderAdapter stripe = adapter(PaymentProvider.STRIPE, new ProviderHealth("stripe", 0, Duration.ZERO, 0, false));
+        PaymentProviderAdapter razorpay = adapter(PaymentProvider.RAZORPAY, new ProviderHealth("razorpay", 0, Duration.ZERO, 0, false));
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("payment.routing.razorpay.currencies", "INR")
+                .withProperty("payment.routing.stripe.currencies", "USD, EUR");
+
+        PaymentRouter router = new PaymentRouter(new PaymentProviders(List.of(stripe, razorpay)), environment,
+                PaymentRouter.Mode.ADAPTIVE, Duration.ofSeconds(2), 20, 0.05);
+
+        assertThat(router.route("inr")).containsExactly(razorpay);
+        assertThat(router.route("EUR")).containsExactly(stripe);
+        assertThat(router.route("JPY")).isEmpty();
+    }
+
+    private static double shareOf(PaymentProviderAdapter adapter, PaymentRouter router) {
+        int picked = 0;
+        int draws = 4000;
+        for (int i = 0; i < draws; i++) {
+            if (router.route("USD").get(0) == adapter) picked++;
+        }
+        return (double) picked / draws;
+    }
+
+    private static PaymentProviderAdapter adapter(PaymentProvider provider, ProviderHealth health) {
+        PaymentProviderAdapter adapter = mock(PaymentProviderAdapter.class);
+        when(adapter.provider()).thenReturn(provider);
+        when(adapter.health()).thenReturn(health);
+        return adapter;
+    }
+
+    private static StubOrderService startStub() {
+        try {
+            return new StubOrderService();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
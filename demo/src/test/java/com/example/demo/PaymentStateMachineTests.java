@@ -0,0 +1,133 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.dto.RazorpayVerifyPaymentRequest;
+import com.manasgoyal.payment.dto.RazorpayWebhookEvent;
+import com.manasgoyal.payment.dto.StripeWebhookEvent;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.OrderOutboxRepository;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import com.manasgoyal.payment.service.RazorpayPaymentService;
+import com.manasgoyal.payment.service.StripePaymentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = PaymentApplication.class)
+class PaymentStateMachineTests {
+
+    // must match src/test/resources/application.properties (razorpay.keySecret)
+    private static final HmacSha256Verifier RAZORPAY_KEY = new HmacSha256Verifier(List.of("dummy"));
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private StripePaymentService stripePaymentService;
+
+    @Autowired
+    private RazorpayPaymentService razorpayPaymentService;
+
+    @Test
+    void latePaymentFailedDoesNotOverwritePaid() {
+        UUID orderId = UUID.randomUUID();
+        String paymentIntentId = "pi_" + UUID.randomUUID();
+        paymentRepository.save(PaymentEntity.builder()
+                .orderId(orderId)
+                .provider(PaymentProvider.STRIPE)
+                .providerSessionId("cs_" + UUID.randomUUID())
+                .providerPaymentId(paymentIntentId)
+                .status(PaymentStatus.PAID)
+                .build());
+
+        stripePaymentService.handleStripeEvent(
+                ProviderAccountRegistry.DEFAULT_ACCOUNT,
+                new StripeWebhookEvent("evt_" + UUID.randomUUID(), "payment_intent.payment_failed", paymentIntentId, null),
+                new byte[0]);
+
+        assertThat(paymentRepository.findByOrderIdAndProvider(orderId, PaymentProvider.STRIPE))
+                .get().extracting(PaymentEntity::getStatus).isEqualTo(PaymentStatus.PAID);
+        assertThat(outboxEvents(orderId)).isZero();
+    }
+
+    @Test
+    void transitionAdvancesUpdatedAt() {
+        UUID orderId = UUID.randomUUID();
+        String paymentIntentId = "pi_" + UUID.randomUUID();
+        PaymentEntity created = paymentRepository.save(PaymentEntity.builder()
+                .orderId(orderId)
+                .provider(PaymentProvider.STRIPE)
+                .providerSessionId("cs_" + UUID.randomUUID())
+                .providerPaymentId(paymentIntentId)
+                .status(PaymentStatus.PENDING)
+                .build());
+
+        stripePaymentService.handleStripeEvent(
+                ProviderAccountRegistry.DEFAULT_ACCOUNT,
+                new StripeWebhookEvent("evt_" + UUID.randomUUID(), "payment_intent.payment_failed", paymentIntentId, null),
+                new byte[0]);
+
+        PaymentEntity failed = paymentRepository.findById(created.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(failed.getUpdatedAt()).isAfter(created.getUpdatedAt());
+    }
+
+    @Test
+    void concurrentVerifyAndWebhookNotifyOrderServiceOnce() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        String razorpayOrderId = "order_" + UUID.randomUUID();
+        String paymentId = "pay_" + UUID.randomUUID();
+        paymentRepository.save(PaymentEntity.builder()
+                .orderId(orderId)
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId(razorpayOrderId)
+                .status(PaymentStatus.PENDING)
+                .build());
+
+        String signature = RAZORPAY_KEY.signHex((razorpayOrderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8));
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<Void> verify = CompletableFuture.runAsync(() -> {
+            await(start);
+            razorpayPaymentService.verifyPayment(new RazorpayVerifyPaymentRequest(orderId, razorpayOrderId, paymentId, signature));
+        });
+        CompletableFuture<Void> webhook = CompletableFuture.runAsync(() -> {
+            await(start);
+            razorpayPaymentService.handleWebhook(ProviderAccountRegistry.DEFAULT_ACCOUNT,
+                    new RazorpayWebhookEvent("payment.captured", paymentId, razorpayOrderId), "evt_" + UUID.randomUUID(), new byte[0]);
+        });
+        start.countDown();
+        CompletableFuture.allOf(verify, webhook).join();
+
+        PaymentEntity payment = paymentRepository.findByOrderIdAndProvider(orderId, PaymentProvider.RAZORPAY).orElseThrow();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(payment.getVersion()).isEqualTo(1L);
+        assertThat(outboxEvents(orderId)).isEqualTo(1);
+    }
+
+    private long outboxEvents(UUID orderId) {
+        return orderOutboxRepository.findAll().stream().filter(e -> orderId.equals(e.getOrderId())).count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
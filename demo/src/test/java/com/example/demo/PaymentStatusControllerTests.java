@@ -0,0 +1,114 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.dto.RazorpayWebhookEvent;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.service.PaymentStatusService;
+import com.manasgoyal.payment.service.RazorpayPaymentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = PaymentApplication.class)
+@AutoConfigureMockMvc
+class PaymentStatusControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RazorpayPaymentService razorpayPaymentService;
+
+    @Autowired
+    private PaymentStatusService paymentStatusService;
+
+    @Test
+    void statusSupportsConditionalGet() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        paymentRepository.save(pendingRazorpayPayment(orderId, "order_" + UUID.randomUUID()));
+
+        String etag = mockMvc.perform(get("/api/payments/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("PENDING"))
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/payments/{orderId}", orderId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/payments/{orderId}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void streamPushesStatusOnceTheWebhookCommits() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        String razorpayOrderId = "order_" + UUID.randomUUID();
+        paymentRepository.save(pendingRazorpayPayment(orderId, razorpayOrderId));
+
+        MvcResult stream = mockMvc.perform(get("/api/payments/{orderId}/events", orderId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(stream.getResponse().getContentAsString()).contains("\"status\":\"PENDING\"");
+
+        razorpayPaymentService.handleWebhook(ProviderAccountRegistry.DEFAULT_ACCOUNT,
+                new RazorpayWebhookEvent("payment.captured", "pay_stream", razorpayOrderId), "evt_" + UUID.randomUUID(), new byte[0]);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!stream.getResponse().getContentAsString().contains("\"status\":\"PAID\"")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(stream.getResponse().getContentAsString())
+                .contains("event:payment-status")
+                .contains("\"paymentReferenceId\":\"pay_stream\"");
+    }
+
+    @Test
+    void heartbeatPushesChangesCommittedElsewhere() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        PaymentEntity payment = paymentRepository.save(pendingRazorpayPayment(orderId, "order_" + UUID.randomUUID()));
+
+        MvcResult stream = mockMvc.perform(get("/api/payments/{orderId}/events", orderId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // a plain save publishes no status event, like a transition committed on another node
+        payment.setStatus(PaymentStatus.FAILED);
+        paymentRepository.save(payment);
+        paymentStatusService.heartbeat();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!stream.getResponse().getContentAsString().contains("\"status\":\"FAILED\"")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(stream.getResponse().getContentAsString()).contains("\"status\":\"FAILED\"");
+    }
+
+    private PaymentEntity pendingRazorpayPayment(UUID orderId, String providerOrderId) {
+        return PaymentEntity.builder()
+                .orderId(orderId)
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId(providerOrderId)
+                .status(PaymentStatus.PENDING)
+                .amount(49900L)
+                .currency("INR")
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.OrderOutboxRepository;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.service.PendingPaymentService;
+import com.manasgoyal.payment.service.PendingPaymentSweeper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = PaymentApplication.class)
+class PendingPaymentSweeperTests {
+
+    @Autowired
+    private PendingPaymentSweeper pendingPaymentSweeper;
+
+    @Autowired
+    private PendingPaymentService pendingPaymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void checkoutThatNeverReachedTheProviderIsFailed() {
+        PaymentEntity payment = stalePayment(Duration.ofHours(2));
+
+        pendingPaymentSweeper.sweepBatch();
+
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.FAILED);
+        assertThat(orderOutboxRepository.findAll())
+                .anyMatch(e -> e.getOrderId().equals(payment.getOrderId()) && e.getPaymentStatus() == PaymentStatus.FAILED);
+    }
+
+    @Test
+    void claimedPaymentIsNotClaimedAgainBeforeRecheck() {
+        PaymentEntity payment = stalePayment(Duration.ofDays(400)); // older than anything else in the table
+
+        assertThat(pendingPaymentService.claim(Duration.ofDays(399), 10, Duration.ofMinutes(10)))
+                .extracting(PaymentEntity::getId)
+                .containsExactly(payment.getId());
+        assertThat(pendingPaymentService.claim(Duration.ofDays(399), 10, Duration.ofMinutes(10))).isEmpty();
+    }
+
+    @Test
+    void recentPaymentIsLeftAlone() {
+        PaymentEntity payment = paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.STRIPE)
+                .status(PaymentStatus.CREATED)
+                .build());
+
+        pendingPaymentSweeper.sweepBatch();
+
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.CREATED);
+    }
+
+    // A checkout that failed before the Stripe session was created, last touched `age` ago
+    private PaymentEntity stalePayment(Duration age) {
+        PaymentEntity payment = paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.STRIPE)
+                .status(PaymentStatus.CREATED)
+                .build());
+        jdbcTemplate.update("UPDATE payments SET updated_at = ? WHERE id = ?",
+                Timestamp.from(Instant.now().minus(age)), payment.getId());
+        return payment;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.dto.ReconciliationRequest;
+import com.manasgoyal.payment.dto.ReconciliationView;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.entity.enums.ReconciliationStatus;
+import com.manasgoyal.payment.reconciliation.ReconciliationService;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = PaymentApplication.class)
+class ReconciliationTests {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void reportsDiscrepanciesAndCorrectsStatus() throws Exception {
+        String run = UUID.randomUUID().toString();
+        PaymentEntity missedCapture = payment("order_a_" + run, PaymentStatus.PENDING, 49900L);
+        PaymentEntity wrongAmount = payment("order_b_" + run, PaymentStatus.PAID, 10000L);
+        PaymentEntity notSettled = payment("order_d_" + run, PaymentStatus.PAID, 5000L);
+        payment("order_e_" + run, PaymentStatus.PAID, 7000L);
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        String now = String.valueOf(System.currentTimeMillis() / 1000);
+        String file = "razorpay-" + run + ".csv";
+        write(file, List.of(
+                "entity_id,order_id,amount,currency,status,created_at,notes",
+                "pay_1,order_a_" + run + ",499.00,INR,captured," + now + ",\"first, retried\"",
+                "pay_2,order_b_" + run + ",20000,INR,captured," + now + ",",
+                "pay_3,order_c_" + run + ",100,INR,captured," + now + ",",
+                "pay_4,order_e_" + run + ",7000,INR,authorized," + now + ",",
+                "pay_5,order_e_" + run + ",7000,INR,captured," + now + ",",
+                "pay_6,order_old_" + run + ",100,INR,captured," + today.minusDays(30) + " 10:00:00,"
+        ));
+
+        ReconciliationView view = awaitDone(reconciliationService.start(new ReconciliationRequest(
+                PaymentProvider.RAZORPAY, null, file, today, today.plusDays(1), true)));
+
+        assertThat(view.status()).isEqualTo(ReconciliationStatus.COMPLETED);
+        assertThat(view.rowsRead()).isEqualTo(6);
+        assertThat(view.rowsSkipped()).isEqualTo(1);
+        assertThat(paymentRepository.findById(missedCapture.getId()).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PAID);
+
+        List<String> report = Files.readAllLines(Path.of(view.reportPath()));
+        assertThat(report).anyMatch(line -> line.startsWith("STATUS_MISMATCH,order_a_" + run) && line.endsWith(",true"));
+        assertThat(report).anyMatch(line -> line.startsWith("AMOUNT_MISMATCH,order_b_" + run + "," + wrongAmount.getId()));
+        assertThat(report).anyMatch(line -> line.startsWith("MISSING_LOCALLY,order_c_" + run + ",,"));
+        assertThat(report).anyMatch(line -> line.startsWith("MISSING_AT_PROVIDER,order_d_" + run + "," + notSettled.getId()));
+        assertThat(report).noneMatch(line -> line.contains("order_e_" + run) || line.contains("order_old_" + run));
+    }
+
+    private PaymentEntity payment(String providerOrderId, PaymentStatus status, long amount) {
+        return paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId(providerOrderId)
+                .status(status)
+                .amount(amount)
+                .currency("INR")
+                .build());
+    }
+
+    private void write(String file, List<String> lines) throws IOException {
+        Path dir = Path.of("target/settlement-exports");
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(file), lines);
+    }
+
+    private ReconciliationView awaitDone(ReconciliationView started) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ReconciliationView view = started;
+        while (view.status() == ReconciliationStatus.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            view = reconciliationService.find(started.id()).orElseThrow();
+        }
+        return view;
+    }
+}
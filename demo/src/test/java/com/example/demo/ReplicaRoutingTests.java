@@ -0,0 +1,138 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.datasource.ReplicaLagMonitor;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The "replica" is the same in-memory database behind its own pool; its lag is read from a table
+@SpringBootTest(
+        classes = PaymentApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:payment_replica_routing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "payment.datasource.replica.url=jdbc:h2:mem:payment_replica_routing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "payment.datasource.replica.lag-query=SELECT COALESCE(MAX(lag_seconds), 0) FROM replica_lag",
+                "payment.datasource.replica.max-lag=PT5S",
+                "payment.datasource.replica.lag-check-interval-ms=3600000",
+                "payment.datasource.replica.read-your-writes-window=PT0.2S"
+        }
+)
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void replicaInSync() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds DOUBLE PRECISION)");
+        jdbc.update("DELETE FROM replica_lag");
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    void statusReadsGoToTheReplicaOnceTheOrdersOwnWritesAreOld() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        paymentRepository.save(pendingPayment(orderId));
+
+        double readYourWrites = reads("primary", "read-your-writes");
+        double replica = reads("replica", "default");
+
+        mockMvc.perform(get("/api/payments/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("PENDING"));
+        assertThat(reads("primary", "read-your-writes")).isEqualTo(readYourWrites + 1);
+
+        Thread.sleep(300); // past the read-your-writes window
+        mockMvc.perform(get("/api/payments/{orderId}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("PENDING"));
+        assertThat(reads("replica", "default")).isEqualTo(replica + 1);
+    }
+
+    @Test
+    void clientsThatJustWroteThroughAnotherNodeReadFromThePrimary() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        paymentRepository.save(pendingPayment(orderId));
+        Thread.sleep(300); // this node's own record of the write has expired
+
+        double readYourWrites = reads("primary", "read-your-writes");
+        mockMvc.perform(get("/api/payments/{orderId}", orderId)
+                        .header("X-Payment-Written-At", Long.toString(System.currentTimeMillis())))
+                .andExpect(status().isOk());
+        assertThat(reads("primary", "read-your-writes")).isEqualTo(readYourWrites + 1);
+
+        double replica = reads("replica", "default");
+        mockMvc.perform(get("/api/payments/{orderId}", orderId)
+                        .header("X-Payment-Written-At", Long.toString(System.currentTimeMillis() - 300)))
+                .andExpect(status().isOk());
+        assertThat(reads("replica", "default")).isEqualTo(replica + 1);
+    }
+
+    @Test
+    void laggingReplicaHandsReadsToThePrimary() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        paymentRepository.save(pendingPayment(orderId));
+        Thread.sleep(300);
+
+        jdbc.update("INSERT INTO replica_lag (lag_seconds) VALUES (30)");
+        replicaLagMonitor.check();
+        assertThat(replicaLagMonitor.withinTolerance()).isFalse();
+
+        double lagging = reads("primary", "replica-lag");
+        mockMvc.perform(get("/api/payments/{orderId}", orderId)).andExpect(status().isOk());
+        assertThat(reads("primary", "replica-lag")).isEqualTo(lagging + 1);
+
+        jdbc.update("DELETE FROM replica_lag");
+        replicaLagMonitor.check();
+        assertThat(replicaLagMonitor.withinTolerance()).isTrue();
+    }
+
+    private double reads(String target, String reason) {
+        return meterRegistry.get("payment.datasource.reads").tags("target", target, "reason", reason).counter().count();
+    }
+
+    private PaymentEntity pendingPayment(UUID orderId) {
+        return PaymentEntity.builder()
+                .orderId(orderId)
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId("order_" + UUID.randomUUID())
+                .status(PaymentStatus.PENDING)
+                .amount(49900L)
+                .currency("INR")
+                .build();
+    }
+}
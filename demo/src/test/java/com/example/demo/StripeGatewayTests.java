@@ -0,0 +1,125 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.gateway.ProviderUnavailableException;
+import com.manasgoyal.payment.gateway.StripeGateway;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(
+        classes = PaymentApplication.class,
+        properties = {
+                // own database: closing each dirtied context drops its schema (create-drop)
+                "spring.datasource.url=jdbc:h2:mem:stripe_gateway_tests;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "payment.gateway.stripe.timeout=PT1S",
+                "payment.gateway.stripe.circuit.sliding-window=4",
+                "payment.gateway.stripe.circuit.minimum-calls=4",
+                "payment.gateway.stripe.circuit.open-duration=PT1H"
+        }
+)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class StripeGatewayTests {
+
+    private static final StubStripeApi STRIPE = startStub();
+
+    @DynamicPropertySource
+    static void stripeApiBase(DynamicPropertyRegistry registry) {
+        registry.add("stripe.apiBase", STRIPE::url);
+    }
+
+    @Autowired
+    private StripeGateway stripeGateway;
+
+    @BeforeEach
+    void setUp() {
+        STRIPE.reset();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STRIPE.close();
+    }
+
+    @Test
+    void createsCheckoutSessionWithTheAccountsKey() throws Exception {
+        Session session = stripeGateway.createCheckoutSession(ProviderAccountRegistry.DEFAULT_ACCOUNT, params());
+
+        assertThat(session.getId()).isEqualTo("cs_test_1");
+        assertThat(session.getUrl()).isEqualTo("https://checkout.stripe.test/1");
+        assertThat(STRIPE.lastAuthorization()).isEqualTo("Bearer sk_test_dummy");
+
+        stripeGateway.createCheckoutSession("acme", params());
+        assertThat(STRIPE.lastAuthorization()).isEqualTo("Bearer sk_test_acme");
+    }
+
+    @Test
+    void slowProviderTimesOut() {
+        STRIPE.respondWith(200, Duration.ofSeconds(3));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> stripeGateway.createCheckoutSession(ProviderAccountRegistry.DEFAULT_ACCOUNT, params()))
+                .isInstanceOf(ProviderUnavailableException.class)
+                .hasMessageContaining("timed out");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void failingProviderOpensCircuit() {
+        STRIPE.respondWith(500, Duration.ZERO);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> stripeGateway.createCheckoutSession(ProviderAccountRegistry.DEFAULT_ACCOUNT, params()))
+                    .isInstanceOf(StripeException.class);
+        }
+
+        assertThatThrownBy(() -> stripeGateway.createCheckoutSession(ProviderAccountRegistry.DEFAULT_ACCOUNT, params()))
+                .isInstanceOf(ProviderUnavailableException.class)
+                .hasMessageContaining("circuit open");
+        assertThat(STRIPE.requests()).isEqualTo(4);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenCircuit() throws Exception {
+        STRIPE.respondWith(400, Duration.ZERO);
+
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(() -> stripeGateway.createCheckoutSession(ProviderAccountRegistry.DEFAULT_ACCOUNT, params()))
+                    .isInstanceOf(StripeException.class);
+        }
+
+        STRIPE.respondWith(200, Duration.ZERO);
+        assertThat(stripeGateway.createCheckoutSession(ProviderAccountRegistry.DEFAULT_ACCOUNT, params()).getId()).isNotNull();
+    }
+
+    private static SessionCreateParams params() {
+        return SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setSuccessUrl("http://localhost:8080/success")
+                .build();
+    }
+
+    private static StubStripeApi startStub() {
+        try {
+            return new StubStripeApi();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
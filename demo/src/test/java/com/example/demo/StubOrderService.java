@@ -0,0 +1,80 @@
+package com.example.demo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for order-service: serves order summaries and records payment-status callbacks.
+ */
+class StubOrderService implements AutoCloseable {
+
+    record Call(String method, String path, String body) {}
+
+    private final HttpServer server;
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresToInject = new AtomicInteger();
+
+    StubOrderService() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/orders", this::handle);
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    List<Call> calls() {
+        return calls;
+    }
+
+    void failNext(int requests) {
+        failuresToInject.set(requests);
+    }
+
+    void reset() {
+        calls.clear();
+        failuresToInject.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String path = exchange.getRequestURI().getPath();
+
+        if (failuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            respond(exchange, 503, "");
+            return;
+        }
+
+        calls.add(new Call(exchange.getRequestMethod(), path, body));
+
+        if ("GET".equals(exchange.getRequestMethod())) {
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            respond(exchange, 200, "{\"id\":\"" + id + "\",\"totalAmount\":49900,\"currency\":\"INR\"}");
+        } else {
+            respond(exchange, 200, "");
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Stripe API that creates checkout sessions and can inject latency and errors.
+ */
+class StubStripeApi implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String lastAuthorization;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile int status = 200;
+
+    StubStripeApi() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/checkout/sessions", this::handle);
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    String lastAuthorization() {
+        return lastAuthorization;
+    }
+
+    void respondWith(int status, Duration latency) {
+        this.status = status;
+        this.latency = latency;
+    }
+
+    void reset() {
+        requests.set(0);
+        respondWith(200, Duration.ZERO);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+        int n = requests.incrementAndGet();
+
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String body = status == 200
+                ? "{\"id\":\"cs_test_" + n + "\",\"object\":\"checkout.session\",\"url\":\"https://checkout.stripe.test/"
+                        + n + "\",\"expires_at\":" + Instant.now().plusSeconds(3600).getEpochSecond() + "}"
+                : "{\"error\":{\"type\":\"api_error\",\"message\":\"injected " + status + "\"}}";
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = PaymentApplication.class, properties = "payment.webhooks.max-body-bytes=4096")
+@AutoConfigureMockMvc
+class WebhookControllerTests {
+
+    // must match src/test/resources/application.properties
+    private static final HmacSha256Verifier STRIPE_SIGNER = new HmacSha256Verifier(List.of("whsec_dummy"));
+    private static final HmacSha256Verifier RAZORPAY_SIGNER = new HmacSha256Verifier(List.of("dummy"));
+    private static final HmacSha256Verifier ACME_RAZORPAY_SIGNER = new HmacSha256Verifier(List.of("acme_webhook_secret"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void stripeCheckoutCompletedMarksPaymentPaid() throws Exception {
+        String sessionId = "cs_test_" + UUID.randomUUID();
+        paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.STRIPE)
+                .providerSessionId(sessionId)
+                .status(PaymentStatus.PENDING)
+                .build());
+
+        String eventId = "evt_" + UUID.randomUUID();
+        byte[] body = ("""
+                {"id":"%s","object":"event","data":{"object":{"id":"%s","object":"checkout.session",
+                "metadata":{"orderId":"x"},"line_items":[{"a":1}],"payment_intent":"pi_123"}},
+                "livemode":false,"type":"checkout.session.completed"}
+                """.formatted(eventId, sessionId)).getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/webhooks/stripe")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Stripe-Signature", stripeSignature(body))
+                        .content(body))
+                .andExpect(status().isOk());
+
+        PaymentEntity payment = paymentRepository.findByProviderSessionId(sessionId).orElseThrow();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(payment.getProviderPaymentId()).isEqualTo("pi_123");
+        assertThat(webhookEventRepository.existsByProviderAndEventId(PaymentProvider.STRIPE, eventId)).isTrue();
+    }
+
+    @Test
+    void stripeRejectsBadOrStaleSignature() throws Exception {
+        byte[] body = "{\"id\":\"evt_bad\",\"type\":\"checkout.session.completed\"}".getBytes(StandardCharsets.UTF_8);
+        long stale = Instant.now().getEpochSecond() - 3600;
+        String staleHeader = "t=" + stale + ",v1=" + STRIPE_SIGNER.signHex((stale + "." + new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(post("/api/webhooks/stripe").header("Stripe-Signature", staleHeader).content(body))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/webhooks/stripe").header("Stripe-Signature", stripeSignature("{}".getBytes())).content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void razorpayCapturedMarksPaymentPaid() throws Exception {
+        String razorpayOrderId = "order_" + UUID.randomUUID();
+        paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId(razorpayOrderId)
+                .status(PaymentStatus.PENDING)
+                .build());
+
+        byte[] body = ("""
+                {"entity":"event","event":"payment.captured","contains":["payment"],
+                "payload":{"payment":{"entity":{"id":"pay_123","order_id":"%s","amount":49900}}}}
+                """.formatted(razorpayOrderId)).getBytes(StandardCharsets.UTF_8);
+
+        mockMvc.perform(post("/api/webhooks/razorpay")
+                        .header("X-Razorpay-Signature", RAZORPAY_SIGNER.signHex(body))
+                        .header("X-Razorpay-Event-Id", "evt_" + UUID.randomUUID())
+                        .content(body))
+                .andExpect(status().isOk());
+
+        PaymentEntity payment = paymentRepository.findByProviderOrderId(razorpayOrderId).orElseThrow();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(payment.getProviderPaymentId()).isEqualTo("pay_123");
+    }
+
+    @Test
+    void razorpayRedeliveryIsCountedAsDuplicate() throws Exception {
+        byte[] body = """
+                {"entity":"event","event":"payment.captured","contains":["payment"],
+                "payload":{"payment":{"entity":{"id":"pay_dup","order_id":"order_unknown","amount":100}}}}
+                """.getBytes(StandardCharsets.UTF_8);
+        String eventId = "evt_" + UUID.randomUUID();
+        double duplicatesBefore = meterRegistry.get("payment.webhook.duplicates")
+                .tag("provider", "razorpay").tag("type", "payment.captured").counter().count();
+        long processedBefore = meterRegistry.get("payment.webhook.latency")
+                .tag("provider", "razorpay").tag("outcome", "processed").timer().count();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/webhooks/razorpay")
+                            .header("X-Razorpay-Signature", RAZORPAY_SIGNER.signHex(body))
+                            .header("X-Razorpay-Event-Id", eventId)
+                            .content(body))
+                    .andExpect(status().isOk());
+        }
+
+        assertThat(meterRegistry.get("payment.webhook.duplicates")
+                .tag("provider", "razorpay").tag("type", "payment.captured").counter().count())
+                .isEqualTo(duplicatesBefore + 1);
+        assertThat(meterRegistry.get("payment.webhook.latency")
+                .tag("provider", "razorpay").tag("outcome", "processed").timer().count())
+                .isEqualTo(processedBefore + 1);
+        assertThat(meterRegistry.get("payment.webhook.in.flight").tag("provider", "razorpay").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void razorpayWebhookIsVerifiedAndAppliedPerAccount() throws Exception {
+        String acmeOrderId = "order_" + UUID.randomUUID();
+        String defaultOrderId = "order_" + UUID.randomUUID();
+        paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.RAZORPAY)
+                .accountId("acme")
+                .providerOrderId(acmeOrderId)
+                .status(PaymentStatus.PENDING)
+                .build());
+        paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId(defaultOrderId)
+                .status(PaymentStatus.PENDING)
+                .build());
+
+        byte[] acmeBody = razorpayCaptured(acmeOrderId);
+        byte[] defaultBody = razorpayCaptured(defaultOrderId);
+
+        // the default account's secret is not valid on acme's endpoint
+        mockMvc.perform(post("/api/webhooks/razorpay/acme")
+                        .header("X-Razorpay-Signature", RAZORPAY_SIGNER.signHex(acmeBody))
+                        .header("X-Razorpay-Event-Id", "evt_" + UUID.randomUUID())
+                        .content(acmeBody))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/webhooks/razorpay/acme")
+                        .header("X-Razorpay-Signature", ACME_RAZORPAY_SIGNER.signHex(acmeBody))
+                        .header("X-Razorpay-Event-Id", "evt_" + UUID.randomUUID())
+                        .content(acmeBody))
+                .andExpect(status().isOk());
+        // acme's secret cannot settle another account's payment
+        mockMvc.perform(post("/api/webhooks/razorpay/acme")
+                        .header("X-Razorpay-Signature", ACME_RAZORPAY_SIGNER.signHex(defaultBody))
+                        .header("X-Razorpay-Event-Id", "evt_" + UUID.randomUUID())
+                        .content(defaultBody))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/webhooks/razorpay/unknown")
+                        .header("X-Razorpay-Signature", ACME_RAZORPAY_SIGNER.signHex(acmeBody))
+                        .header("X-Razorpay-Event-Id", "evt_" + UUID.randomUUID())
+                        .content(acmeBody))
+                .andExpect(status().isNotFound());
+
+        assertThat(paymentRepository.findByProviderOrderId(acmeOrderId).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PAID);
+        assertThat(paymentRepository.findByProviderOrderId(defaultOrderId).orElseThrow().getStatus())
+                .isEqualTo(PaymentStatus.PENDING);
+    }
+
+    @Test
+    void oversizedBodyIsRejectedBeforeVerification() throws Exception {
+        byte[] body = new byte[8192];
+
+        mockMvc.perform(post("/api/webhooks/razorpay")
+                        .header("X-Razorpay-Signature", RAZORPAY_SIGNER.signHex(body))
+                        .header("X-Razorpay-Event-Id", "evt_big")
+                        .content(body))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    private static byte[] razorpayCaptured(String razorpayOrderId) {
+        return ("""
+                {"entity":"event","event":"payment.captured","contains":["payment"],
+                "payload":{"payment":{"entity":{"id":"pay_%s","order_id":"%s","amount":100}}}}
+                """.formatted(UUID.randomUUID(), razorpayOrderId)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String stripeSignature(byte[] body) {
+        long timestamp = Instant.now().getEpochSecond();
+        byte[] signed = (timestamp + "." + new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        return "t=" + timestamp + ",v1=" + STRIPE_SIGNER.signHex(signed);
+    }
+}
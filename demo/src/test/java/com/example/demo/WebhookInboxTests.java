@@ -0,0 +1,105 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.manasgoyal.payment.entity.WebhookEventEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.repository.WebhookEventBulkRepository.NewWebhookEvent;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.service.WebhookDeduplicator;
+import com.manasgoyal.payment.service.WebhookEventProcessor;
+import com.manasgoyal.payment.service.WebhookInboxService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = PaymentApplication.class)
+class WebhookInboxTests {
+
+    private static final byte[] CAPTURED = """
+            {"event":"payment.captured","payload":{"payment":{"entity":{"id":"pay_inbox","order_id":"order_unknown"}}}}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private WebhookInboxService webhookInboxService;
+
+    @Autowired
+    private WebhookEventProcessor webhookEventProcessor;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private WebhookDeduplicator webhookDeduplicator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void acceptedEventIsClaimedOnceAndProcessed() {
+        String eventId = "evt_" + UUID.randomUUID();
+
+        assertThat(webhookInboxService.accept(PaymentProvider.RAZORPAY, ProviderAccountRegistry.DEFAULT_ACCOUNT, eventId, null, CAPTURED)).isTrue();
+        assertThat(webhookInboxService.accept(PaymentProvider.RAZORPAY, ProviderAccountRegistry.DEFAULT_ACCOUNT, eventId, null, CAPTURED)).isFalse();
+
+        List<Long> claimed = webhookInboxService.claim("node-a", 100, Duration.ofMinutes(1));
+        assertThat(claimed).hasSize(1);
+        assertThat(webhookInboxService.claim("node-b", 100, Duration.ofMinutes(1))).isEmpty();
+
+        webhookEventProcessor.process(claimed.get(0), "node-a");
+
+        WebhookEventEntity event = webhookEventRepository.findById(claimed.get(0)).orElseThrow();
+        assertThat(event.getStatus()).isEqualTo(WebhookEventStatus.PROCESSED);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getLockedBy()).isNull();
+    }
+
+    @Test
+    void bulkAcceptSkipsStoredEvents() {
+        String known = "evt_" + UUID.randomUUID();
+        assertThat(webhookInboxService.accept(PaymentProvider.STRIPE, ProviderAccountRegistry.DEFAULT_ACCOUNT, known, null, CAPTURED)).isTrue();
+
+        List<NewWebhookEvent> batch = IntStream.range(0, 1200)
+                .mapToObj(i -> new NewWebhookEvent(PaymentProvider.STRIPE, null, i == 0 ? known : "evt_" + UUID.randomUUID(),
+                        "checkout.session.completed", CAPTURED, WebhookEventStatus.PROCESSED, Instant.now()))
+                .toList();
+
+        assertThat(webhookInboxService.acceptAll(batch)).isEqualTo(1199);
+        WebhookEventEntity stored = webhookEventRepository.findAll().stream()
+                .filter(e -> e.getEventId().equals(batch.get(1).eventId()))
+                .findFirst().orElseThrow();
+        assertThat(stored.getPayload()).isEqualTo(CAPTURED);
+        assertThat(stored.getProcessedAt()).isNotNull();
+    }
+
+    @Test
+    void rolledBackInsertIsNotRememberedAsDuplicate() {
+        String eventId = "evt_" + UUID.randomUUID();
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            assertThat(webhookDeduplicator.insertIfNew(
+                    PaymentProvider.STRIPE, ProviderAccountRegistry.DEFAULT_ACCOUNT, eventId, null, CAPTURED, WebhookEventStatus.PROCESSED)).isTrue();
+            tx.setRollbackOnly(); // e.g. the handler failed
+        });
+
+        Boolean retried = transactionTemplate.execute(tx -> webhookDeduplicator.insertIfNew(
+                PaymentProvider.STRIPE, ProviderAccountRegistry.DEFAULT_ACCOUNT, eventId, null, CAPTURED, WebhookEventStatus.PROCESSED));
+        Boolean duplicate = transactionTemplate.execute(tx -> webhookDeduplicator.insertIfNew(
+                PaymentProvider.STRIPE, ProviderAccountRegistry.DEFAULT_ACCOUNT, eventId, null, CAPTURED, WebhookEventStatus.PROCESSED));
+
+        assertThat(retried).isTrue();
+        assertThat(duplicate).isFalse();
+        assertThat(webhookEventRepository.existsByProviderAndEventId(PaymentProvider.STRIPE, eventId)).isTrue();
+    }
+}
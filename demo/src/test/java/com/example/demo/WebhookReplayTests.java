@@ -0,0 +1,104 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.dto.WebhookReplayRequest;
+import com.manasgoyal.payment.dto.WebhookReplayView;
+import com.manasgoyal.payment.entity.PaymentEntity;
+import com.manasgoyal.payment.entity.WebhookEventEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.entity.enums.WebhookReplayMode;
+import com.manasgoyal.payment.entity.enums.WebhookReplayStatus;
+import com.manasgoyal.payment.repository.PaymentRepository;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.service.WebhookReplayService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = PaymentApplication.class)
+class WebhookReplayTests {
+
+    @Autowired
+    private WebhookReplayService webhookReplayService;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void failedEventIsReplayedThroughTheHandler() throws InterruptedException {
+        String providerOrderId = "order_" + UUID.randomUUID();
+        PaymentEntity payment = pendingPayment(providerOrderId);
+        String eventType = "payment.captured." + UUID.randomUUID(); // isolates this test's events
+        WebhookEventEntity event = failedEvent(providerOrderId, eventType);
+
+        WebhookReplayView replay = awaitDone(webhookReplayService.start(
+                new WebhookReplayRequest(PaymentProvider.RAZORPAY, eventType, null, null, WebhookReplayMode.FAILED)));
+
+        assertThat(replay.status()).isEqualTo(WebhookReplayStatus.COMPLETED);
+        assertThat(replay.processed()).isEqualTo(1);
+        assertThat(replay.failed()).isZero();
+        assertThat(replay.checkpointId()).isEqualTo(event.getId());
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(webhookEventRepository.findById(event.getId()).orElseThrow().getStatus())
+                .isEqualTo(WebhookEventStatus.PROCESSED);
+    }
+
+    @Test
+    void dryRunLeavesPaymentsAndEventsUntouched() throws InterruptedException {
+        String providerOrderId = "order_" + UUID.randomUUID();
+        PaymentEntity payment = pendingPayment(providerOrderId);
+        String eventType = "payment.captured." + UUID.randomUUID();
+        WebhookEventEntity event = failedEvent(providerOrderId, eventType);
+
+        WebhookReplayView replay = awaitDone(webhookReplayService.start(
+                new WebhookReplayRequest(PaymentProvider.RAZORPAY, eventType, null, null, WebhookReplayMode.DRY_RUN)));
+
+        assertThat(replay.status()).isEqualTo(WebhookReplayStatus.COMPLETED);
+        assertThat(replay.processed()).isEqualTo(1);
+        assertThat(paymentRepository.findById(payment.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(webhookEventRepository.findById(event.getId()).orElseThrow().getStatus())
+                .isEqualTo(WebhookEventStatus.FAILED);
+    }
+
+    private PaymentEntity pendingPayment(String providerOrderId) {
+        return paymentRepository.save(PaymentEntity.builder()
+                .orderId(UUID.randomUUID())
+                .provider(PaymentProvider.RAZORPAY)
+                .providerOrderId(providerOrderId)
+                .status(PaymentStatus.PENDING)
+                .build());
+    }
+
+    private WebhookEventEntity failedEvent(String providerOrderId, String eventType) {
+        byte[] payload = ("""
+                {"event":"payment.captured","payload":{"payment":{"entity":{"id":"pay_replay","order_id":"%s"}}}}
+                """.formatted(providerOrderId)).getBytes(StandardCharsets.UTF_8);
+        return webhookEventRepository.save(WebhookEventEntity.builder()
+                .provider(PaymentProvider.RAZORPAY)
+                .eventId("evt_" + UUID.randomUUID())
+                .eventType(eventType)
+                .payload(payload)
+                .status(WebhookEventStatus.FAILED)
+                .build());
+    }
+
+    private WebhookReplayView awaitDone(WebhookReplayView started) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        WebhookReplayView replay = started;
+        while (replay.status() == WebhookReplayStatus.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            replay = webhookReplayService.find(started.id()).orElseThrow();
+        }
+        return replay;
+    }
+}
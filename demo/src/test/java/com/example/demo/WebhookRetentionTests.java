@@ -0,0 +1,86 @@
+package com.example.demo;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.entity.WebhookEventEntity;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.WebhookEventStatus;
+import com.manasgoyal.payment.repository.WebhookEventRepository;
+import com.manasgoyal.payment.service.WebhookRetentionJob;
+import com.manasgoyal.payment.webhook.WebhookPayloadArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        classes = PaymentApplication.class,
+        properties = {
+                "payment.webhooks.retention.archive-after=PT0S",
+                "payment.webhooks.retention.delete-after=PT0S",
+                "payment.webhooks.retention.interval-ms=3600000"
+        }
+)
+class WebhookRetentionTests {
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("payment.webhooks.retention.archive-dir", () -> archiveDir.toString());
+    }
+
+    @Autowired
+    private WebhookRetentionJob webhookRetentionJob;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private WebhookPayloadArchive webhookPayloadArchive;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void payloadIsCompressedThenArchivedThenDeleted() {
+        String eventId = "evt_" + UUID.randomUUID();
+        byte[] payload = ("{\"id\":\"" + eventId + "\",\"type\":\"checkout.session.completed\",\"data\":{\"object\":{"
+                + "\"metadata\":\"" + "x".repeat(2000) + "\"}}}").getBytes(StandardCharsets.UTF_8);
+
+        Long id = webhookEventRepository.save(WebhookEventEntity.builder()
+                .provider(PaymentProvider.STRIPE)
+                .eventId(eventId)
+                .eventType("checkout.session.completed")
+                .payload(payload)
+                .status(WebhookEventStatus.PROCESSED)
+                .build()).getId();
+
+        // 1️⃣ stored compressed, read back raw
+        byte[] stored = jdbcTemplate.queryForObject("SELECT payload FROM webhook_events WHERE id = ?", byte[].class, id);
+        assertThat(stored.length).isLessThan(payload.length / 4);
+        assertThat(webhookEventRepository.findById(id).orElseThrow().getPayload()).isEqualTo(payload);
+
+        // 2️⃣ archived: payload leaves the table, dedupe key stays
+        while (webhookRetentionJob.archiveBatch() > 0) { }
+        WebhookEventEntity archived = webhookEventRepository.findById(id).orElseThrow();
+        assertThat(archived.getPayload()).isNull();
+        assertThat(webhookEventRepository.existsByProviderAndEventId(PaymentProvider.STRIPE, eventId)).isTrue();
+        assertThat(webhookPayloadArchive.read(archived.getArchiveRef(), id))
+                .get()
+                .satisfies(p -> assertThat(p.payload()).isEqualTo(payload));
+
+        // 3️⃣ expired rows are deleted
+        while (webhookRetentionJob.deleteBatch() > 0) { }
+        assertThat(webhookEventRepository.findById(id)).isEmpty();
+    }
+}
@@ -0,0 +1,65 @@
+package com.manasgoyal.payment.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * order-service: every order exists (49900 INR), and the payment status it is told last is kept
+ * per order, from both {@code PUT /api/orders/{id}/payment-status} and the batch endpoint.
+ */
+final class FakeOrderService extends HttpStandIn {
+
+    static final long AMOUNT = 49900;
+    static final String CURRENCY = "INR";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<UUID, PaymentStatus> notified = new ConcurrentHashMap<>();
+    private final Faults faults;
+
+    FakeOrderService(Faults faults) {
+        this.faults = faults;
+        server().createContext("/api/orders", this::handle);
+        start();
+    }
+
+    /**
+     * The last status order-service was told for the order, or null.
+     */
+    PaymentStatus notifiedStatus(UUID orderId) {
+        return notified.get(orderId);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if (!faults.apply()) {
+            respond(exchange, 503, "");
+            return;
+        }
+
+        String[] path = exchange.getRequestURI().getPath().split("/"); // "", api, orders, ...
+        if ("GET".equals(exchange.getRequestMethod()) && path.length == 4) {
+            respond(exchange, 200, "{\"id\":\"" + path[3] + "\",\"totalAmount\":" + AMOUNT + ",\"currency\":\"" + CURRENCY + "\"}");
+        } else if ("PUT".equals(exchange.getRequestMethod()) && path.length == 5) {
+            notified.put(UUID.fromString(path[3]), status(objectMapper.readTree(body)));
+            respond(exchange, 200, "");
+        } else if ("PUT".equals(exchange.getRequestMethod()) && path.length == 4 && "payment-status".equals(path[3])) {
+            for (JsonNode update : objectMapper.readTree(body)) {
+                notified.put(UUID.fromString(update.path("orderId").asText()), status(update));
+            }
+            respond(exchange, 200, "");
+        } else {
+            respond(exchange, 404, "");
+        }
+    }
+
+    private static PaymentStatus status(JsonNode update) {
+        return PaymentStatus.valueOf(update.path("paymentStatus").asText());
+    }
+}
@@ -0,0 +1,71 @@
+package com.manasgoyal.payment.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Stripe API's checkout sessions ({@code stripe.apiBase}): creates them, remembering which
+ * order each one is for ({@code metadata[orderId]}), and retrieves them as still open.
+ */
+final class FakeStripe extends HttpStandIn {
+
+    private static final String INJECTED_ERROR = "{\"error\":{\"type\":\"api_error\",\"message\":\"Injected failure\"}}";
+
+    private final Map<UUID, String> sessionsByOrder = new ConcurrentHashMap<>();
+    private final AtomicLong sessions = new AtomicLong();
+    private final Faults faults;
+
+    FakeStripe(Faults faults) {
+        this.faults = faults;
+        server().createContext("/v1/checkout/sessions", this::handle);
+        start();
+    }
+
+    /**
+     * The last session created for the order, or null.
+     */
+    String sessionOf(UUID orderId) {
+        return sessionsByOrder.get(orderId);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (!faults.apply()) {
+            respond(exchange, 500, INJECTED_ERROR);
+            return;
+        }
+
+        String id;
+        if ("POST".equals(exchange.getRequestMethod())) {
+            id = "cs_load_" + sessions.incrementAndGet();
+            String orderId = formValue(form, "metadata[orderId]");
+            if (orderId != null) {
+                sessionsByOrder.put(UUID.fromString(orderId), id);
+            }
+        } else {
+            String path = exchange.getRequestURI().getPath();
+            id = path.substring(path.lastIndexOf('/') + 1);
+        }
+        respond(exchange, 200, "{\"id\":\"" + id + "\",\"object\":\"checkout.session\",\"status\":\"open\","
+                + "\"url\":\"https://checkout.stripe.test/" + id + "\","
+                + "\"expires_at\":" + Instant.now().plusSeconds(3600).getEpochSecond() + "}");
+    }
+
+    private static String formValue(String form, String name) {
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && name.equals(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8))) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
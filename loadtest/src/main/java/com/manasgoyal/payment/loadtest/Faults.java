@@ -0,0 +1,27 @@
+package com.manasgoyal.payment.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and error injection for a stand-in: every call waits {@code latency} ± 50% and then
+ * fails with probability {@code errorRate}.
+ */
+public record Faults(Duration latency, double errorRate) {
+
+    /**
+     * Waits out the call's latency; returns false when the call should fail.
+     */
+    public boolean apply() {
+        long millis = latency.toMillis();
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis / 2 + ThreadLocalRandom.current().nextLong(millis + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return ThreadLocalRandom.current().nextDouble() >= errorRate;
+    }
+}
@@ -0,0 +1,296 @@
+package com.manasgoyal.payment.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drives the payment service with checkouts at a fixed rate and the signed provider webhooks that
+ * follow them (retries and out-of-order failures included), then waits for every order to settle
+ * and checks its final status against the plan:
+ * {@code java -jar target/loadtest.jar --orders=5000 --rate=500 [--option=value ...] [--service.property=value ...]}.
+ * See {@link LoadTestConfig} for the options. Prints the {@link Summary} as JSON, writes it to
+ * {@code --out} and exits with 1 when an order did not settle as planned.
+ */
+public final class LoadTest {
+
+    private static final int MAX_REPORTED_MISMATCHES = 100;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestConfig config;
+    private final String serviceUrl;
+    private final FakeStripe stripe;
+    private final FakeOrderService orderService;
+    private final Webhooks webhooks = new Webhooks(
+            ServiceUnderTest.STRIPE_WEBHOOK_SECRET, ServiceUnderTest.RAZORPAY_WEBHOOK_SECRET, ServiceUnderTest.RAZORPAY_KEY_SECRET);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ExecutorService connections;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final Map<String, OperationRecorder> operations = new ConcurrentHashMap<>();
+    private final Map<UUID, OrderPlan> checkedOut = new ConcurrentHashMap<>();
+
+    // requests submitted or scheduled and not finished yet
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object idle = new Object();
+
+    LoadTest(LoadTestConfig config, String serviceUrl, FakeStripe stripe, FakeOrderService orderService) {
+        this.config = config;
+        this.serviceUrl = serviceUrl;
+        this.stripe = stripe;
+        this.orderService = orderService;
+        this.connections = Executors.newFixedThreadPool(config.connections());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        Summary summary;
+        try (FakeOrderService orderService = new FakeOrderService(config.orderFaults());
+             FakeStripe stripe = new FakeStripe(config.providerFaults());
+             ServiceUnderTest service = new ServiceUnderTest(config, orderService.url(), stripe.url())) {
+            LoadTest loadTest = new LoadTest(config, service.url(), stripe, orderService);
+            try {
+                summary = loadTest.run();
+            } finally {
+                loadTest.shutdown();
+            }
+        }
+
+        ObjectMapper writer = new ObjectMapper()
+                .registerModule(new SimpleModule().addSerializer(Duration.class, ToStringSerializer.instance))
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        String json = writer.writeValueAsString(summary);
+        Path out = Path.of(config.out());
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, json);
+        System.out.println(json);
+        System.exit(summary.passed() ? 0 : 1);
+    }
+
+    Summary run() throws Exception {
+        Random random = new Random(config.seed());
+        List<OrderPlan> plans = new ArrayList<>(config.orders());
+        for (int i = 0; i < config.orders(); i++) {
+            plans.add(OrderPlan.random(random, config));
+        }
+
+        // 1️⃣ Checkouts at the target rate; each schedules its own webhooks
+        long start = System.nanoTime();
+        for (int i = 0; i < plans.size(); i++) {
+            OrderPlan plan = plans.get(i);
+            long due = start + (long) (i * 1e9 / config.rate());
+            for (long wait; (wait = due - System.nanoTime()) > 0; ) {
+                LockSupport.parkNanos(wait);
+            }
+            pending.incrementAndGet();
+            connections.execute(() -> run(() -> checkout(plan, due)));
+        }
+        awaitIdle();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        // 2️⃣ Wait for the service (and its outbox) to converge, then compare
+        Summary.Correctness correctness = settle(plans);
+
+        Map<String, Summary.OperationStats> stats = new TreeMap<>();
+        operations.forEach((name, recorder) -> stats.put(name, recorder.stats(elapsedSeconds)));
+        return new Summary(config, elapsedSeconds, stats, correctness, correctness.mismatches().isEmpty());
+    }
+
+    private void checkout(OrderPlan plan, long due) throws IOException {
+        String request = "{\"orderId\":\"" + plan.orderId() + "\",\"provider\":\"" + plan.provider() + "\"}";
+        HttpResponse<byte[]> response = send("checkout", due, post("/api/payments/checkout", request, Map.of()));
+        if (response == null || response.statusCode() != 200) {
+            return;
+        }
+
+        String reference = plan.provider() == PaymentProvider.STRIPE
+                ? stripe.sessionOf(plan.orderId())
+                : objectMapper.readTree(response.body()).path("providerOrderId").asText();
+        checkedOut.put(plan.orderId(), plan);
+
+        String key = plan.orderId().toString().replace("-", "");
+        String successPaymentId = (plan.provider() == PaymentProvider.STRIPE ? "pi_load_" : "pay_load_") + key;
+        long now = System.nanoTime();
+        for (OrderPlan.Delivery delivery : plan.deliveries()) {
+            String eventId = "evt_load_" + key + "_" + delivery.event();
+            Webhooks.SignedWebhook webhook = plan.provider() == PaymentProvider.STRIPE
+                    // a declined attempt on the same payment intent
+                    ? webhooks.stripe(eventId, delivery.success(), reference, successPaymentId)
+                    // a declined attempt is its own payment on the same order
+                    : webhooks.razorpay(eventId, delivery.success(), reference,
+                    delivery.success() ? successPaymentId : "pay_load_" + key + "_declined" + delivery.event());
+            String operation = "webhook." + plan.provider().name().toLowerCase();
+            schedule(now + TimeUnit.MILLISECONDS.toNanos(delivery.atMillis()),
+                    at -> send(operation, at, post(webhook.path(), webhook.body(), webhook.headers())));
+        }
+
+        if (plan.verifyAtMillis() >= 0) {
+            String verify = """
+                    {"provider":"RAZORPAY","orderId":"%s","providerOrderId":"%s","providerPaymentId":"%s","signature":"%s"}"""
+                    .formatted(plan.orderId(), reference, successPaymentId, webhooks.razorpayPaymentSignature(reference, successPaymentId));
+            schedule(now + TimeUnit.MILLISECONDS.toNanos(plan.verifyAtMillis()),
+                    at -> send("verify", at, post("/api/payments/verify", verify, Map.of())));
+        }
+    }
+
+    private Summary.Correctness settle(List<OrderPlan> plans) throws Exception {
+        Map<UUID, PaymentStatus> actual = new ConcurrentHashMap<>();
+        List<OrderPlan> unsettled = new ArrayList<>(checkedOut.values());
+        long deadline = System.nanoTime() + config.settleTimeout().toNanos();
+        while (true) {
+            List<Future<Boolean>> checks = new ArrayList<>(unsettled.size());
+            for (OrderPlan plan : unsettled) {
+                checks.add(connections.submit(() -> {
+                    PaymentStatus status = status(plan);
+                    if (status != null) {
+                        actual.put(plan.orderId(), status);
+                    }
+                    return status == plan.expectedStatus() && orderService.notifiedStatus(plan.orderId()) == plan.expectedNotification();
+                }));
+            }
+            List<OrderPlan> next = new ArrayList<>();
+            for (int i = 0; i < checks.size(); i++) {
+                if (!checks.get(i).get()) {
+                    next.add(unsettled.get(i));
+                }
+            }
+            unsettled = next;
+            if (unsettled.isEmpty() || System.nanoTime() > deadline) {
+                break;
+            }
+            Thread.sleep(250);
+        }
+
+        List<Summary.Mismatch> mismatches = unsettled.stream()
+                .limit(MAX_REPORTED_MISMATCHES)
+                .map(plan -> new Summary.Mismatch(plan.orderId(), plan.provider(), plan.expectedStatus(), actual.get(plan.orderId()),
+                        plan.expectedNotification(), orderService.notifiedStatus(plan.orderId())))
+                .toList();
+        Map<PaymentStatus, Long> expected = checkedOut.values().stream()
+                .collect(Collectors.groupingBy(OrderPlan::expectedStatus, TreeMap::new, Collectors.counting()));
+        return new Summary.Correctness(plans.size(), plans.size() - checkedOut.size(), checkedOut.size(),
+                checkedOut.size() - unsettled.size(), expected, mismatches);
+    }
+
+    private PaymentStatus status(OrderPlan plan) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(serviceUrl + "/api/payments/" + plan.orderId()))
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        for (JsonNode payment : objectMapper.readTree(response.body())) {
+            if (plan.provider().name().equals(payment.path("provider").asText())) {
+                return PaymentStatus.valueOf(payment.path("status").asText());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends the request and records it under {@code operation}; null when it did not get a response.
+     */
+    private HttpResponse<byte[]> send(String operation, long due, HttpRequest request) {
+        HttpResponse<byte[]> response = null;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            // counted below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean ok = response != null && response.statusCode() / 100 == 2;
+        operations.computeIfAbsent(operation, o -> new OperationRecorder()).record(System.nanoTime() - due, ok);
+        return response;
+    }
+
+    private HttpRequest post(String path, String json, Map<String, String> headers) {
+        return post(path, json.getBytes(StandardCharsets.UTF_8), headers);
+    }
+
+    private HttpRequest post(String path, byte[] body, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(serviceUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach(builder::header);
+        return builder.build();
+    }
+
+    /**
+     * Runs {@code request} on a connection at {@code due} (System.nanoTime), passing it the due time.
+     */
+    private void schedule(long due, Function<Long, ?> request) {
+        pending.incrementAndGet();
+        timer.schedule(() -> connections.execute(() -> run(() -> request.apply(due))),
+                due - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private void run(ThrowingRunnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            System.err.println("Load test request failed: " + e);
+        } finally {
+            if (pending.decrementAndGet() == 0) {
+                synchronized (idle) {
+                    idle.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        synchronized (idle) {
+            while (pending.get() > 0) {
+                idle.wait();
+            }
+        }
+    }
+
+    private void shutdown() {
+        timer.shutdownNow();
+        connections.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
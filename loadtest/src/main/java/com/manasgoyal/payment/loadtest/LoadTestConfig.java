@@ -0,0 +1,84 @@
+package com.manasgoyal.payment.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Harness options, {@code --name=value}. Anything not listed here is passed on to the service
+ * as a property ({@code --payment.webhooks.async.enabled=true}, {@code --spring.datasource.url=...}).
+ *
+ * @param orders           checkouts to start
+ * @param rate             checkouts started per second (open loop: not slowed down by slow responses)
+ * @param connections      concurrent requests to the service
+ * @param stripeShare      fraction of orders checked out at Stripe, the rest at Razorpay
+ * @param paidRatio        fraction of orders the "customer" pays; the rest only see failure events
+ * @param failureEvents    chance of each order getting a failure event (declined attempt), in any order with the success
+ * @param duplicates       chance of each event being redelivered (1–3 extra copies)
+ * @param verifyRatio      chance of a paid Razorpay order also confirming through {@code /api/payments/verify}
+ * @param webhookWindow    events for an order arrive at random within this long after its checkout
+ * @param providerFaults   latency / error rate of Stripe and Razorpay
+ * @param orderFaults      latency / error rate of order-service
+ * @param settleTimeout    how long to wait for every order to reach its final status after the last request
+ * @param seed             fixes the orders and their event sequences
+ * @param out              where the JSON summary is written
+ */
+public record LoadTestConfig(
+        int orders,
+        double rate,
+        int connections,
+        double stripeShare,
+        double paidRatio,
+        double failureEvents,
+        double duplicates,
+        double verifyRatio,
+        Duration webhookWindow,
+        Faults providerFaults,
+        Faults orderFaults,
+        Duration settleTimeout,
+        long seed,
+        String out,
+        List<String> serviceArgs
+) {
+
+    public static LoadTestConfig parse(String... args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String name = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : null;
+            if (name != null && KNOWN.contains(name)) {
+                options.put(name, arg.substring(eq + 1));
+            } else {
+                serviceArgs.add(arg);
+            }
+        }
+        return new LoadTestConfig(
+                Integer.parseInt(options.getOrDefault("orders", "2000")),
+                Double.parseDouble(options.getOrDefault("rate", "200")),
+                Integer.parseInt(options.getOrDefault("connections", "64")),
+                Double.parseDouble(options.getOrDefault("stripe-share", "0.5")),
+                Double.parseDouble(options.getOrDefault("paid-ratio", "0.8")),
+                Double.parseDouble(options.getOrDefault("failure-events", "0.3")),
+                Double.parseDouble(options.getOrDefault("duplicates", "0.2")),
+                Double.parseDouble(options.getOrDefault("verify-ratio", "0.5")),
+                Duration.parse(options.getOrDefault("webhook-window", "PT0.5S")),
+                new Faults(Duration.parse(options.getOrDefault("provider-latency", "PT0.05S")),
+                        Double.parseDouble(options.getOrDefault("provider-error-rate", "0"))),
+                new Faults(Duration.parse(options.getOrDefault("order-service-latency", "PT0.005S")),
+                        Double.parseDouble(options.getOrDefault("order-service-error-rate", "0"))),
+                Duration.parse(options.getOrDefault("settle-timeout", "PT60S")),
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                options.getOrDefault("out", "target/loadtest-summary.json"),
+                List.copyOf(serviceArgs)
+        );
+    }
+
+    private static final List<String> KNOWN = List.of(
+            "orders", "rate", "connections", "stripe-share", "paid-ratio", "failure-events", "duplicates",
+            "verify-ratio", "webhook-window", "provider-latency", "provider-error-rate", "order-service-latency",
+            "order-service-error-rate", "settle-timeout", "seed", "out"
+    );
+}
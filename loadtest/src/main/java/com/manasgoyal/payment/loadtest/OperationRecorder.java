@@ -0,0 +1,43 @@
+package com.manasgoyal.payment.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and failures of one kind of request. Latency runs from when the request was due,
+ * not from when a connection got to send it, so a backed-up service shows up in the percentiles.
+ */
+final class OperationRecorder {
+
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    private final LongAdder errors = new LongAdder();
+
+    void record(long latencyNanos, boolean ok) {
+        latencies.add(latencyNanos);
+        if (!ok) {
+            errors.increment();
+        }
+    }
+
+    Summary.OperationStats stats(double elapsedSeconds) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", percentile(sorted, 0.50));
+        percentiles.put("p90", percentile(sorted, 0.90));
+        percentiles.put("p99", percentile(sorted, 0.99));
+        percentiles.put("p999", percentile(sorted, 0.999));
+        percentiles.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        percentiles.put("mean", Arrays.stream(sorted).average().orElse(0) / 1e6);
+        return new Summary.OperationStats(sorted.length, errors.sum(), sorted.length / elapsedSeconds, percentiles);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(sorted.length * quantile) - 1)] / 1e6;
+    }
+}
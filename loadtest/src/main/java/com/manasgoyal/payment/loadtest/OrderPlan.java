@@ -0,0 +1,68 @@
+package com.manasgoyal.payment.loadtest;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * What happens to one order: where it is checked out, whether it gets paid, and the webhook
+ * deliveries that follow (each event possibly redelivered, all in random order).
+ *
+ * @param deliveries    sorted by {@code atMillis}, counted from the checkout's response
+ * @param verifyAtMillis when the client-side confirmation is sent, or -1 for none
+ */
+record OrderPlan(UUID orderId, PaymentProvider provider, boolean paid, List<Delivery> deliveries, long verifyAtMillis) {
+
+    /**
+     * @param event   index of the event: deliveries of the same event are retries of it
+     * @param success the payment succeeded (otherwise: an attempt was declined)
+     */
+    record Delivery(int event, boolean success, long atMillis) {}
+
+    static OrderPlan random(Random random, LoadTestConfig config) {
+        UUID orderId = new UUID(random.nextLong(), random.nextLong());
+        PaymentProvider provider = random.nextDouble() < config.stripeShare() ? PaymentProvider.STRIPE : PaymentProvider.RAZORPAY;
+        boolean paid = random.nextDouble() < config.paidRatio();
+        long window = Math.max(1, config.webhookWindow().toMillis());
+
+        List<Boolean> events = new ArrayList<>();
+        if (paid) {
+            events.add(true);
+        }
+        if (!paid || random.nextDouble() < config.failureEvents()) {
+            events.add(false);
+        }
+
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int event = 0; event < events.size(); event++) {
+            int copies = random.nextDouble() < config.duplicates() ? 2 + random.nextInt(3) : 1;
+            for (int i = 0; i < copies; i++) {
+                deliveries.add(new Delivery(event, events.get(event), random.nextLong(window)));
+            }
+        }
+        deliveries.sort(Comparator.comparingLong(Delivery::atMillis));
+
+        boolean verify = paid && provider == PaymentProvider.RAZORPAY && random.nextDouble() < config.verifyRatio();
+        return new OrderPlan(orderId, provider, paid, List.copyOf(deliveries), verify ? random.nextLong(window) : -1);
+    }
+
+    /**
+     * Declined attempts leave the checkout open, so an unpaid order stays PENDING
+     * (until the sweeper expires it); PAID is final whatever arrives after it.
+     */
+    PaymentStatus expectedStatus() {
+        return paid ? PaymentStatus.PAID : PaymentStatus.PENDING;
+    }
+
+    /**
+     * What order-service should have been told last, null for nothing.
+     */
+    PaymentStatus expectedNotification() {
+        return paid ? PaymentStatus.PAID : null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.manasgoyal.payment.loadtest;
+
+import com.manasgoyal.payment.PaymentApplication;
+import com.manasgoyal.payment.account.ProviderAccountRegistry;
+import com.razorpay.LoadTestRazorpayOrders;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The payment service, in this JVM on a free port, wired to the stand-ins. Defaults to an
+ * in-memory H2 database; the harness's pass-through arguments override any of these properties.
+ */
+final class ServiceUnderTest implements AutoCloseable {
+
+    static final String STRIPE_WEBHOOK_SECRET = "whsec_loadtest";
+    static final String RAZORPAY_KEY_SECRET = "loadtest_key_secret";
+    static final String RAZORPAY_WEBHOOK_SECRET = "loadtest_webhook_secret";
+
+    private final ConfigurableApplicationContext context;
+
+    ServiceUnderTest(LoadTestConfig config, String orderServiceUrl, String stripeUrl) {
+        context = new SpringApplicationBuilder(PaymentApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:payment_loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=WARN",
+                        "order.service.url=" + orderServiceUrl,
+                        "order.outbox.poll-interval-ms=100",
+                        "stripe.apiBase=" + stripeUrl,
+                        "stripe.secretKey=sk_test_loadtest",
+                        "stripe.webhookSecret=" + STRIPE_WEBHOOK_SECRET,
+                        "razorpay.keyId=rzp_test_loadtest",
+                        "razorpay.keySecret=" + RAZORPAY_KEY_SECRET,
+                        "razorpay.webhookSecret=" + RAZORPAY_WEBHOOK_SECRET,
+                        // its Razorpay lookups would go to api.razorpay.com
+                        "payment.sweeper.enabled=false",
+                        "payment.webhooks.retention.enabled=false"
+                )
+                .run(config.serviceArgs().toArray(String[]::new));
+        // credentials never change here, so the cached client (and its stand-in) is kept across refreshes
+        context.getBean(ProviderAccountRegistry.class).get(ProviderAccountRegistry.DEFAULT_ACCOUNT)
+                .razorpayClient().orders = new LoadTestRazorpayOrders(config.providerFaults());
+    }
+
+    String url() {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
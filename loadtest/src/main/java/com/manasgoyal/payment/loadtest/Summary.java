@@ -0,0 +1,46 @@
+package com.manasgoyal.payment.loadtest;
+
+import com.manasgoyal.payment.entity.enums.PaymentProvider;
+import com.manasgoyal.payment.entity.enums.PaymentStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The machine-readable result of a run. {@code passed} is false when any checked-out order did
+ * not end in its expected status, or order-service was not told it.
+ */
+record Summary(
+        LoadTestConfig config,
+        double elapsedSeconds,
+        Map<String, OperationStats> operations,
+        Correctness correctness,
+        boolean passed
+) {
+
+    /**
+     * @param latencyMs p50 / p90 / p99 / p999 / max / mean
+     */
+    record OperationStats(long count, long errors, double throughputPerSecond, Map<String, Double> latencyMs) {}
+
+    /**
+     * @param checkoutFailed orders whose checkout was refused (injected faults): nothing to check
+     * @param mismatches     the first of the orders that did not settle
+     */
+    record Correctness(
+            int orders,
+            int checkoutFailed,
+            int checked,
+            int settled,
+            Map<PaymentStatus, Long> expected,
+            List<Mismatch> mismatches
+    ) {}
+
+    /**
+     * @param actual   the service's status, null when it has no payment for the order
+     * @param notified the last status order-service was told, null for none
+     */
+    record Mismatch(UUID orderId, PaymentProvider provider, PaymentStatus expected, PaymentStatus actual,
+                    PaymentStatus expectedNotification, PaymentStatus notified) {}
+}
@@ -0,0 +1,62 @@
+package com.manasgoyal.payment.loadtest;
+
+import com.manasgoyal.payment.security.HmacSha256Verifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provider webhooks signed the way the providers sign them.
+ */
+final class Webhooks {
+
+    record SignedWebhook(String path, Map<String, String> headers, byte[] body) {}
+
+    private final HmacSha256Verifier stripeSigner;
+    private final HmacSha256Verifier razorpaySigner;
+    private final HmacSha256Verifier razorpayPaymentSigner;
+
+    Webhooks(String stripeWebhookSecret, String razorpayWebhookSecret, String razorpayKeySecret) {
+        this.stripeSigner = new HmacSha256Verifier(List.of(stripeWebhookSecret));
+        this.razorpaySigner = new HmacSha256Verifier(List.of(razorpayWebhookSecret));
+        this.razorpayPaymentSigner = new HmacSha256Verifier(List.of(razorpayKeySecret));
+    }
+
+    /**
+     * {@code Stripe-Signature: t=<unix seconds>,v1=hex(HMAC(secret, "<t>.<body>"))}
+     */
+    SignedWebhook stripe(String eventId, boolean success, String sessionId, String paymentIntentId) {
+        String json = success
+                ? """
+                {"id":"%s","object":"event","type":"checkout.session.completed","data":{"object":{"id":"%s","object":"checkout.session","payment_intent":"%s","payment_status":"paid"}}}"""
+                .formatted(eventId, sessionId, paymentIntentId)
+                : """
+                {"id":"%s","object":"event","type":"payment_intent.payment_failed","data":{"object":{"id":"%s","object":"payment_intent","status":"requires_payment_method"}}}"""
+                .formatted(eventId, paymentIntentId);
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        long timestamp = Instant.now().getEpochSecond();
+        String signature = stripeSigner.signHex((timestamp + "." + json).getBytes(StandardCharsets.UTF_8));
+        return new SignedWebhook("/api/webhooks/stripe", Map.of("Stripe-Signature", "t=" + timestamp + ",v1=" + signature), body);
+    }
+
+    /**
+     * {@code X-Razorpay-Signature: hex(HMAC(webhook secret, body))}; the event id travels in {@code X-Razorpay-Event-Id}.
+     */
+    SignedWebhook razorpay(String eventId, boolean success, String razorpayOrderId, String paymentId) {
+        byte[] body = """
+                {"entity":"event","event":"%s","payload":{"payment":{"entity":{"id":"%s","entity":"payment","order_id":"%s","status":"%s"}}}}"""
+                .formatted(success ? "payment.captured" : "payment.failed", paymentId, razorpayOrderId, success ? "captured" : "failed")
+                .getBytes(StandardCharsets.UTF_8);
+        return new SignedWebhook("/api/webhooks/razorpay",
+                Map.of("X-Razorpay-Signature", razorpaySigner.signHex(body), "X-Razorpay-Event-Id", eventId), body);
+    }
+
+    /**
+     * The {@code razorpay_signature} Checkout hands the browser: hex(HMAC(key secret, order_id|payment_id)).
+     */
+    String razorpayPaymentSignature(String razorpayOrderId, String paymentId) {
+        return razorpayPaymentSigner.signHex((razorpayOrderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,37 @@
+package com.razorpay;
+
+import com.manasgoyal.payment.loadtest.Faults;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for {@code razorpayClient.orders} with injected latency and errors. The SDK
+ * hard-codes https://api.razorpay.com, so it cannot be pointed at a local HTTP server; this lives
+ * in the SDK package to reach its constructor.
+ */
+public class LoadTestRazorpayOrders extends OrderClient {
+
+    private final AtomicLong orders = new AtomicLong();
+    private final Faults faults;
+
+    public LoadTestRazorpayOrders(Faults faults) {
+        super("local");
+        this.faults = faults;
+    }
+
+    @Override
+    public Order create(JSONObject request) throws RazorpayException {
+        if (!faults.apply()) {
+            throw new RazorpayException("SERVER_ERROR:Injected failure");
+        }
+        JSONObject order = new JSONObject();
+        order.put("id", "order_load_" + orders.incrementAndGet());
+        order.put("entity", "order");
+        order.put("amount", request.get("amount"));
+        order.put("currency", request.get("currency"));
+        order.put("receipt", request.get("receipt"));
+        order.put("status", "created");
+        return new Order(order);
+    }
+}